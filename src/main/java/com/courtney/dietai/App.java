@@ -2,12 +2,39 @@ package com.courtney.dietai;
 
 import com.courtney.dietai.ai.OpenAIService;
 import com.courtney.dietai.ai.SimpleHeuristicAnalyzer;
+import com.courtney.dietai.analysis.ChartUpdates;
+import com.courtney.dietai.analysis.DailyRollup;
 import com.courtney.dietai.analysis.DietSummary;
+import com.courtney.dietai.analysis.Downsampler;
+import com.courtney.dietai.analysis.Granularity;
+import com.courtney.dietai.analysis.LiveSummary;
 import com.courtney.dietai.analysis.NutritionAnalyzer;
+import com.courtney.dietai.analysis.PortionAnalyzer;
+import com.courtney.dietai.analysis.QuantityParser;
+import com.courtney.dietai.analysis.RollupBucket;
+import com.courtney.dietai.concurrent.TaskScheduler;
+import com.courtney.dietai.io.BatchImporter;
+import com.courtney.dietai.io.Compression;
+import com.courtney.dietai.io.ImportDiagnostics;
+import com.courtney.dietai.io.CheckpointStore;
 import com.courtney.dietai.io.CsvImporter;
+import com.courtney.dietai.io.FileWatcher;
+import com.courtney.dietai.io.ImportCheckpoint;
+import com.courtney.dietai.io.ImportListener;
+import com.courtney.dietai.io.ImportProgress;
+import com.courtney.dietai.io.ParallelCsvImporter;
+import com.courtney.dietai.io.SnapshotCache;
+import com.courtney.dietai.io.TailImporter;
 import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.EntryStore;
+import com.courtney.dietai.model.RowView;
+import com.courtney.dietai.model.SymbolTable;
 import com.courtney.dietai.profile.*;
+import com.courtney.dietai.search.DateIndex;
+import com.courtney.dietai.search.FilterPlan;
+import com.courtney.dietai.search.TextIndex;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -19,32 +46,91 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.chart.*;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import java.io.File;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
 
 public class App extends Application {
 
-    private final TableView<DietEntry> table = new TableView<>();
-    private final ObservableList<DietEntry> allEntries = FXCollections.observableArrayList();
-    private final ObservableList<DietEntry> filteredEntries = FXCollections.observableArrayList();
+    // The table lists store row ids; cells read the columns directly, so no per-row objects exist
+    private final TableView<Integer> table = new TableView<>();
+    private final EntryStore store = new EntryStore();
+    private final RowView allRows = RowView.allRows();
+    // Ascending store rows matching the applied filter
+    private final RowView filteredRows = RowView.subset();
+    private final LiveSummary filteredSummary = new LiveSummary();
+    private final Map<TableColumn<Integer, ?>, IntBinaryOperator> columnComparators = new HashMap<>();
+    private final TextCache dateText = new TextCache();
 
     private final DatePicker fromDatePicker = new DatePicker();
     private final DatePicker toDatePicker = new DatePicker();
     private final TextField searchField = new TextField();
 
+    // Filter as last applied; the controls may hold edits that have not been applied yet
+    private FilterPlan appliedPlan = FilterPlan.all();
+    private final DailyRollup dailyRollup = new DailyRollup();
+    private final TextIndex textIndex = new TextIndex();
+    private final DateIndex dateIndex = new DateIndex();
+    // Guards the indexes and dailyRollup. Only background tasks take it, and they read store
+    // snapshots, so the FX thread never waits on a filter or summary pass.
+    private final Object indexLock = new Object();
+    // Store rows the applied filter has been run over; rows appended past it are filtered in the
+    // background by one catch-up run at a time
+    private int filteredThrough;
+    private boolean filterCatchUpRunning;
+
+    // All background work (import, filtering, AI) runs here; shut down when the application stops
+    private final TaskScheduler scheduler = new TaskScheduler();
+    private static final String IMPORT_KEY = "import";
+    private static final String FILTER_KEY = "filter";
+    private static final String AI_KEY = "ai";
+
+    // Filters re-run shortly after the last edit; the work happens in the background and only
+    // the newest task publishes its result
+    private static final Duration FILTER_DEBOUNCE = Duration.millis(250);
+    private final PauseTransition filterDebounce = new PauseTransition(FILTER_DEBOUNCE);
+    private Task<FilterResult> filterTask;
+
     private final Label summaryLabel = new Label("No data loaded.");
     private final Label targetsLabel = new Label("Targets not set.");
     private final PieChart macroPieChart = new PieChart();
     private final BarChart<String, Number> caloriesBarChart =
             new BarChart<>(new CategoryAxis(), new NumberAxis());
+    // Line and area modes plot days directly, thinned to the chart's width
+    private final LineChart<String, Number> caloriesLineChart =
+            new LineChart<>(new CategoryAxis(), new NumberAxis());
+    private final AreaChart<String, Number> caloriesAreaChart =
+            new AreaChart<>(new CategoryAxis(), new NumberAxis());
+    private final ComboBox<String> chartModeBox = new ComboBox<>();
+    private final StackPane caloriesChartHolder = new StackPane(caloriesBarChart);
+    private DietSummary shownSummary;
+    private int shownPointBudget;
+
+    // Summary pipeline state (FX thread only); the epoch is bumped when the store is cleared so
+    // results computed against the old rows are dropped
+    private boolean summaryRunning;
+    private boolean summaryRequested;
+    private DietSummary requestedSummary;
+    private int summaryEpoch;
 
     private final TextArea aiOutputArea = new TextArea();
     private final Button analyzeButton = new Button("Analyze with AI");
@@ -52,11 +138,52 @@ public class App extends Application {
 
     private final OpenAIService openAIService = new OpenAIService();
     private final SimpleHeuristicAnalyzer fallbackAnalyzer = new SimpleHeuristicAnalyzer();
+    // Shared so repeated analyses reuse the parsed quantity strings
+    private final QuantityParser quantityParser = new QuantityParser();
+    private static final int AI_PORTION_ITEMS = 15;
     private final ObjectMapper mapper = new ObjectMapper()
             .registerModule(new JavaTimeModule())
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     private final Label statusLabel = new Label();
 
+    // Streaming import state; summaries refresh at most this often while batches arrive
+    private static final long SUMMARY_REFRESH_INTERVAL_NANOS = 500_000_000L;
+    private static final long PARALLEL_IMPORT_THRESHOLD_BYTES = 64L << 20;
+    // Long ranges are charted per week, month or year so the bar count stays readable; points are
+    // further capped by the chart width so redraw cost stays bounded
+    private static final int MAX_CHART_BARS = 120;
+    private static final double PIXELS_PER_BAR = 6;
+    private static final double PIXELS_PER_LINE_POINT = 2;
+    private static final double DEFAULT_CHART_WIDTH = 600;
+    private static final String SEE_DETAILS = " (see details)";
+    // Whichever import (single file, folder or appended rows) is running; its batches are dropped once replaced
+    private Task<?> importTask;
+    private long lastSummaryRefresh;
+    private final SnapshotCache snapshotCache = new SnapshotCache();
+    private final CheckpointStore checkpointStore = new CheckpointStore();
+    // Saves run one at a time, so a file's snapshot and checkpoint are always written as a pair
+    private final Object snapshotSaveLock = new Object();
+    // Rewriting the snapshot costs as much as the whole file, so after appended rows it is saved
+    // once the file has been quiet for a while, or when another file is loaded or the app exits
+    private static final Duration SNAPSHOT_SAVE_DELAY = Duration.seconds(15);
+    private static final long EXIT_SAVE_TIMEOUT_SECONDS = 10;
+    private final PauseTransition snapshotSaveDelay = new PauseTransition(SNAPSHOT_SAVE_DELAY);
+    private boolean snapshotStale;
+    private long staleSourceMtime;
+
+    // The file the store was loaded from and how far it has been imported; with watching on,
+    // appended rows are imported shortly after the file stops changing
+    private File loadedFile;
+    private ImportCheckpoint loadedCheckpoint;
+    private long loadedRowsSkipped;
+    private final CheckMenuItem watchFileItem = new CheckMenuItem("Watch File for Changes");
+    private final PauseTransition tailDebounce = new PauseTransition(Duration.millis(500));
+    private FileWatcher fileWatcher;
+    // Shown on hover over the status bar: the last import's diagnostics, and the last problem with
+    // the snapshot cache or the watcher, which never fail an import but cost time or updates
+    private ImportDiagnostics shownDiagnostics;
+    private String backgroundWarning;
+
     // Profile and targets persisted via Preferences
     private final ProfileStore profileStore = new ProfileStore();
     private UserProfile profile;
@@ -78,6 +205,7 @@ public class App extends Application {
 
         setupTable();
         setupCharts();
+        filteredSummary.attach(store, filteredRows);
         setupAIOutput();
 
         BorderPane root = new BorderPane();
@@ -107,9 +235,22 @@ public class App extends Application {
         Menu fileMenu = new Menu("File");
         MenuItem openItem = new MenuItem("Open CSV...");
         openItem.setOnAction(e -> openCsv(stage));
+        watchFileItem.setOnAction(e -> {
+            if (watchFileItem.isSelected()) {
+                startWatching();
+                // Catch up on rows appended while not watching
+                if (loadedFile != null) tailDebounce.playFromStart();
+            } else {
+                stopWatching();
+            }
+        });
+        tailDebounce.setOnFinished(e -> importAppendedRows());
+        snapshotSaveDelay.setOnFinished(e -> saveAppendedRows());
+        MenuItem folderItem = new MenuItem("Import Folder...");
+        folderItem.setOnAction(e -> importFolder(stage));
         MenuItem exitItem = new MenuItem("Exit");
         exitItem.setOnAction(e -> Platform.exit());
-        fileMenu.getItems().addAll(openItem, new SeparatorMenuItem(), exitItem);
+        fileMenu.getItems().addAll(openItem, folderItem, watchFileItem, new SeparatorMenuItem(), exitItem);
 
         Menu settingsMenu = new Menu("Settings");
         MenuItem profileItem = new MenuItem("Profile & Targets...");
@@ -140,10 +281,14 @@ public class App extends Application {
         HBox filters = new HBox(8);
         fromDatePicker.setPromptText("From date");
         toDatePicker.setPromptText("To date");
-        searchField.setPromptText("Search item/meal/notes");
+        searchField.setPromptText("Search, e.g. meal:dinner calories>600 date:2025-08..2025-09 \"greek yogurt\"");
         Button applyFilter = new Button("Apply Filter");
         Button clearFilter = new Button("Clear");
         applyFilter.setOnAction(e -> applyFilters());
+        filterDebounce.setOnFinished(e -> applyFilters());
+        searchField.textProperty().addListener((obs, was, now) -> filterDebounce.playFromStart());
+        fromDatePicker.valueProperty().addListener((obs, was, now) -> filterDebounce.playFromStart());
+        toDatePicker.valueProperty().addListener((obs, was, now) -> filterDebounce.playFromStart());
         clearFilter.setOnAction(e -> {
             fromDatePicker.setValue(null);
             toDatePicker.setValue(null);
@@ -174,8 +319,27 @@ public class App extends Application {
         macroPane.setCollapsible(false);
 
         caloriesBarChart.setTitle("Daily Calories");
-        caloriesBarChart.setLegendVisible(false);
-        TitledPane caloriesPane = new TitledPane("Daily Calories", caloriesBarChart);
+        // Live filtering refreshes often; changed bars simply redraw instead of replaying animations
+        for (XYChart<String, Number> chart : List.of(caloriesBarChart, caloriesLineChart, caloriesAreaChart)) {
+            chart.setLegendVisible(false);
+            chart.setAnimated(false);
+        }
+        caloriesLineChart.setCreateSymbols(false);
+        caloriesAreaChart.setCreateSymbols(false);
+        chartModeBox.getItems().addAll("Bars", "Line", "Area");
+        chartModeBox.setValue("Bars");
+        chartModeBox.setOnAction(e -> requestSummary(shownSummary));
+        // Re-thin only when the width moved the point budget noticeably
+        caloriesChartHolder.widthProperty().addListener((obs, was, now) -> {
+            if (shownSummary != null && Math.abs(pointBudget(PIXELS_PER_LINE_POINT) - shownPointBudget) > shownPointBudget / 5) {
+                requestSummary(shownSummary);
+            }
+        });
+        HBox chartControls = new HBox(8, new Label("Show as:"), chartModeBox);
+        chartControls.setAlignment(Pos.CENTER_LEFT);
+        VBox caloriesBox = new VBox(4, chartControls, caloriesChartHolder);
+        VBox.setVgrow(caloriesChartHolder, Priority.ALWAYS);
+        TitledPane caloriesPane = new TitledPane("Daily Calories", caloriesBox);
         caloriesPane.setCollapsible(false);
 
         aiOutputArea.setWrapText(true);
@@ -210,42 +374,68 @@ public class App extends Application {
     private void setupTable() {
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
 
-        TableColumn<DietEntry, LocalDate> dateCol = new TableColumn<>("Date");
-        dateCol.setCellValueFactory(new PropertyValueFactory<>("date"));
+        TableColumn<Integer, Void> dateCol = column("Date", row -> dateText.get(store.getEpochDay(row)),
+                (a, b) -> Integer.compare(store.getEpochDay(a), store.getEpochDay(b)));
         dateCol.setMinWidth(110);
 
-        TableColumn<DietEntry, String> mealCol = new TableColumn<>("Meal");
-        mealCol.setCellValueFactory(new PropertyValueFactory<>("meal"));
+        TableColumn<Integer, Void> mealCol = column("Meal", store::getMeal, textOrder(store::getMeal));
+        TableColumn<Integer, Void> itemCol = column("Item", store::getItem, textOrder(store::getItem));
+        TableColumn<Integer, Void> qtyCol = column("Quantity", store::getQuantityOrDuration,
+                textOrder(store::getQuantityOrDuration));
+        TableColumn<Integer, Void> calCol = numberColumn("Calories", store::getCalories);
+        TableColumn<Integer, Void> carbsCol = numberColumn("Carbs (g)", store::getCarbs);
+        TableColumn<Integer, Void> proteinCol = numberColumn("Protein (g)", store::getProtein);
+        TableColumn<Integer, Void> fatCol = numberColumn("Fat (g)", store::getFat);
+        TableColumn<Integer, Void> fiberCol = numberColumn("Fiber (g)", store::getFiber);
+        TableColumn<Integer, Void> sodiumCol = numberColumn("Sodium (mg)", store::getSodiumMg);
+        TableColumn<Integer, Void> notesCol = column("Notes", store::getNotes, textOrder(store::getNotes));
 
-        TableColumn<DietEntry, String> itemCol = new TableColumn<>("Item");
-        itemCol.setCellValueFactory(new PropertyValueFactory<>("item"));
-
-        TableColumn<DietEntry, String> qtyCol = new TableColumn<>("Quantity");
-        qtyCol.setCellValueFactory(new PropertyValueFactory<>("quantityOrDuration"));
-
-        TableColumn<DietEntry, Double> calCol = new TableColumn<>("Calories");
-        calCol.setCellValueFactory(new PropertyValueFactory<>("calories"));
-
-        TableColumn<DietEntry, Double> carbsCol = new TableColumn<>("Carbs (g)");
-        carbsCol.setCellValueFactory(new PropertyValueFactory<>("carbs"));
-
-        TableColumn<DietEntry, Double> proteinCol = new TableColumn<>("Protein (g)");
-        proteinCol.setCellValueFactory(new PropertyValueFactory<>("protein"));
-
-        TableColumn<DietEntry, Double> fatCol = new TableColumn<>("Fat (g)");
-        fatCol.setCellValueFactory(new PropertyValueFactory<>("fat"));
-
-        TableColumn<DietEntry, Double> fiberCol = new TableColumn<>("Fiber (g)");
-        fiberCol.setCellValueFactory(new PropertyValueFactory<>("fiber"));
+        table.getColumns().addAll(dateCol, mealCol, itemCol, qtyCol, calCol, carbsCol, proteinCol, fatCol, fiberCol, sodiumCol, notesCol);
+        table.setItems(allRows);
+        // Sorting reorders the row ids with primitive comparisons instead of sorting boxed items
+        table.setSortPolicy(tv -> {
+            IntBinaryOperator order = null;
+            for (TableColumn<Integer, ?> col : tv.getSortOrder()) {
+                IntBinaryOperator cmp = columnComparators.get(col);
+                if (cmp == null) continue;
+                IntBinaryOperator directed = col.getSortType() == TableColumn.SortType.DESCENDING
+                        ? (a, b) -> cmp.applyAsInt(b, a) : cmp;
+                IntBinaryOperator previous = order;
+                order = previous == null ? directed : (a, b) -> {
+                    int c = previous.applyAsInt(a, b);
+                    return c != 0 ? c : directed.applyAsInt(a, b);
+                };
+            }
+            ((RowView) tv.getItems()).sortBy(order);
+            return true;
+        });
+    }
 
-        TableColumn<DietEntry, Double> sodiumCol = new TableColumn<>("Sodium (mg)");
-        sodiumCol.setCellValueFactory(new PropertyValueFactory<>("sodiumMg"));
+    // Column whose cells show text read from the store by row id. There is no cell value factory, so
+    // nothing is allocated per cell update: each cell looks up its row id by index in the table's
+    // RowView. The table still refreshes a cell whose row id changed at the same index, since it
+    // compares the row items as well as the (always null) cell values.
+    private TableColumn<Integer, Void> column(String title, IntFunction<String> text, IntBinaryOperator order) {
+        TableColumn<Integer, Void> col = new TableColumn<>(title);
+        col.setCellFactory(c -> new TableCell<>() {
+            @Override
+            protected void updateItem(Void item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty ? null : text.apply(((RowView) getTableView().getItems()).row(getIndex())));
+            }
+        });
+        columnComparators.put(col, order);
+        return col;
+    }
 
-        TableColumn<DietEntry, String> notesCol = new TableColumn<>("Notes");
-        notesCol.setCellValueFactory(new PropertyValueFactory<>("notes"));
+    private TableColumn<Integer, Void> numberColumn(String title, IntToDoubleFunction value) {
+        TextCache cache = new TextCache();
+        return column(title, row -> cache.get(value.applyAsDouble(row)),
+                (a, b) -> Double.compare(value.applyAsDouble(a), value.applyAsDouble(b)));
+    }
 
-        table.getColumns().addAll(dateCol, mealCol, itemCol, qtyCol, calCol, carbsCol, proteinCol, fatCol, fiberCol, sodiumCol, notesCol);
-        table.setItems(filteredEntries);
+    private static IntBinaryOperator textOrder(IntFunction<String> text) {
+        return (a, b) -> text.apply(a).compareTo(text.apply(b));
     }
 
     private void setupCharts() {
@@ -262,85 +452,744 @@ public class App extends Application {
         chooser.setInitialDirectory(new File("/home/dean/Documents/DietCSV"));
         //chooser.setInitialDirectory(new File(System.getProperty("user.home")));
         chooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv", "*.csv.gz", "*.zip"),
                 new FileChooser.ExtensionFilter("All Files", "*.*")
         );
         File file = chooser.showOpenDialog(stage);
         if (file == null) return;
+        boolean zip;
+        try {
+            zip = Compression.isZip(file);
+        } catch (IOException ex) {
+            showError("Import Error", "Could not read " + file.getName() + ".", ex);
+            return;
+        }
+        // An archive may hold several exports, so it is imported like a folder
+        if (zip) importFiles(List.of(file), file);
+        else importCsv(file);
+    }
 
+    // Loads the file from its snapshot when unchanged, resumes from the snapshot when rows were only
+    // appended since, and parses it in full otherwise
+    private void importCsv(File file) {
+        clearLoadedData();
         statusLabel.setText("Importing CSV...");
-        Task<List<DietEntry>> task = new Task<>() {
+        SymbolTable symbols = store.getSymbols();
+        // Taken before reading, so a snapshot is only written if the file did not change meanwhile
+        long sourceSize = file.length();
+        long sourceMtime = file.lastModified();
+        AtomicBoolean restored = new AtomicBoolean();
+        AtomicReference<ImportCheckpoint> resumedTo = new AtomicReference<>();
+        Task<ImportProgress> task = new Task<>() {
             @Override
-            protected List<DietEntry> call() throws Exception {
-                return CsvImporter.importFile(file);
+            protected ImportProgress call() throws Exception {
+                ImportListener listener = (batch, p) -> {
+                    if (isCancelled()) throw new CancellationException("Import cancelled.");
+                    updateProgress(p.getBytesRead(), p.getTotalBytes());
+                    Platform.runLater(() -> {
+                        if (importTask == this) appendImportedBatch(batch, p, file);
+                    });
+                };
+
+                SnapshotCache.Snapshot cached = loadSnapshot(file, null, this);
+                if (cached != null) {
+                    restored.set(true);
+                    Platform.runLater(() -> {
+                        if (importTask == this) restoreSnapshot(cached);
+                    });
+                    long rows = cached.getColumns().size;
+                    return new ImportProgress(sourceSize, sourceSize, rows, cached.getRowsSkipped());
+                }
+
+                ImportCheckpoint checkpoint = checkpointStore.load(file);
+                SnapshotCache.Snapshot base = checkpoint != null && checkpoint.matches(file) ? loadSnapshot(file, checkpoint, this) : null;
+                if (base != null) {
+                    Platform.runLater(() -> {
+                        if (importTask == this) restoreSnapshot(base);
+                    });
+                    TailImporter.Result tail = TailImporter.importTail(file, checkpoint, base.getSymbols(),
+                            CsvImporter.DEFAULT_BATCH_SIZE, listener);
+                    if (tail != null) {
+                        resumedTo.set(tail.getCheckpoint());
+                        ImportProgress p = tail.getProgress();
+                        return new ImportProgress(sourceSize, sourceSize, base.getColumns().size + p.getRowsParsed(),
+                                base.getRowsSkipped() + p.getRowsSkipped(), p.getDiagnostics());
+                    }
+                    // The file was rewritten after the checkpoint matched: the restored rows are
+                    // dropped and the whole file is imported below
+                    Platform.runLater(() -> {
+                        if (importTask == this) clearRows();
+                    });
+                }
+
+                // Compressed files can only be read from the start, so they are not split
+                if (file.length() >= PARALLEL_IMPORT_THRESHOLD_BYTES && !Compression.isGzip(file)) {
+                    return ParallelCsvImporter.importFile(file, ForkJoinPool.commonPool(), symbols, CsvImporter.DEFAULT_BATCH_SIZE, listener);
+                }
+                return CsvImporter.importFile(file, symbols, scheduler, CsvImporter.DEFAULT_BATCH_SIZE, listener);
             }
         };
+        importTask = task;
         task.setOnSucceeded(e -> {
-            allEntries.setAll(task.getValue());
+            importTask = null;
+            endImportProgress();
+            store.trimToSize();
             applyFilters();
-            statusLabel.setText("Loaded " + allEntries.size() + " entries from " + file.getName());
-            analyzeButton.setDisable(allEntries.isEmpty());
-            aiOutputArea.clear();
+            ImportProgress p = task.getValue();
+            ImportDiagnostics d = p.getDiagnostics();
+            statusLabel.setText("Loaded " + store.size() + " entries from " + file.getName()
+                    + (restored.get() ? " (cached)" : resumedTo.get() != null ? " (cached + appended rows)" : "")
+                    + (d != null && d.hasProblems() ? " (" + d.describeProblems() + ")"
+                            : p.getRowsSkipped() > 0 ? " (" + p.getRowsSkipped() + " rows skipped)" : "")
+                    + (backgroundWarning != null ? SEE_DETAILS : ""));
+            showDiagnostics(d);
+            analyzeButton.setDisable(store.isEmpty());
+            loadedFile = file;
+            loadedRowsSkipped = p.getRowsSkipped();
+            if (restored.get()) {
+                ImportCheckpoint checkpoint = checkpointStore.load(file);
+                loadedCheckpoint = checkpoint != null && checkpoint.getOffset() == sourceSize ? checkpoint : null;
+            } else {
+                ImportCheckpoint checkpoint = resumedTo.get();
+                commitImport(file, checkpoint != null ? checkpoint.getOffset() : sourceSize, sourceMtime, checkpoint);
+            }
+            startWatching();
         });
         task.setOnFailed(e -> {
+            importTask = null;
+            endImportProgress();
+            applyFilters();
             statusLabel.setText("Failed to import CSV.");
             showError("Import Error", "Could not import CSV.", task.getException());
         });
-        new Thread(task, "csv-import").start();
+        task.setOnCancelled(e -> endImportProgress());
+        progress.progressProperty().bind(task.progressProperty());
+        progress.setVisible(true);
+        scheduler.submit(TaskScheduler.Category.IMPORT, IMPORT_KEY, task);
     }
 
-    private void applyFilters() {
-        LocalDate from = fromDatePicker.getValue();
-        LocalDate to = toDatePicker.getValue();
-        String query = Optional.ofNullable(searchField.getText()).orElse("").trim().toLowerCase();
-
-        filteredEntries.setAll(allEntries.stream().filter(entry -> {
-            boolean okDate = true;
-            if (from != null) okDate &= !entry.getDate().isBefore(from);
-            if (to != null) okDate &= !entry.getDate().isAfter(to);
-            boolean okSearch = query.isEmpty()
-                    || safe(entry.getItem()).contains(query)
-                    || safe(entry.getMeal()).contains(query)
-                    || safe(entry.getNotes()).contains(query);
-            return okDate && okSearch;
-        }).collect(Collectors.toList()));
+    // Stops whatever is loading and empties the store before a new import
+    private void clearLoadedData() {
+        scheduler.cancel(IMPORT_KEY);
+        cancelFilter();
+        backgroundWarning = null;
+        stopWatching();
+        saveAppendedRows();
+        snapshotStale = false;
+        loadedFile = null;
+        loadedCheckpoint = null;
+        showDiagnostics(null);
+        clearRows();
+        aiOutputArea.clear();
+        analyzeButton.setDisable(true);
+    }
+
+    private void clearRows() {
+        summaryEpoch++;
+        // Views first: the live summary reads removed rows back from the store
+        filteredRows.clear();
+        allRows.clear();
+        store.clear();
+        filteredThrough = 0;
+        lastSummaryRefresh = 0;
+        updateSummaryAndCharts();
+    }
+
+    private void importFolder(Stage stage) {
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Import Folder of Diet CSVs");
+        File dir = chooser.showDialog(stage);
+        if (dir == null) return;
+        TextInputDialog patternDialog = new TextInputDialog("*.{csv,gz,zip}");
+        patternDialog.setTitle("Import Folder");
+        patternDialog.setHeaderText("Files to import from " + dir.getName() + " (use **/*.csv to include subfolders)");
+        patternDialog.setContentText("Pattern:");
+        Optional<String> pattern = patternDialog.showAndWait().map(String::trim).filter(p -> !p.isEmpty());
+        if (pattern.isEmpty()) return;
+
+        List<File> files;
+        try {
+            files = BatchImporter.listFiles(dir.toPath(), pattern.get());
+        } catch (IOException | IllegalArgumentException ex) {
+            showError("Import Error", "Could not list " + dir.getName() + ".", ex);
+            return;
+        }
+        if (files.isEmpty()) {
+            showInfo("No Files", "No files in " + dir.getName() + " match " + pattern.get() + ".");
+            return;
+        }
+        importFiles(files, dir);
+    }
+
+    // Parses the files in parallel, then appends the merged, de-duplicated rows in date order
+    private void importFiles(List<File> files, File dir) {
+        clearLoadedData();
+        statusLabel.setText("Importing " + files.size() + " files...");
+        SymbolTable symbols = store.getSymbols();
+        Task<BatchImporter.Result> task = new Task<>() {
+            @Override
+            protected BatchImporter.Result call() throws Exception {
+                return BatchImporter.importFiles(files, symbols, scheduler, CsvImporter.DEFAULT_BATCH_SIZE,
+                        stats -> {
+                            updateProgress(stats.getCompleted(), stats.getTotal());
+                            updateMessage("Parsed " + stats.getCompleted() + " of " + stats.getTotal() + " files");
+                        },
+                        (batch, p) -> {
+                            if (isCancelled()) throw new CancellationException("Import cancelled.");
+                            Platform.runLater(() -> {
+                                if (importTask == this) appendRows(batch);
+                            });
+                        });
+            }
+        };
+        importTask = task;
+        task.messageProperty().addListener((obs, was, now) -> {
+            if (importTask == task && now != null && !now.isEmpty()) statusLabel.setText(now);
+        });
+        task.setOnSucceeded(e -> {
+            importTask = null;
+            endImportProgress();
+            store.trimToSize();
+            applyFilters();
+            BatchImporter.Result r = task.getValue();
+            ImportDiagnostics d = r.getDiagnostics();
+            statusLabel.setText(String.format(Locale.US,
+                    "Loaded %d entries from %d files in %s: %d duplicates dropped, %s, %d files failed (%.1f MB/s, %.0f rows/s)",
+                    store.size(), r.getFiles().size(), dir.getName(), r.getDuplicates(),
+                    d.hasProblems() ? d.describeProblems() : "no bad rows", r.getFailedFiles(),
+                    r.getMegabytesPerSecond(), r.getRowsPerSecond()));
+            showDiagnostics(d);
+            analyzeButton.setDisable(store.isEmpty());
+            if (r.getFailedFiles() > 0) showInfo("Import Problems", describeFailures(r));
+        });
+        task.setOnFailed(e -> {
+            importTask = null;
+            endImportProgress();
+            applyFilters();
+            statusLabel.setText("Failed to import " + dir.getName() + ".");
+            showError("Import Error", "Could not import " + dir.getName() + ".", task.getException());
+        });
+        task.setOnCancelled(e -> endImportProgress());
+        progress.progressProperty().bind(task.progressProperty());
+        progress.setVisible(true);
+        scheduler.submit(TaskScheduler.Category.IMPORT, IMPORT_KEY, task);
+    }
+
+    private static String describeFailures(BatchImporter.Result r) {
+        StringBuilder sb = new StringBuilder();
+        for (BatchImporter.FileStats f : r.getFiles()) {
+            if (f.isFailed()) sb.append(f.getName()).append(": ").append(f.getError()).append('\n');
+        }
+        return sb.toString().trim();
+    }
+
+    // Imports the rows appended to the loaded file since its checkpoint. Without a usable checkpoint,
+    // or when the file was truncated or rewritten, the file is imported again in full.
+    private void importAppendedRows() {
+        File file = loadedFile;
+        if (file == null) return;
+        if (importTask != null) {
+            // Still importing; look again once that is done
+            tailDebounce.playFromStart();
+            return;
+        }
+        ImportCheckpoint checkpoint = loadedCheckpoint;
+        if (checkpoint == null) {
+            importCsv(file);
+            return;
+        }
+
+        long sourceMtime = file.lastModified();
+        SymbolTable symbols = store.getSymbols();
+        AtomicReference<ImportCheckpoint> next = new AtomicReference<>();
+        Task<ImportProgress> task = new Task<>() {
+            @Override
+            protected ImportProgress call() throws Exception {
+                ImportListener listener = (batch, p) -> {
+                    if (isCancelled()) throw new CancellationException("Import cancelled.");
+                    Platform.runLater(() -> {
+                        if (importTask == this) appendImportedBatch(batch, p, file);
+                    });
+                };
+                TailImporter.Result tail = TailImporter.importTail(file, checkpoint, symbols, CsvImporter.DEFAULT_BATCH_SIZE, listener);
+                if (tail == null) return null;
+                next.set(tail.getCheckpoint());
+                return tail.getProgress();
+            }
+        };
+        importTask = task;
+        task.setOnSucceeded(e -> {
+            importTask = null;
+            ImportProgress p = task.getValue();
+            if (p == null) {
+                statusLabel.setText(file.getName() + " was rewritten; reloading.");
+                importCsv(file);
+                return;
+            }
+            loadedCheckpoint = next.get();
+            if (p.getRowsParsed() == 0 && p.getRowsSkipped() == 0) return;
+            loadedRowsSkipped += p.getRowsSkipped();
+            ImportDiagnostics d = p.getDiagnostics();
+            statusLabel.setText("Appended " + p.getRowsParsed() + " entries from " + file.getName()
+                    + " (" + store.size() + " total" + (d.hasProblems() ? "; " + d.describeProblems() : "") + ")");
+            showDiagnostics(d);
+            analyzeButton.setDisable(store.isEmpty());
+            updateSummaryAndCharts();
+            // Only the rows are kept for now; the snapshot and checkpoint follow together later
+            snapshotStale = true;
+            staleSourceMtime = sourceMtime;
+            snapshotSaveDelay.playFromStart();
+        });
+        task.setOnFailed(e -> {
+            importTask = null;
+            statusLabel.setText("Failed to import appended rows from " + file.getName() + ".");
+        });
+        scheduler.submit(TaskScheduler.Category.IMPORT, IMPORT_KEY, task);
+    }
+
+    private void startWatching() {
+        stopWatching();
+        File file = loadedFile;
+        if (!watchFileItem.isSelected() || file == null) return;
+        try {
+            fileWatcher = new FileWatcher(file, scheduler, () -> Platform.runLater(() -> {
+                if (loadedFile == file) tailDebounce.playFromStart();
+            }));
+        } catch (IOException ex) {
+            watchFileItem.setSelected(false);
+            showError("Watch Error", "Could not watch " + file.getName() + " for changes.", ex);
+        }
+    }
+
+    private void stopWatching() {
+        tailDebounce.stop();
+        if (fileWatcher == null) return;
+        try {
+            fileWatcher.close();
+        } catch (IOException ex) {
+            warn("Could not stop watching for changes: " + ex.getMessage());
+        }
+        fileWatcher = null;
+    }
+
+    // Saves the snapshot and checkpoint put off after appended rows. While an import is running the
+    // store may hold rows past the checkpoint, so the save waits for it (and is dropped if it is
+    // cancelled); the snapshot then stays at its last save and the next load resumes from there.
+    private FutureTask<Void> saveAppendedRows() {
+        snapshotSaveDelay.stop();
+        if (!snapshotStale || importTask != null) return null;
+        snapshotStale = false;
+        return commitImport(loadedFile, loadedCheckpoint.getOffset(), staleSourceMtime, loadedCheckpoint);
+    }
+
+    private void appendImportedBatch(List<DietEntry> batch, ImportProgress p, File file) {
+        appendRows(batch);
+        statusLabel.setText(String.format(Locale.US, "Importing %s... %d rows (%.0f%%), %d skipped",
+                file.getName(), p.getRowsParsed(), 100.0 * Math.max(0, p.getFraction()), p.getRowsSkipped()));
+    }
+
+    private void appendRows(List<DietEntry> batch) {
+        store.addAll(batch);
+        allRows.extendTo(store.size());
+        catchUpFilter();
+
+        // Refreshing the summary on every batch would redo the full aggregation each time
+        long now = System.nanoTime();
+        if (now - lastSummaryRefresh >= SUMMARY_REFRESH_INTERVAL_NANOS) {
+            lastSummaryRefresh = now;
+            updateSummaryAndCharts();
+        }
+    }
 
+    // With a checkpoint, the snapshot of the bytes before it; otherwise one of the whole file. Called
+    // by the import task, which a failure is reported against.
+    private SnapshotCache.Snapshot loadSnapshot(File file, ImportCheckpoint checkpoint, Task<?> task) {
+        try {
+            return checkpoint == null ? snapshotCache.load(file) : snapshotCache.load(file, checkpoint);
+        } catch (IOException ex) {
+            Platform.runLater(() -> {
+                if (importTask == task) {
+                    warn("Could not read the cached rows of " + file.getName() + ", so the file was parsed: " + ex.getMessage());
+                }
+            });
+            return null;
+        }
+    }
+
+    // The store adopts the snapshot's columns and the rollup its day totals; the filter re-runs in
+    // the background once the import task completes
+    private void restoreSnapshot(SnapshotCache.Snapshot snapshot) {
+        store.load(snapshot.getSymbols(), snapshot.getColumns());
+        EntryStore rows = store.snapshot();
+        scheduler.submit(TaskScheduler.Category.ANALYSIS, null, new FutureTask<Void>(() -> {
+            synchronized (indexLock) {
+                dailyRollup.restore(rows, snapshot.getDayKeys(), snapshot.getDayTotals());
+            }
+        }, null));
+        allRows.extendTo(store.size());
         updateSummaryAndCharts();
     }
 
-    private String safe(String s) { return s == null ? "" : s.toLowerCase(); }
+    // Saves a snapshot of the store as the rows of the file's first coveredSize bytes, and the
+    // checkpoint at that offset (taken from the file after a full import). The columns are copied
+    // and the day totals rolled up in the IO lane, from a snapshot of the store; a newer save of the
+    // same file supersedes one still pending or running.
+    private FutureTask<Void> commitImport(File file, long coveredSize, long sourceMtime, ImportCheckpoint checkpoint) {
+        EntryStore rows = store.snapshot();
+        long rowsSkipped = loadedRowsSkipped;
+        int epoch = summaryEpoch;
+        FutureTask<Void> save = new FutureTask<>(() -> {
+            synchronized (snapshotSaveLock) {
+                if (Thread.currentThread().isInterrupted()) return;
+                SymbolTable symbols = rows.getSymbols();
+                EntryStore.Columns columns = rows.columns();
+                DailyRollup rollup = DailyRollup.of(rows);
+                try {
+                    boolean saved = snapshotCache.save(file, coveredSize, sourceMtime,
+                            new SnapshotCache.Snapshot(symbols, columns, rowsSkipped, rollup.dayKeys(), rollup.dayTotals()));
+                    // A checkpoint is only useful next to a snapshot covering the same bytes, and cannot
+                    // resume inside a compressed stream
+                    if (!saved || Compression.isGzip(file)) return;
+                    ImportCheckpoint next = checkpoint != null ? checkpoint : ImportCheckpoint.capture(file, coveredSize);
+                    if (next == null) {
+                        checkpointStore.remove(file);
+                        return;
+                    }
+                    checkpointStore.save(next);
+                    Platform.runLater(() -> {
+                        if (epoch == summaryEpoch && file.equals(loadedFile) && loadedCheckpoint == null) loadedCheckpoint = next;
+                    });
+                } catch (IOException ex) {
+                    // Interrupted by a newer save, which writes both again
+                    if (Thread.currentThread().isInterrupted()) return;
+                    // Only costs a full parse the next time the file is opened
+                    Platform.runLater(() -> {
+                        if (epoch == summaryEpoch && file.equals(loadedFile)) {
+                            warn("Could not cache the rows of " + file.getName() + " for next time: " + ex.getMessage());
+                        }
+                    });
+                }
+            }
+        }, null);
+        scheduler.submit(TaskScheduler.Category.IO, "snapshot:" + file.getAbsolutePath(), save);
+        return save;
+    }
+
+    // Samples and phase times of the last import, on hover over the status bar
+    private void showDiagnostics(ImportDiagnostics d) {
+        shownDiagnostics = d;
+        updateStatusTooltip();
+    }
+
+    // A cache or watcher problem: noted in the status bar, with the details on hover
+    private void warn(String message) {
+        backgroundWarning = message;
+        if (!statusLabel.getText().endsWith(SEE_DETAILS)) statusLabel.setText(statusLabel.getText() + SEE_DETAILS);
+        updateStatusTooltip();
+    }
+
+    private void updateStatusTooltip() {
+        String text = shownDiagnostics != null ? shownDiagnostics.describe() : null;
+        if (backgroundWarning != null) text = text != null ? backgroundWarning + System.lineSeparator() + text : backgroundWarning;
+        statusLabel.setTooltip(text != null ? new Tooltip(text) : null);
+    }
+
+    private void endImportProgress() {
+        progress.progressProperty().unbind();
+        progress.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+        progress.setVisible(false);
+    }
+
+    // Filters and summarizes on the filter thread; the result is applied by publishFilter
+    private void applyFilters() {
+        FilterPlan plan;
+        try {
+            plan = FilterPlan.compile(searchField.getText(), fromDatePicker.getValue(), toDatePicker.getValue());
+        } catch (IllegalArgumentException ex) {
+            filterDebounce.stop();
+            statusLabel.setText("Invalid filter: " + ex.getMessage());
+            return;
+        }
+        // Rows appended while this runs are caught up after publishing
+        EntryStore rows = store.snapshot();
+
+        cancelFilter();
+        Task<FilterResult> task = new Task<>() {
+            @Override
+            protected FilterResult call() {
+                FilterResult result = new FilterResult(plan, rows);
+                synchronized (indexLock) {
+                    if (!plan.isEmpty()) {
+                        result.rows = filterStore(plan, rows, 0, rows.size());
+                        if (isCancelled()) return null;
+                    }
+                    if (plan.isDateOnly()) {
+                        dailyRollup.update(rows);
+                        result.summary = dailyRollup.summarize(plan.getFrom(), plan.getTo());
+                    } else if (result.rows.length > 0) {
+                        result.summary = NutritionAnalyzer.summarize(rows, result.rows);
+                    }
+                }
+                return result;
+            }
+        };
+        filterTask = task;
+        task.setOnSucceeded(e -> {
+            if (filterTask != task) return;
+            filterTask = null;
+            publishFilter(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            if (filterTask != task) return;
+            filterTask = null;
+            showError("Filter Error", "Could not apply the filter.", task.getException());
+        });
+        scheduler.submit(TaskScheduler.Category.ANALYSIS, FILTER_KEY, task);
+    }
+
+    private void cancelFilter() {
+        filterDebounce.stop();
+        scheduler.cancel(FILTER_KEY);
+        filterTask = null;
+    }
+
+    private void publishFilter(FilterResult result) {
+        // Rows were replaced rather than appended since the snapshot was taken
+        if (result.version != store.getVersion()) {
+            applyFilters();
+            return;
+        }
+        appliedPlan = result.plan;
+        filteredThrough = result.rowCount;
+
+        // Without a filter the table shows the store-backed list directly instead of copying every row
+        boolean caughtUp = result.rowCount == store.size();
+        if (isFilterActive()) {
+            filteredRows.show(result.rows);
+            showRows(filteredRows);
+            catchUpFilter();
+        } else {
+            filteredRows.clear();
+            showRows(allRows);
+        }
+        requestSummary(caughtUp ? result.summary : null);
+    }
+
+    // Runs the applied filter over the rows appended since it last covered the store. One run at a
+    // time, so matches are appended in row order; a result is dropped if the filter or the rows
+    // changed meanwhile, and the next run picks up from there.
+    private void catchUpFilter() {
+        if (filterCatchUpRunning || !isFilterActive() || filteredThrough >= store.size()) return;
+        FilterPlan plan = appliedPlan;
+        EntryStore rows = store.snapshot();
+        int from = filteredThrough;
+        filterCatchUpRunning = true;
+        scheduler.submit(TaskScheduler.Category.ANALYSIS, null, new FutureTask<Void>(() -> {
+            int[] matched;
+            try {
+                matched = filterStore(plan, rows, from, rows.size());
+            } catch (CancellationException ex) {
+                // Interrupted by shutdown
+                return;
+            } catch (RuntimeException ex) {
+                Platform.runLater(() -> {
+                    filterCatchUpRunning = false;
+                    showError("Filter Error", "Could not filter the appended rows.", ex);
+                });
+                return;
+            }
+            Platform.runLater(() -> {
+                filterCatchUpRunning = false;
+                if (plan == appliedPlan && from == filteredThrough && rows.getVersion() == store.getVersion()) {
+                    filteredRows.append(matched);
+                    filteredThrough = rows.size();
+                }
+                catchUpFilter();
+            });
+        }, null));
+    }
+
+    // Background only. The plan drives from the date or text index; see FilterPlan for the order
+    // predicates are applied in.
+    private int[] filterStore(FilterPlan plan, EntryStore rows, int fromRow, int toRow) {
+        synchronized (indexLock) {
+            textIndex.update(rows, toRow);
+            dateIndex.update(rows, toRow);
+            return plan.execute(rows, textIndex, dateIndex, fromRow, toRow);
+        }
+    }
+
+    private void showRows(RowView rows) {
+        if (table.getItems() == rows) return;
+        table.setItems(rows);
+        table.sort();
+    }
+
+    private boolean isFilterActive() {
+        return !appliedPlan.isEmpty();
+    }
+
+    private ObservableList<Integer> visibleRows() {
+        return table.getItems();
+    }
 
     private void updateSummaryAndCharts() {
-        // Update targets regardless of data
-        targets = TargetCalculator.calculate(profile, goals);
+        requestSummary(null);
+    }
 
-        if (filteredEntries.isEmpty()) {
-            summaryLabel.setText("No data to summarize.");
-            targetsLabel.setText(buildTargetsText(null, targets));
-            macroPieChart.getData().setAll();
-            caloriesBarChart.getData().setAll();
+    // The summary texts, pie values and calories chart are prepared on the scheduler and applied
+    // with one runLater. Requests made while a run is in flight collapse into a single follow-up run,
+    // which snapshots the state current when it starts. A non-null summary is shown as is.
+    private void requestSummary(DietSummary known) {
+        requestedSummary = known;
+        if (summaryRunning) {
+            summaryRequested = true;
             return;
         }
-        DietSummary summary = NutritionAnalyzer.summarize(filteredEntries);
+        startSummary();
+    }
+
+    private void startSummary() {
+        SummaryView view = new SummaryView(summaryInput(requestedSummary));
+        requestedSummary = null;
+        summaryRequested = false;
+        summaryRunning = true;
+        int epoch = summaryEpoch;
+        scheduler.submit(TaskScheduler.Category.ANALYSIS, null, new FutureTask<Void>(() -> {
+            try {
+                prepareSummary(view);
+            } catch (RuntimeException ex) {
+                view.error = ex;
+            }
+            Platform.runLater(() -> publishSummary(view, epoch));
+        }, null));
+    }
+
+    private void publishSummary(SummaryView view, int epoch) {
+        summaryRunning = false;
+        if (epoch == summaryEpoch) {
+            if (view.error != null) showError("Summary Error", "Could not summarize the data.", view.error);
+            else showSummary(view);
+        }
+        if (summaryRequested) startSummary();
+    }
+
+    // Captures on the FX thread everything the background run needs
+    private SummaryInput summaryInput(DietSummary known) {
+        SummaryInput in = new SummaryInput(appliedPlan, store.snapshot(), visibleRows().isEmpty());
+        // Date-only filters are answered from the per-day rollup in the background; other filters
+        // read the summary maintained from filteredRows' change events
+        in.summary = known != null || in.empty || appliedPlan.isDateOnly() ? known : filteredSummary.getSummary();
+        in.targets = TargetCalculator.calculate(profile, goals);
+        in.profileText = buildProfileText(profile);
+        in.chartMode = chartModeBox.getValue();
+        in.linePointBudget = pointBudget(PIXELS_PER_LINE_POINT);
+        in.barBudget = Math.min(MAX_CHART_BARS, pointBudget(PIXELS_PER_BAR));
+        return in;
+    }
+
+    // Runs in the background; null when there is nothing to summarize
+    private DietSummary computeSummary(SummaryInput in) {
+        if (in.summary != null || in.empty) return in.summary;
+        synchronized (indexLock) {
+            dailyRollup.update(in.rows);
+            return dailyRollup.summarize(in.plan.getFrom(), in.plan.getTo());
+        }
+    }
+
+    private void prepareSummary(SummaryView view) {
+        SummaryInput in = view.input;
+        DietSummary summary = computeSummary(in);
+        view.summary = summary;
+        view.summaryText = summary == null ? "No data to summarize." : buildSummaryText(summary);
+        view.targetsText = buildTargetsText(in.profileText, summary, in.targets);
+        if (summary != null) view.chart = prepareCaloriesChart(summary, in);
+    }
 
-        summaryLabel.setText(buildSummaryText(summary));
-        targetsLabel.setText(buildTargetsText(summary, targets));
+    private void showSummary(SummaryView view) {
+        targets = view.input.targets;
+        summaryLabel.setText(view.summaryText);
+        targetsLabel.setText(view.targetsText);
 
         // Macro pie
-        macroPieChart.getData().setAll(
-                new PieChart.Data("Protein", summary.getMacroPctProtein()),
-                new PieChart.Data("Carbs", summary.getMacroPctCarbs()),
-                new PieChart.Data("Fat", summary.getMacroPctFat())
-        );
+        DietSummary summary = view.summary;
+        if (summary == null) {
+            macroPieChart.getData().clear();
+        } else {
+            ChartUpdates.updatePie(macroPieChart.getData(), new String[] {"Protein", "Carbs", "Fat"},
+                    new double[] {summary.getMacroPctProtein(), summary.getMacroPctCarbs(), summary.getMacroPctFat()});
+        }
+        showCaloriesChart(view);
+    }
+
+    // Bars show the average per logged day of each day/week/month/year; line and area modes plot
+    // days thinned with LTTB. Either way the point count is bounded by the chart's width.
+    private ChartModel prepareCaloriesChart(DietSummary summary, SummaryInput in) {
+        boolean bars = isBarMode(in.chartMode);
+        int budget = bars ? in.barBudget : in.linePointBudget;
+        Granularity granularity = bars ? Granularity.forSpan(summary.getStartDate(), summary.getEndDate(), budget) : Granularity.DAY;
+        List<RollupBucket> buckets;
+        if (in.plan.isDateOnly()) {
+            synchronized (indexLock) {
+                dailyRollup.update(in.rows);
+                buckets = dailyRollup.series(granularity, in.plan.getFrom(), in.plan.getTo());
+            }
+        } else {
+            buckets = DailyRollup.rollUp(summary.getDailyCalories(), granularity);
+        }
+
+        double[] x = new double[buckets.size()];
+        double[] y = new double[buckets.size()];
+        for (int i = 0; i < y.length; i++) {
+            x[i] = buckets.get(i).getStart().toEpochDay();
+            y[i] = buckets.get(i).getAvgCaloriesPerDay();
+        }
+        // Bars keep each bucket's extremes so spikes stay visible; lines keep the overall shape
+        int[] keep = bars ? Downsampler.minMax(y, budget / 2 - 1) : Downsampler.lttb(x, y, budget);
+
+        ChartModel model = new ChartModel(chartTitle(granularity), keep.length);
+        for (int i : keep) {
+            model.labels.add(buckets.get(i).getLabel());
+            model.values.add(Math.round(y[i]));
+        }
+        return model;
+    }
+
+    private void showCaloriesChart(SummaryView view) {
+        shownSummary = view.summary;
+        shownPointBudget = view.input.linePointBudget;
+        String mode = view.input.chartMode;
+        XYChart<String, Number> chart = isBarMode(mode) ? caloriesBarChart
+                : "Line".equals(mode) ? caloriesLineChart : caloriesAreaChart;
+        if (caloriesChartHolder.getChildren().get(0) != chart) caloriesChartHolder.getChildren().setAll(chart);
+        if (view.chart == null) {
+            chart.getData().clear();
+            return;
+        }
+        chart.setTitle(view.chart.title);
+        if (chart.getData().isEmpty()) chart.getData().add(new XYChart.Series<>());
+        ChartUpdates.updateSeries(chart.getData().get(0).getData(), view.chart.labels, view.chart.values);
+    }
 
-        // Daily calories bar chart
-        XYChart.Series<String, Number> series = new XYChart.Series<>();
-        summary.getDailyCalories().forEach((date, cals) ->
-                series.getData().add(new XYChart.Data<>(date.toString(), cals)));
-        caloriesBarChart.getData().setAll(series);
+    private static boolean isBarMode(String mode) {
+        return !"Line".equals(mode) && !"Area".equals(mode);
     }
 
-    private String buildSummaryText(DietSummary s) {
+    private int pointBudget(double pixelsPerPoint) {
+        double width = caloriesChartHolder.getWidth() > 0 ? caloriesChartHolder.getWidth() : DEFAULT_CHART_WIDTH;
+        return Math.max(10, (int) (width / pixelsPerPoint));
+    }
+
+    private static String chartTitle(Granularity granularity) {
+        switch (granularity) {
+            case WEEK: return "Avg Daily Calories by Week";
+            case MONTH: return "Avg Daily Calories by Month";
+            case YEAR: return "Avg Daily Calories by Year";
+            default: return "Daily Calories";
+        }
+    }
+
+    private static String buildSummaryText(DietSummary s) {
         StringBuilder sb = new StringBuilder();
         sb.append(String.format(Locale.US, "Date range: %s to %s (%d days)\n", s.getStartDate(), s.getEndDate(), s.getDaysCount()));
         sb.append(String.format(Locale.US, "Entries: %d\n", s.getEntriesCount()));
@@ -354,11 +1203,14 @@ public class App extends Application {
         return sb.toString();
     }
 
-    private String buildTargetsText(DietSummary s, Targets t) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format(Locale.US,
-                "Profile: %s, %d y, %.1f kg, %.0f cm, Activity: %s\n",
-                profile.getSex(), profile.getAge(), profile.getWeightKg(), profile.getHeightCm(), profile.getActivityLevel()));
+    // Formatted on the FX thread, where the profile is edited
+    private static String buildProfileText(UserProfile p) {
+        return String.format(Locale.US, "Profile: %s, %d y, %.1f kg, %.0f cm, Activity: %s\n",
+                p.getSex(), p.getAge(), p.getWeightKg(), p.getHeightCm(), p.getActivityLevel());
+    }
+
+    private static String buildTargetsText(String profileText, DietSummary s, Targets t) {
+        StringBuilder sb = new StringBuilder(profileText);
 
         sb.append(String.format(Locale.US,
                 "BMR: %.0f kcal | TDEE: %.0f kcal | Calorie target: %.0f kcal\n",
@@ -386,7 +1238,7 @@ public class App extends Application {
     }
 
     private void analyzeWithAI() {
-        if (filteredEntries.isEmpty()) {
+        if (visibleRows().isEmpty()) {
             showInfo("No Data", "Nothing to analyze. Please load a CSV and/or adjust filters.");
             return;
         }
@@ -394,29 +1246,37 @@ public class App extends Application {
         progress.setVisible(true);
         statusLabel.setText("Analyzing with AI...");
 
-        DietSummary summary = NutritionAnalyzer.summarize(filteredEntries);
-        Targets t = TargetCalculator.calculate(profile, goals);
-
-        Map<String, Object> payload = new LinkedHashMap<>();
-        payload.put("profile", profile);
-        payload.put("goals", goals);
-        payload.put("targets", t);
-        payload.put("summary", summary);
-        payload.put("note", "User-provided diet log aggregated. Targets estimated; not medical advice.");
+        // Everything the task reads is captured here: the rows as ids into the input's snapshot,
+        // and copies of the profile and goals, which the profile dialog edits in place
+        SummaryInput input = summaryInput(null);
+        Targets t = input.targets;
+        int[] rows = (isFilterActive() ? filteredRows : allRows).toRowArray();
+        UserProfile profileCopy = profile.copy();
+        GoalSettings goalsCopy = goals.copy();
 
         Task<String> task = new Task<>() {
             @Override
             protected String call() throws Exception {
+                // Summarized here rather than on the FX thread before starting
+                DietSummary summary = computeSummary(input);
+                Map<String, Object> payload = new LinkedHashMap<>();
+                payload.put("profile", profileCopy);
+                payload.put("goals", goalsCopy);
+                payload.put("targets", t);
+                payload.put("summary", summary);
+                payload.put("portions", portionsPayload(input.rows, rows));
+                payload.put("note", "User-provided diet log aggregated. Targets estimated; not medical advice.");
+
                 String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(payload);
                 String apiKey = openAIService.getApiKey();
                 if (apiKey == null || apiKey.isBlank()) {
-                    return fallbackAnalyzer.analyze(summary, profile, t);
+                    return fallbackAnalyzer.analyze(summary, profileCopy, t);
                 }
                 try {
                     return openAIService.analyzeDiet(json);
                 } catch (Exception ex) {
                     return "AI request failed (" + ex.getMessage() + "). Showing offline analysis instead:\n\n"
-                            + fallbackAnalyzer.analyze(summary, profile, t);
+                            + fallbackAnalyzer.analyze(summary, profileCopy, t);
                 }
             }
         };
@@ -434,7 +1294,27 @@ public class App extends Application {
             progress.setVisible(false);
         });
 
-        new Thread(task, "ai-analysis").start();
+        // A repeated request replaces the one still running instead of queueing a duplicate call
+        scheduler.submit(TaskScheduler.Category.AI, AI_KEY, task);
+    }
+
+    // Typical portion and per-100g values of the most logged items that have gram weights
+    private List<Map<String, Object>> portionsPayload(EntryStore snapshot, int[] rows) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (PortionAnalyzer.ItemPortions p : PortionAnalyzer.analyze(snapshot, rows, quantityParser)) {
+            if (p.getWeighedEntries() == 0) continue;
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("item", p.getItem());
+            item.put("entries", p.getEntries());
+            item.put("avgPortionG", Math.round(p.getAvgPortionG() * 10) / 10.0);
+            item.put("kcalPer100g", Math.round(p.getCaloriesPer100g() * 10) / 10.0);
+            item.put("proteinPer100g", Math.round(p.getProteinPer100g() * 10) / 10.0);
+            item.put("carbsPer100g", Math.round(p.getCarbsPer100g() * 10) / 10.0);
+            item.put("fatPer100g", Math.round(p.getFatPer100g() * 10) / 10.0);
+            out.add(item);
+            if (out.size() == AI_PORTION_ITEMS) break;
+        }
+        return out;
     }
 
     private void showProfileDialog() {
@@ -617,7 +1497,115 @@ public class App extends Application {
         alert.showAndWait();
     }
 
+    @Override
+    public void stop() {
+        stopWatching();
+        FutureTask<Void> save = saveAppendedRows();
+        if (save != null) {
+            try {
+                save.get(EXIT_SAVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException ex) {
+                // The snapshot stays at its last save
+            }
+        }
+        scheduler.shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
-}
\ No newline at end of file
+
+    // Filter as requested from the controls, with its matching rows and summary
+    private static final class FilterResult {
+        final FilterPlan plan;
+        final int rowCount;
+        final int version;
+        int[] rows = new int[0];
+        DietSummary summary;
+
+        FilterResult(FilterPlan plan, EntryStore snapshot) {
+            this.plan = plan;
+            this.rowCount = snapshot.size();
+            this.version = snapshot.getVersion();
+        }
+    }
+
+    // What a summary run reads, captured on the FX thread
+    private static final class SummaryInput {
+        final FilterPlan plan;
+        // Snapshot of the store when the run was requested
+        final EntryStore rows;
+        final boolean empty;
+        DietSummary summary;
+        Targets targets;
+        String profileText;
+        String chartMode;
+        int linePointBudget;
+        int barBudget;
+
+        SummaryInput(FilterPlan plan, EntryStore rows, boolean empty) {
+            this.plan = plan;
+            this.rows = rows;
+            this.empty = empty;
+        }
+    }
+
+    // Everything a summary run hands back to the FX thread
+    private static final class SummaryView {
+        final SummaryInput input;
+        DietSummary summary;
+        String summaryText;
+        String targetsText;
+        ChartModel chart;
+        RuntimeException error;
+
+        SummaryView(SummaryInput input) {
+            this.input = input;
+        }
+    }
+
+    // Calories series ready for ChartUpdates.updateSeries, in chart order
+    private static final class ChartModel {
+        final String title;
+        final List<String> labels;
+        final List<Long> values;
+
+        ChartModel(String title, int size) {
+            this.title = title;
+            this.labels = new ArrayList<>(size);
+            this.values = new ArrayList<>(size);
+        }
+    }
+
+    // Formatted cell text for recently shown values; numbers and dates repeat a lot while scrolling
+    private static final class TextCache {
+        private static final int SLOTS = 1024;
+        private final long[] keys = new long[SLOTS];
+        private final String[] texts = new String[SLOTS];
+
+        String get(double value) {
+            long key = Double.doubleToLongBits(value);
+            int slot = slot(key);
+            if (texts[slot] == null || keys[slot] != key) {
+                keys[slot] = key;
+                texts[slot] = Double.toString(value);
+            }
+            return texts[slot];
+        }
+
+        String get(int epochDay) {
+            int slot = slot(epochDay);
+            if (texts[slot] == null || keys[slot] != epochDay) {
+                keys[slot] = epochDay;
+                texts[slot] = LocalDate.ofEpochDay(epochDay).toString();
+            }
+            return texts[slot];
+        }
+
+        private static int slot(long key) {
+            return (int) (key ^ (key >>> 21) ^ (key >>> 42)) & (SLOTS - 1);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.courtney.dietai.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.PieChart;
+import javafx.scene.chart.XYChart;
+
+// Brings chart data to new values in place, so a refresh only touches the nodes that differ and
+// the chart does not rebuild (and re-animate) every point.
+public final class ChartUpdates {
+
+    private ChartUpdates() {}
+
+    // Brings a series to the given points (labels in chart order): points whose label is gone are
+    // removed, new labels are inserted, and kept points only get a new value when it changed. When
+    // the kept labels are not in the new order (e.g. a changed granularity) the points are replaced.
+    public static void updateSeries(ObservableList<XYChart.Data<String, Number>> data, List<String> labels,
+                                    List<? extends Number> values) {
+        if (labels.size() != values.size()) throw new IllegalArgumentException("Labels and values differ in length.");
+        Map<String, Integer> wanted = new HashMap<>(labels.size() * 2);
+        for (int i = 0; i < labels.size(); i++) wanted.put(labels.get(i), i);
+
+        // Drop points no longer wanted, as contiguous runs from the back
+        for (int end = data.size(); end > 0; ) {
+            if (wanted.containsKey(data.get(end - 1).getXValue())) { end--; continue; }
+            int start = end - 1;
+            while (start > 0 && !wanted.containsKey(data.get(start - 1).getXValue())) start--;
+            data.remove(start, end);
+            end = start;
+        }
+        for (int i = 1; i < data.size(); i++) {
+            if (wanted.get(data.get(i - 1).getXValue()) > wanted.get(data.get(i).getXValue())) {
+                List<XYChart.Data<String, Number>> points = new ArrayList<>(labels.size());
+                for (int k = 0; k < labels.size(); k++) points.add(new XYChart.Data<>(labels.get(k), values.get(k)));
+                data.setAll(points);
+                return;
+            }
+        }
+
+        int pos = 0;
+        for (int i = 0; i < labels.size(); ) {
+            if (pos < data.size() && data.get(pos).getXValue().equals(labels.get(i))) {
+                XYChart.Data<String, Number> point = data.get(pos);
+                if (!values.get(i).equals(point.getYValue())) point.setYValue(values.get(i));
+                pos++;
+                i++;
+                continue;
+            }
+            // Insert the run of new labels in one change
+            int start = i;
+            List<XYChart.Data<String, Number>> run = new ArrayList<>();
+            while (i < labels.size() && (pos >= data.size() || !data.get(pos).getXValue().equals(labels.get(i)))) {
+                run.add(new XYChart.Data<>(labels.get(i), values.get(i)));
+                i++;
+            }
+            data.addAll(pos, run);
+            pos += i - start;
+        }
+    }
+
+    // Changes slice values in place; slices are only rebuilt when the names differ
+    public static void updatePie(ObservableList<PieChart.Data> data, String[] names, double[] values) {
+        boolean same = data.size() == names.length;
+        for (int i = 0; same && i < names.length; i++) same = data.get(i).getName().equals(names[i]);
+        if (!same) {
+            List<PieChart.Data> slices = new ArrayList<>(names.length);
+            for (int i = 0; i < names.length; i++) slices.add(new PieChart.Data(names[i], values[i]));
+            data.setAll(slices);
+            return;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (data.get(i).getPieValue() != values[i]) data.get(i).setPieValue(values[i]);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.courtney.dietai.analysis;
+
+import com.courtney.dietai.model.EntryStore;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-day totals of an EntryStore with prefix sums over the days, so the summary of any date range
+// is two binary searches plus O(1) arithmetic (and O(days) for the daily calories map).
+// Kept in step with the store, or snapshots of it, by update(): appended rows are folded in,
+// anything else rebuilds.
+// Sums use SummaryAccumulator's fixed-point units, so range subtraction is exact. Week, month and
+// year buckets are indexed as days are appended, so a rolled-up series costs O(buckets).
+public class DailyRollup {
+    private static final int INITIAL_CAPACITY = 64;
+    // Day buckets are used while the day span is within this many days per row; one far-off date
+    // (a typo'd year) would otherwise allocate six arrays the length of centuries
+    private static final int DENSE_DAYS_PER_ROW = 4;
+
+    private int daysCount;
+    private int[] days = new int[INITIAL_CAPACITY];
+    private long[] dayCalories = new long[INITIAL_CAPACITY];
+
+    // Prefix sums: index i holds the total of days [0, i)
+    private long[] entries = new long[INITIAL_CAPACITY + 1];
+    private long[] calories = new long[INITIAL_CAPACITY + 1];
+    private long[] protein = new long[INITIAL_CAPACITY + 1];
+    private long[] carbs = new long[INITIAL_CAPACITY + 1];
+    private long[] fat = new long[INITIAL_CAPACITY + 1];
+    private long[] fiber = new long[INITIAL_CAPACITY + 1];
+    private long[] sodium = new long[INITIAL_CAPACITY + 1];
+
+    // Per coarser granularity: index of the first day of each bucket, and that bucket's start day
+    private static final Granularity[] LEVELS = {Granularity.WEEK, Granularity.MONTH, Granularity.YEAR};
+    private final int[][] bucketFirstDay = new int[LEVELS.length][INITIAL_CAPACITY];
+    private final int[][] bucketKey = new int[LEVELS.length][INITIAL_CAPACITY];
+    private final int[] bucketCount = new int[LEVELS.length];
+
+    private EntryStore source;
+    private int sourceVersion;
+    private int rowsCovered;
+
+    public static DailyRollup of(EntryStore store) {
+        DailyRollup rollup = new DailyRollup();
+        rollup.update(store);
+        return rollup;
+    }
+
+    public void update(EntryStore store) {
+        update(store, store.size());
+    }
+
+    // Covers only the first rowCount rows, so a reader off the FX thread can stop at a row count
+    // taken before rows kept being appended
+    public void update(EntryStore store, int rowCount) {
+        if (store.getOrigin() != source || store.getVersion() != sourceVersion || rowCount < rowsCovered) {
+            rebuild(store, rowCount);
+            return;
+        }
+        int n = rowCount;
+        int last = daysCount > 0 ? days[daysCount - 1] : Integer.MIN_VALUE;
+        for (int row = rowsCovered; row < n; row++) {
+            int day = store.getEpochDay(row);
+            if (day < last) {
+                rebuild(store, rowCount);
+                return;
+            }
+            last = day;
+        }
+        for (int row = rowsCovered; row < n; row++) fold(store, row);
+        rowsCovered = n;
+    }
+
+    public int getDaysCount() { return daysCount; }
+
+    // Logged days in ascending order, for persisting the rollup
+    public int[] dayKeys() {
+        return Arrays.copyOf(days, daysCount);
+    }
+
+    // Per-day totals in SummaryAccumulator's fixed-point units, one array per measure in the order
+    // entries, calories, protein, carbs, fat, fiber, sodium; parallel to dayKeys()
+    public long[][] dayTotals() {
+        long[][] prefixes = {entries, calories, protein, carbs, fat, fiber, sodium};
+        long[][] out = new long[prefixes.length][daysCount];
+        for (int m = 0; m < prefixes.length; m++) {
+            for (int i = 0; i < daysCount; i++) out[m][i] = prefixes[m][i + 1] - prefixes[m][i];
+        }
+        return out;
+    }
+
+    // Restores totals saved from dayKeys()/dayTotals() as the rollup of all rows of the store, which
+    // must hold exactly the rows they were computed from
+    public void restore(EntryStore store, int[] dayKeys, long[][] totals) {
+        source = store.getOrigin();
+        sourceVersion = store.getVersion();
+        rowsCovered = store.size();
+        daysCount = 0;
+        Arrays.fill(bucketCount, 0);
+        for (int i = 0; i < dayKeys.length; i++) {
+            appendDay(dayKeys[i], totals[0][i], totals[1][i], totals[2][i], totals[3][i],
+                    totals[4][i], totals[5][i], totals[6][i]);
+        }
+    }
+
+    public boolean isEmpty() { return daysCount == 0; }
+
+    // Summary of the days within [from, to]; null bounds are open. Returns null when no day matches.
+    public DietSummary summarize(LocalDate from, LocalDate to) {
+        int lo = from == null ? 0 : lowerBound(from.toEpochDay());
+        int hi = to == null ? daysCount : lowerBound(to.toEpochDay() + 1);
+        if (lo >= hi) return null;
+
+        Map<LocalDate, Integer> daily = new LinkedHashMap<>();
+        for (int i = lo; i < hi; i++) {
+            daily.put(LocalDate.ofEpochDay(days[i]), (int) Math.round(SummaryAccumulator.fromFixed(dayCalories[i])));
+        }
+
+        return NutritionAnalyzer.build(LocalDate.ofEpochDay(days[lo]), LocalDate.ofEpochDay(days[hi - 1]),
+                (int) (entries[hi] - entries[lo]), hi - lo, daily,
+                range(calories, lo, hi), range(protein, lo, hi), range(carbs, lo, hi),
+                range(fat, lo, hi), range(fiber, lo, hi), range(sodium, lo, hi));
+    }
+
+    // Totals per bucket for the days within [from, to]; edge buckets only cover the days in range
+    public List<RollupBucket> series(Granularity granularity, LocalDate from, LocalDate to) {
+        int lo = from == null ? 0 : lowerBound(from.toEpochDay());
+        int hi = to == null ? daysCount : lowerBound(to.toEpochDay() + 1);
+        List<RollupBucket> out = new ArrayList<>();
+        if (lo >= hi) return out;
+
+        if (granularity == Granularity.DAY) {
+            for (int i = lo; i < hi; i++) out.add(bucket(granularity, LocalDate.ofEpochDay(days[i]), i, i + 1));
+            return out;
+        }
+        int level = levelOf(granularity);
+        int[] firsts = bucketFirstDay[level];
+        int count = bucketCount[level];
+        int b = Arrays.binarySearch(firsts, 0, count, lo);
+        if (b < 0) b = -b - 2;
+        for (; b < count && firsts[b] < hi; b++) {
+            int start = Math.max(firsts[b], lo);
+            int end = Math.min(b + 1 < count ? firsts[b + 1] : daysCount, hi);
+            out.add(bucket(granularity, LocalDate.ofEpochDay(bucketKey[level][b]), start, end));
+        }
+        return out;
+    }
+
+    // Rolls a summary's daily calories up to the given granularity (calories only)
+    public static List<RollupBucket> rollUp(Map<LocalDate, Integer> dailyCalories, Granularity granularity) {
+        List<RollupBucket> out = new ArrayList<>();
+        LocalDate current = null;
+        int daysLogged = 0;
+        double cals = 0;
+        for (Map.Entry<LocalDate, Integer> e : dailyCalories.entrySet()) {
+            LocalDate start = granularity.bucketStart(e.getKey());
+            if (!start.equals(current)) {
+                if (current != null) out.add(new RollupBucket(granularity, current, daysLogged, 0, cals, 0, 0, 0, 0, 0));
+                current = start;
+                daysLogged = 0;
+                cals = 0;
+            }
+            daysLogged++;
+            cals += e.getValue();
+        }
+        if (current != null) out.add(new RollupBucket(granularity, current, daysLogged, 0, cals, 0, 0, 0, 0, 0));
+        return out;
+    }
+
+    private RollupBucket bucket(Granularity granularity, LocalDate start, int lo, int hi) {
+        return new RollupBucket(granularity, start, hi - lo, entries[hi] - entries[lo],
+                range(calories, lo, hi), range(protein, lo, hi), range(carbs, lo, hi),
+                range(fat, lo, hi), range(fiber, lo, hi), range(sodium, lo, hi));
+    }
+
+    private static int levelOf(Granularity granularity) {
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i] == granularity) return i;
+        }
+        throw new IllegalArgumentException("Unsupported granularity: " + granularity);
+    }
+
+    private static double range(long[] prefix, int lo, int hi) {
+        return SummaryAccumulator.fromFixed(prefix[hi] - prefix[lo]);
+    }
+
+    private int lowerBound(long epochDay) {
+        int lo = 0, hi = daysCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < epochDay) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private void rebuild(EntryStore store, int rowCount) {
+        source = store.getOrigin();
+        sourceVersion = store.getVersion();
+        rowsCovered = rowCount;
+        daysCount = 0;
+        Arrays.fill(bucketCount, 0);
+        if (rowCount == 0) return;
+
+        int n = rowCount;
+        int minDay = Integer.MAX_VALUE, maxDay = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            int d = store.getEpochDay(i);
+            if (d < minDay) minDay = d;
+            if (d > maxDay) maxDay = d;
+        }
+
+        // Bucket by day offset when the span is dense enough, otherwise sort the rows by day first
+        if ((long) maxDay - minDay < (long) DENSE_DAYS_PER_ROW * n) {
+            int span = maxDay - minDay + 1;
+            int[] counts = new int[span];
+            long[][] sums = new long[6][span];
+            for (int i = 0; i < n; i++) {
+                int slot = store.getEpochDay(i) - minDay;
+                counts[slot]++;
+                sums[0][slot] += SummaryAccumulator.toFixed(store.getCalories(i));
+                sums[1][slot] += SummaryAccumulator.toFixed(store.getProtein(i));
+                sums[2][slot] += SummaryAccumulator.toFixed(store.getCarbs(i));
+                sums[3][slot] += SummaryAccumulator.toFixed(store.getFat(i));
+                sums[4][slot] += SummaryAccumulator.toFixed(store.getFiber(i));
+                sums[5][slot] += SummaryAccumulator.toFixed(store.getSodiumMg(i));
+            }
+            for (int slot = 0; slot < span; slot++) {
+                if (counts[slot] == 0) continue;
+                appendDay(minDay + slot, counts[slot], sums[0][slot], sums[1][slot], sums[2][slot],
+                        sums[3][slot], sums[4][slot], sums[5][slot]);
+            }
+        } else {
+            // (day, row) pairs packed into longs, so the sort is primitive and stable
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++) keys[i] = ((long) store.getEpochDay(i) << 32) | i;
+            Arrays.sort(keys);
+            for (long key : keys) fold(store, (int) key);
+        }
+    }
+
+    private void fold(EntryStore store, int row) {
+        int day = store.getEpochDay(row);
+        if (daysCount == 0 || days[daysCount - 1] != day) {
+            appendDay(day, 0, 0, 0, 0, 0, 0, 0);
+        }
+        long cals = SummaryAccumulator.toFixed(store.getCalories(row));
+        dayCalories[daysCount - 1] += cals;
+        entries[daysCount]++;
+        calories[daysCount] += cals;
+        protein[daysCount] += SummaryAccumulator.toFixed(store.getProtein(row));
+        carbs[daysCount] += SummaryAccumulator.toFixed(store.getCarbs(row));
+        fat[daysCount] += SummaryAccumulator.toFixed(store.getFat(row));
+        fiber[daysCount] += SummaryAccumulator.toFixed(store.getFiber(row));
+        sodium[daysCount] += SummaryAccumulator.toFixed(store.getSodiumMg(row));
+    }
+
+    private void appendDay(int day, long count, long cals, long pro, long carb, long f, long fib, long sod) {
+        ensureCapacity(daysCount + 1);
+        int i = daysCount;
+        days[i] = day;
+        dayCalories[i] = cals;
+        entries[i + 1] = entries[i] + count;
+        calories[i + 1] = calories[i] + cals;
+        protein[i + 1] = protein[i] + pro;
+        carbs[i + 1] = carbs[i] + carb;
+        fat[i + 1] = fat[i] + f;
+        fiber[i + 1] = fiber[i] + fib;
+        sodium[i + 1] = sodium[i] + sod;
+        daysCount++;
+
+        LocalDate date = LocalDate.ofEpochDay(day);
+        for (int level = 0; level < LEVELS.length; level++) {
+            int key = (int) LEVELS[level].bucketStart(date).toEpochDay();
+            int n = bucketCount[level];
+            if (n > 0 && bucketKey[level][n - 1] == key) continue;
+            if (n == bucketKey[level].length) {
+                bucketKey[level] = Arrays.copyOf(bucketKey[level], n * 2);
+                bucketFirstDay[level] = Arrays.copyOf(bucketFirstDay[level], n * 2);
+            }
+            bucketKey[level][n] = key;
+            bucketFirstDay[level][n] = i;
+            bucketCount[level] = n + 1;
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= days.length) return;
+        int cap = Math.max(needed, days.length * 2);
+        days = Arrays.copyOf(days, cap);
+        dayCalories = Arrays.copyOf(dayCalories, cap);
+        entries = Arrays.copyOf(entries, cap + 1);
+        calories = Arrays.copyOf(calories, cap + 1);
+        protein = Arrays.copyOf(protein, cap + 1);
+        carbs = Arrays.copyOf(carbs, cap + 1);
+        fat = Arrays.copyOf(fat, cap + 1);
+        fiber = Arrays.copyOf(fiber, cap + 1);
+        sodium = Arrays.copyOf(sodium, cap + 1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.courtney.dietai.analysis;
+
+import java.util.Arrays;
+
+// Reduces a series to a point budget before it reaches a chart. Both methods return ascending
+// indexes into the input and always keep the first and last points.
+public class Downsampler {
+
+    // Largest-Triangle-Three-Buckets: per bucket, keeps the point forming the largest triangle with
+    // the previously kept point and the next bucket's average, which preserves the visual shape
+    public static int[] lttb(double[] x, double[] y, int threshold) {
+        int n = y.length;
+        if (threshold >= n || threshold < 3) return identity(n);
+
+        int[] out = new int[threshold];
+        int kept = 0;
+        out[kept++] = 0;
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next bucket
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0, avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            int avgLen = Math.max(1, avgEnd - avgStart);
+            avgX /= avgLen;
+            avgY /= avgLen;
+
+            int start = (int) Math.floor(i * every) + 1;
+            int end = (int) Math.floor((i + 1) * every) + 1;
+            double maxArea = -1;
+            int next = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((x[a] - avgX) * (y[j] - y[a]) - (x[a] - x[j]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            out[kept++] = next;
+            a = next;
+        }
+        out[kept++] = n - 1;
+        return out;
+    }
+
+    // Keeps the minimum and maximum of each bucket (in their original order), so isolated spikes
+    // survive; returns at most 2 * buckets + 2 indexes
+    public static int[] minMax(double[] y, int buckets) {
+        int n = y.length;
+        if (buckets <= 0 || 2 * buckets + 2 >= n) return identity(n);
+
+        int[] out = new int[2 * buckets + 2];
+        int kept = 0;
+        out[kept++] = 0;
+        double every = (double) (n - 2) / buckets;
+        for (int b = 0; b < buckets; b++) {
+            int start = (int) Math.floor(b * every) + 1;
+            int end = Math.min((int) Math.floor((b + 1) * every) + 1, n - 1);
+            if (start >= end) continue;
+            int min = start, max = start;
+            for (int j = start + 1; j < end; j++) {
+                if (y[j] < y[min]) min = j;
+                if (y[j] > y[max]) max = j;
+            }
+            out[kept++] = Math.min(min, max);
+            if (min != max) out[kept++] = Math.max(min, max);
+        }
+        out[kept++] = n - 1;
+        return Arrays.copyOf(out, kept);
+    }
+
+    private static int[] identity(int n) {
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++) out[i] = i;
+        return out;
+    }
+}
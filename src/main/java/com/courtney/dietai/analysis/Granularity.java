@@ -0,0 +1,57 @@
+package com.courtney.dietai.analysis;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+// Time resolutions for rolled-up series, finest first
+public enum Granularity {
+    DAY,
+    WEEK,
+    MONTH,
+    YEAR;
+
+    // Finest resolution that shows the days [start, end] in at most maxBuckets buckets. Counted on
+    // the calendar, since a span touches one more week or month than its length suggests when it
+    // starts late in one.
+    public static Granularity forSpan(LocalDate start, LocalDate end, int maxBuckets) {
+        for (Granularity g : values()) {
+            if (g.bucketsBetween(start, end) <= maxBuckets) return g;
+        }
+        return YEAR;
+    }
+
+    // Buckets touched by the days [start, end]
+    public long bucketsBetween(LocalDate start, LocalDate end) {
+        LocalDate a = bucketStart(start), b = bucketStart(end);
+        switch (this) {
+            case WEEK: return ChronoUnit.WEEKS.between(a, b) + 1;
+            case MONTH: return ChronoUnit.MONTHS.between(a, b) + 1;
+            case YEAR: return ChronoUnit.YEARS.between(a, b) + 1;
+            default: return ChronoUnit.DAYS.between(a, b) + 1;
+        }
+    }
+
+    public LocalDate bucketStart(LocalDate d) {
+        switch (this) {
+            case WEEK: return d.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH: return d.withDayOfMonth(1);
+            case YEAR: return d.withDayOfYear(1);
+            default: return d;
+        }
+    }
+
+    public String label(LocalDate bucketStart) {
+        switch (this) {
+            case WEEK:
+                return String.format(Locale.US, "%d-W%02d",
+                        bucketStart.get(IsoFields.WEEK_BASED_YEAR), bucketStart.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case MONTH: return String.format(Locale.US, "%d-%02d", bucketStart.getYear(), bucketStart.getMonthValue());
+            case YEAR: return String.valueOf(bucketStart.getYear());
+            default: return bucketStart.toString();
+        }
+    }
+}
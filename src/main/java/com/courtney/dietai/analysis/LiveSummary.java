@@ -0,0 +1,67 @@
+package com.courtney.dietai.analysis;
+
+import com.courtney.dietai.model.EntryStore;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+// Summary of an observable list of store rows kept up to date from its change events: added and
+// removed rows are applied as deltas to a SummaryAccumulator, so a change costs O(changed rows)
+// rather than a rescan. Removed rows are read back from the store, so the list must be emptied
+// before the store drops them.
+public class LiveSummary implements ListChangeListener<Integer> {
+    private final SummaryAccumulator acc = new SummaryAccumulator();
+    private EntryStore store;
+    private ObservableList<Integer> list;
+    private DietSummary cached;
+
+    public void attach(EntryStore store, ObservableList<Integer> list) {
+        detach();
+        this.store = store;
+        this.list = list;
+        acc.clear();
+        for (int row : list) add(row);
+        cached = null;
+        list.addListener(this);
+    }
+
+    public void detach() {
+        if (list != null) list.removeListener(this);
+        list = null;
+        store = null;
+        acc.clear();
+        cached = null;
+    }
+
+    // Null when the list is empty
+    public DietSummary getSummary() {
+        if (acc.isEmpty()) return null;
+        if (cached == null) cached = acc.toSummary();
+        return cached;
+    }
+
+    @Override
+    public void onChanged(Change<? extends Integer> c) {
+        cached = null;
+        if (list.isEmpty()) {
+            acc.clear();
+            return;
+        }
+        while (c.next()) {
+            if (c.wasPermutated() || c.wasUpdated()) continue;
+            if (c.wasRemoved()) {
+                for (int row : c.getRemoved()) {
+                    acc.remove(store.getEpochDay(row), store.getCalories(row), store.getProtein(row), store.getCarbs(row),
+                            store.getFat(row), store.getFiber(row), store.getSodiumMg(row));
+                }
+            }
+            if (c.wasAdded()) {
+                for (int row : c.getAddedSubList()) add(row);
+            }
+        }
+    }
+
+    private void add(int row) {
+        acc.add(store.getEpochDay(row), store.getCalories(row), store.getProtein(row), store.getCarbs(row),
+                store.getFat(row), store.getFiber(row), store.getSodiumMg(row));
+    }
+}
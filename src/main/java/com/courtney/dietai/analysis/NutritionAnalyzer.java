@@ -1,46 +1,95 @@
 package com.courtney.dietai.analysis;
 
 import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.EntryStore;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class NutritionAnalyzer {
 
+    // Inputs at least this large are reduced in parallel on the common fork-join pool
+    static final int PARALLEL_THRESHOLD = 50_000;
+    private static final int ROWS_PER_TASK = 16_384;
+
     public static DietSummary summarize(List<DietEntry> entries) {
         if (entries == null || entries.isEmpty()) {
             throw new IllegalArgumentException("No entries to summarize.");
         }
+        if (entries.size() >= PARALLEL_THRESHOLD) {
+            return entries.parallelStream().collect(SummaryAccumulator.collector());
+        }
+        SummaryAccumulator acc = new SummaryAccumulator();
+        for (DietEntry e : entries) acc.add(e);
+        return acc.toSummary();
+    }
+
+    // Columnar variant reading the primitive columns directly
+    public static DietSummary summarize(EntryStore store) {
+        if (store == null || store.isEmpty()) {
+            throw new IllegalArgumentException("No entries to summarize.");
+        }
+        return accumulate(store, 0, store.size()).toSummary();
+    }
+
+    // Summary of the given store rows, e.g. the result of a filter
+    public static DietSummary summarize(EntryStore store, int[] rows) {
+        if (store == null || rows == null || rows.length == 0) {
+            throw new IllegalArgumentException("No entries to summarize.");
+        }
+        SummaryAccumulator acc = new SummaryAccumulator();
+        for (int i : rows) {
+            acc.add(store.getEpochDay(i), store.getCalories(i), store.getProtein(i), store.getCarbs(i),
+                    store.getFat(i), store.getFiber(i), store.getSodiumMg(i));
+        }
+        return acc.toSummary();
+    }
 
-        List<DietEntry> sorted = entries.stream()
-                .sorted(Comparator.comparing(DietEntry::getDate))
-                .toList();
+    static SummaryAccumulator accumulate(EntryStore store, int from, int to) {
+        if (to - from >= PARALLEL_THRESHOLD) {
+            return ForkJoinPool.commonPool().invoke(new AccumulateTask(store, from, to));
+        }
+        return accumulateRange(store, from, to);
+    }
 
-        LocalDate start = sorted.get(0).getDate();
-        LocalDate end = sorted.get(sorted.size() - 1).getDate();
+    private static SummaryAccumulator accumulateRange(EntryStore store, int from, int to) {
+        SummaryAccumulator acc = new SummaryAccumulator();
+        for (int i = from; i < to; i++) {
+            acc.add(store.getEpochDay(i), store.getCalories(i), store.getProtein(i), store.getCarbs(i),
+                    store.getFat(i), store.getFiber(i), store.getSodiumMg(i));
+        }
+        return acc;
+    }
 
-        Map<LocalDate, List<DietEntry>> byDay = sorted.stream()
-                .collect(Collectors.groupingBy(DietEntry::getDate, TreeMap::new, Collectors.toList()));
+    private static final class AccumulateTask extends RecursiveTask<SummaryAccumulator> {
+        // Fork-join tasks are Serializable by inheritance; this one is never serialized
+        private static final long serialVersionUID = 1L;
 
-        Map<LocalDate, Integer> dailyCalories = new LinkedHashMap<>();
-        double totalCals = 0, totalProtein = 0, totalCarbs = 0, totalFat = 0, totalFiber = 0, totalSodium = 0;
+        private final transient EntryStore store;
+        private final int from, to;
 
-        for (Map.Entry<LocalDate, List<DietEntry>> day : byDay.entrySet()) {
-            double dayCals = 0;
-            for (DietEntry e : day.getValue()) {
-                totalCals += e.getCalories();
-                totalProtein += e.getProtein();
-                totalCarbs += e.getCarbs();
-                totalFat += e.getFat();
-                totalFiber += e.getFiber();
-                totalSodium += e.getSodiumMg();
+        AccumulateTask(EntryStore store, int from, int to) {
+            this.store = store;
+            this.from = from;
+            this.to = to;
+        }
 
-                dayCals += e.getCalories();
-            }
-            dailyCalories.put(day.getKey(), (int) Math.round(dayCals));
+        @Override
+        protected SummaryAccumulator compute() {
+            if (to - from <= ROWS_PER_TASK) return accumulateRange(store, from, to);
+            int mid = (from + to) >>> 1;
+            AccumulateTask left = new AccumulateTask(store, from, mid);
+            left.fork();
+            SummaryAccumulator right = new AccumulateTask(store, mid, to).compute();
+            return left.join().combine(right);
         }
+    }
 
-        int daysCount = byDay.size();
+    static DietSummary build(LocalDate start, LocalDate end, int entriesCount, int daysCount,
+                             Map<LocalDate, Integer> dailyCalories,
+                             double totalCals, double totalProtein, double totalCarbs,
+                             double totalFat, double totalFiber, double totalSodium) {
         double avgCals = daysCount > 0 ? totalCals / daysCount : 0;
         double avgProtein = daysCount > 0 ? totalProtein / daysCount : 0;
         double avgCarbs = daysCount > 0 ? totalCarbs / daysCount : 0;
@@ -59,7 +108,7 @@ public class NutritionAnalyzer {
         DietSummary summary = new DietSummary();
         summary.setStartDate(start);
         summary.setEndDate(end);
-        summary.setEntriesCount(sorted.size());
+        summary.setEntriesCount(entriesCount);
         summary.setDaysCount(daysCount);
         summary.setTotalCalories(totalCals);
         summary.setAvgCaloriesPerDay(avgCals);
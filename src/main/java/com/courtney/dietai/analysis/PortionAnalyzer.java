@@ -0,0 +1,89 @@
+package com.courtney.dietai.analysis;
+
+import com.courtney.dietai.model.EntryStore;
+import com.courtney.dietai.model.SymbolTable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Portion sizes and nutrients per 100 g for each item, from the gram weights in the quantity text.
+// Quantities are looked up once per distinct string in a pass (by symbol code, through the shared
+// parser's cache), so a pass over millions of rows parses only a few hundred strings. Rows without
+// a weight count towards an item's entries but not its per-100g values.
+// A pass reads a snapshot of the store taken when it starts, so its size, columns and symbol codes
+// stay consistent throughout; off the store's owning thread, pass a snapshot in.
+public class PortionAnalyzer {
+
+    public static final class ItemPortions {
+        private final String item;
+        private long entries;
+        private long weighedEntries;
+        private double grams;
+        private double calories;
+        private double proteinG;
+        private double carbsG;
+        private double fatG;
+
+        ItemPortions(String item) {
+            this.item = item;
+        }
+
+        public String getItem() { return item; }
+        public long getEntries() { return entries; }
+        public long getWeighedEntries() { return weighedEntries; }
+        public double getTotalGrams() { return grams; }
+
+        // NaN when no entry of the item has a weight
+        public double getAvgPortionG() { return weighedEntries > 0 ? grams / weighedEntries : Double.NaN; }
+        public double getCaloriesPer100g() { return per100g(calories); }
+        public double getProteinPer100g() { return per100g(proteinG); }
+        public double getCarbsPer100g() { return per100g(carbsG); }
+        public double getFatPer100g() { return per100g(fatG); }
+
+        private double per100g(double total) {
+            return grams > 0 ? total * 100 / grams : Double.NaN;
+        }
+    }
+
+    // Items of the given rows, most logged first; rows must be below the store's size
+    public static List<ItemPortions> analyze(EntryStore store, int[] rows, QuantityParser parser) {
+        EntryStore snapshot = store.snapshot();
+        SymbolTable symbols = snapshot.getSymbols();
+        // Read after the snapshot, so every code its rows use is covered
+        Quantity[] quantities = new Quantity[symbols.size()];
+        ItemPortions[] byItem = new ItemPortions[symbols.size()];
+        List<ItemPortions> items = new ArrayList<>();
+        int size = snapshot.size();
+        for (int row : rows) {
+            if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+            int itemCode = snapshot.getItemCode(row);
+            int quantityCode = snapshot.getQuantityCode(row);
+            ItemPortions p = byItem[itemCode];
+            if (p == null) {
+                p = byItem[itemCode] = new ItemPortions(symbols.get(itemCode));
+                items.add(p);
+            }
+            Quantity q = quantities[quantityCode];
+            if (q == null) q = quantities[quantityCode] = parser.parse(symbols.get(quantityCode));
+
+            p.entries++;
+            if (q == null || !q.hasGrams() || !(q.getGrams() > 0)) continue;
+            p.weighedEntries++;
+            p.grams += q.getGrams();
+            p.calories += snapshot.getCalories(row);
+            p.proteinG += snapshot.getProtein(row);
+            p.carbsG += snapshot.getCarbs(row);
+            p.fatG += snapshot.getFat(row);
+        }
+        items.sort(Comparator.comparingLong(ItemPortions::getEntries).reversed());
+        return items;
+    }
+
+    public static List<ItemPortions> analyze(EntryStore store, QuantityParser parser) {
+        EntryStore snapshot = store.snapshot();
+        int[] rows = new int[snapshot.size()];
+        Arrays.setAll(rows, i -> i);
+        return analyze(snapshot, rows, parser);
+    }
+}
@@ -0,0 +1,43 @@
+package com.courtney.dietai.analysis;
+
+import java.util.Locale;
+
+// A parsed "Quantity / Duration" cell such as "6 x 1 serving 1 cube (2.3g)": 6 servings of
+// "1 serving 1 cube", each weighing 2.3 g. Weights are NaN when the text gives none and the unit is
+// not a weight (cups, ml, minutes, ...).
+public final class Quantity {
+    private final double multiplier;
+    private final double amount;
+    private final String unit;
+    private final double gramsPerServing;
+
+    Quantity(double multiplier, double amount, String unit, double gramsPerServing) {
+        this.multiplier = multiplier;
+        this.amount = amount;
+        this.unit = unit;
+        this.gramsPerServing = gramsPerServing;
+    }
+
+    // The "6" in "6 x ...", otherwise 1
+    public double getMultiplier() { return multiplier; }
+    // Amount of the unit per serving, e.g. 0.75 for "3/4 cup"; 1 when the text has no number
+    public double getAmount() { return amount; }
+    // Lower-cased text after the amount, e.g. "fl oz", "serving 1 cube" or "" when there is none
+    public String getUnit() { return unit; }
+    public double getGramsPerServing() { return gramsPerServing; }
+
+    public boolean hasGrams() { return !Double.isNaN(gramsPerServing); }
+
+    // Total weight eaten
+    public double getGrams() { return multiplier * gramsPerServing; }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s x %s %s (%s g)", fmt(multiplier), fmt(amount), unit,
+                hasGrams() ? fmt(gramsPerServing) : "?");
+    }
+
+    private static String fmt(double v) {
+        return v == Math.rint(v) ? Long.toString((long) v) : Double.toString(v);
+    }
+}
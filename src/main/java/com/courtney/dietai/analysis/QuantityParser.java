@@ -0,0 +1,116 @@
+package com.courtney.dietai.analysis;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Reads the multiplier, amount, unit and gram weight out of free-text quantities as exported by
+// food trackers: "3 x 6 fl oz (178g)", "3/4 cup", "100ml", "1 peach is 7 oz (147g)", "whole (304g)".
+// A log repeats a few hundred distinct strings over and over, so results are kept in a bounded
+// least-recently-used cache keyed by the raw text. Safe to share between threads.
+public class QuantityParser {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    // Trailing weight in parentheses, e.g. "(2.3g)" or "(1.5 oz)"
+    private static final Pattern WEIGHT = Pattern.compile("\\(\\s*(\\d+(?:[.,]\\d+)?)\\s*([a-z]+)\\s*\\)\\s*$");
+    // Leading "6 x " or "0.5x"
+    private static final Pattern MULTIPLIER = Pattern.compile("^(\\d+(?:[.,]\\d+)?)\\s*x\\s+");
+    // Leading "1 1/2", "3/4", "2.5" or "100" (which may be glued to its unit, as in "100ml")
+    private static final Pattern AMOUNT = Pattern.compile("^(?:(\\d+)\\s+(\\d+)/(\\d+)|(\\d+)/(\\d+)|(\\d+(?:[.,]\\d+)?))\\s*");
+    private static final Map<String, Double> GRAMS_PER_UNIT = Map.ofEntries(
+            Map.entry("g", 1.0), Map.entry("gram", 1.0), Map.entry("grams", 1.0),
+            Map.entry("mg", 0.001), Map.entry("kg", 1000.0),
+            Map.entry("oz", 28.349523125), Map.entry("ounce", 28.349523125), Map.entry("ounces", 28.349523125),
+            Map.entry("lb", 453.59237), Map.entry("lbs", 453.59237), Map.entry("pound", 453.59237), Map.entry("pounds", 453.59237));
+
+    private final Map<String, Quantity> cache;
+    private long hits;
+    private long misses;
+
+    public QuantityParser() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public QuantityParser(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive.");
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Quantity> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Null for null text. Parsed outside the lock, so two threads may both parse a new string once.
+    public Quantity parse(String text) {
+        if (text == null) return null;
+        synchronized (this) {
+            Quantity q = cache.get(text);
+            if (q != null) {
+                hits++;
+                return q;
+            }
+            misses++;
+        }
+        Quantity q = parseUncached(text);
+        synchronized (this) {
+            cache.put(text, q);
+        }
+        return q;
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized int size() { return cache.size(); }
+
+    public static Quantity parseUncached(String text) {
+        String v = text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+
+        double grams = Double.NaN;
+        Matcher w = WEIGHT.matcher(v);
+        if (w.find()) {
+            Double factor = GRAMS_PER_UNIT.get(w.group(2));
+            if (factor != null) grams = number(w.group(1)) * factor;
+            v = v.substring(0, w.start()).trim();
+        }
+
+        double multiplier = 1;
+        Matcher m = MULTIPLIER.matcher(v);
+        if (m.find()) {
+            multiplier = number(m.group(1));
+            v = v.substring(m.end());
+        }
+
+        double amount = 1;
+        Matcher a = AMOUNT.matcher(v);
+        if (a.find()) {
+            if (a.group(1) != null) {
+                amount = number(a.group(1)) + fraction(a.group(2), a.group(3));
+            } else if (a.group(4) != null) {
+                amount = fraction(a.group(4), a.group(5));
+            } else {
+                amount = number(a.group(6));
+            }
+            v = v.substring(a.end());
+        }
+        String unit = v.trim();
+
+        // "7 oz" with no weight in parentheses still weighs something
+        if (Double.isNaN(grams)) {
+            Double factor = GRAMS_PER_UNIT.get(unit);
+            if (factor != null) grams = amount * factor;
+        }
+        return new Quantity(multiplier, amount, unit, grams);
+    }
+
+    private static double number(String s) {
+        return Double.parseDouble(s.replace(',', '.'));
+    }
+
+    private static double fraction(String numerator, String denominator) {
+        double d = number(denominator);
+        return d == 0 ? Double.NaN : number(numerator) / d;
+    }
+}
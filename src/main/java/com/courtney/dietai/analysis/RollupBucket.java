@@ -0,0 +1,45 @@
+package com.courtney.dietai.analysis;
+
+import java.time.LocalDate;
+
+// Totals of one day/week/month/year bucket; only logged days count towards the per-day averages
+public class RollupBucket {
+    private final Granularity granularity;
+    private final LocalDate start;
+    private final int daysLogged;
+    private final long entries;
+    private final double calories;
+    private final double proteinG;
+    private final double carbsG;
+    private final double fatG;
+    private final double fiberG;
+    private final double sodiumMg;
+
+    public RollupBucket(Granularity granularity, LocalDate start, int daysLogged, long entries,
+                        double calories, double proteinG, double carbsG, double fatG, double fiberG, double sodiumMg) {
+        this.granularity = granularity;
+        this.start = start;
+        this.daysLogged = daysLogged;
+        this.entries = entries;
+        this.calories = calories;
+        this.proteinG = proteinG;
+        this.carbsG = carbsG;
+        this.fatG = fatG;
+        this.fiberG = fiberG;
+        this.sodiumMg = sodiumMg;
+    }
+
+    public Granularity getGranularity() { return granularity; }
+    public LocalDate getStart() { return start; }
+    public String getLabel() { return granularity.label(start); }
+    public int getDaysLogged() { return daysLogged; }
+    public long getEntries() { return entries; }
+    public double getCalories() { return calories; }
+    public double getProteinG() { return proteinG; }
+    public double getCarbsG() { return carbsG; }
+    public double getFatG() { return fatG; }
+    public double getFiberG() { return fiberG; }
+    public double getSodiumMg() { return sodiumMg; }
+
+    public double getAvgCaloriesPerDay() { return daysLogged > 0 ? calories / daysLogged : 0; }
+}
@@ -0,0 +1,166 @@
+package com.courtney.dietai.analysis;
+
+import com.courtney.dietai.model.DietEntry;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collector;
+
+// Mergeable running state behind a DietSummary: totals, entry count and per-day calorie buckets.
+// Amounts are kept as fixed-point micro-units in longs, which makes add/remove/combine exact and
+// order-independent, so a parallel reduction yields exactly the sequential result.
+public class SummaryAccumulator {
+    private static final double SCALE = 1_000_000.0;
+
+    private long entries;
+    private long calories, protein, carbs, fat, fiber, sodium;
+    private final Map<Integer, DayBucket> days = new HashMap<>();
+
+    // Rows of the same day usually arrive together
+    private int lastDay;
+    private DayBucket lastBucket;
+
+    // Days in first-seen order; while that is ascending (date-ordered input) toSummary skips its sort
+    private int[] dayOrder = new int[16];
+    private boolean ordered = true;
+
+    public static Collector<DietEntry, SummaryAccumulator, DietSummary> collector() {
+        return Collector.of(SummaryAccumulator::new, SummaryAccumulator::add, SummaryAccumulator::combine,
+                SummaryAccumulator::toSummary, Collector.Characteristics.UNORDERED);
+    }
+
+    public void add(DietEntry e) {
+        add(Math.toIntExact(e.getDate().toEpochDay()), e.getCalories(), e.getProtein(), e.getCarbs(),
+                e.getFat(), e.getFiber(), e.getSodiumMg());
+    }
+
+    public void add(int epochDay, double cals, double pro, double carb, double f, double fib, double sod) {
+        long c = toFixed(cals);
+        entries++;
+        calories += c;
+        protein += toFixed(pro);
+        carbs += toFixed(carb);
+        fat += toFixed(f);
+        fiber += toFixed(fib);
+        sodium += toFixed(sod);
+        DayBucket bucket = bucket(epochDay, true);
+        bucket.entries++;
+        bucket.calories += c;
+    }
+
+    public void remove(DietEntry e) {
+        remove(Math.toIntExact(e.getDate().toEpochDay()), e.getCalories(), e.getProtein(), e.getCarbs(),
+                e.getFat(), e.getFiber(), e.getSodiumMg());
+    }
+
+    public void remove(int epochDay, double cals, double pro, double carb, double f, double fib, double sod) {
+        DayBucket bucket = bucket(epochDay, false);
+        if (bucket == null) throw new IllegalStateException("No entries on " + LocalDate.ofEpochDay(epochDay) + " to remove.");
+        long c = toFixed(cals);
+        entries--;
+        calories -= c;
+        protein -= toFixed(pro);
+        carbs -= toFixed(carb);
+        fat -= toFixed(f);
+        fiber -= toFixed(fib);
+        sodium -= toFixed(sod);
+        bucket.calories -= c;
+        if (--bucket.entries == 0) {
+            days.remove(epochDay);
+            if (lastBucket == bucket) lastBucket = null;
+            ordered = false;
+        }
+    }
+
+    public SummaryAccumulator combine(SummaryAccumulator other) {
+        entries += other.entries;
+        calories += other.calories;
+        protein += other.protein;
+        carbs += other.carbs;
+        fat += other.fat;
+        fiber += other.fiber;
+        sodium += other.sodium;
+        // Still ordered only when all of other's days come after ours
+        boolean follows = ordered && other.ordered
+                && (days.isEmpty() || other.days.isEmpty() || other.dayOrder[0] > dayOrder[days.size() - 1]);
+        if (follows) {
+            for (int i = 0; i < other.days.size(); i++) bucket(other.dayOrder[i], true);
+        }
+        ordered = follows;
+        for (Map.Entry<Integer, DayBucket> e : other.days.entrySet()) {
+            DayBucket mine = bucket(e.getKey(), true);
+            mine.entries += e.getValue().entries;
+            mine.calories += e.getValue().calories;
+        }
+        return this;
+    }
+
+    public void clear() {
+        entries = calories = protein = carbs = fat = fiber = sodium = 0;
+        days.clear();
+        lastBucket = null;
+        ordered = true;
+    }
+
+    public long getEntriesCount() { return entries; }
+
+    public int getDaysCount() { return days.size(); }
+
+    public boolean isEmpty() { return entries == 0; }
+
+    public DietSummary toSummary() {
+        if (entries == 0) throw new IllegalArgumentException("No entries to summarize.");
+        int[] keys;
+        if (ordered) {
+            keys = Arrays.copyOf(dayOrder, days.size());
+        } else {
+            keys = new int[days.size()];
+            int i = 0;
+            for (Integer day : days.keySet()) keys[i++] = day;
+            Arrays.sort(keys);
+        }
+
+        Map<LocalDate, Integer> dailyCalories = new LinkedHashMap<>();
+        for (int day : keys) dailyCalories.put(LocalDate.ofEpochDay(day), (int) Math.round(fromFixed(days.get(day).calories)));
+
+        return NutritionAnalyzer.build(LocalDate.ofEpochDay(keys[0]), LocalDate.ofEpochDay(keys[keys.length - 1]),
+                Math.toIntExact(entries), keys.length, dailyCalories,
+                fromFixed(calories), fromFixed(protein), fromFixed(carbs),
+                fromFixed(fat), fromFixed(fiber), fromFixed(sodium));
+    }
+
+    // Amounts beyond DietEntry.MAX_AMOUNT are clamped to it and NaN counts as 0, so no mix of
+    // rows can wrap the long sums; importers already reject both
+    static long toFixed(double v) {
+        if (v >= -DietEntry.MAX_AMOUNT && v <= DietEntry.MAX_AMOUNT) return Math.round(v * SCALE);
+        return Double.isNaN(v) ? 0 : Math.round(Math.copySign(DietEntry.MAX_AMOUNT, v) * SCALE);
+    }
+
+    static double fromFixed(long v) {
+        return v / SCALE;
+    }
+
+    private DayBucket bucket(int epochDay, boolean create) {
+        if (lastBucket != null && lastDay == epochDay) return lastBucket;
+        DayBucket bucket = days.get(epochDay);
+        if (bucket == null) {
+            if (!create) return null;
+            bucket = new DayBucket();
+            int n = days.size();
+            if (ordered && (n == 0 || epochDay > dayOrder[n - 1])) {
+                if (n == dayOrder.length) dayOrder = Arrays.copyOf(dayOrder, n * 2);
+                dayOrder[n] = epochDay;
+            } else {
+                ordered = false;
+            }
+            days.put(epochDay, bucket);
+        }
+        lastDay = epochDay;
+        lastBucket = bucket;
+        return bucket;
+    }
+
+    private static final class DayBucket {
+        long entries;
+        long calories;
+    }
+}
@@ -0,0 +1,166 @@
+package com.courtney.dietai.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Application-wide runner for background work. Runs on virtual threads when the JDK has them
+// (looked up reflectively, the build targets 17) and on a bounded daemon pool otherwise. Each
+// category runs at most its limit of tasks at once and queues the rest; submitting under a key
+// cancels the previous task with that key, so superseded work stops instead of piling up.
+public class TaskScheduler {
+
+    public enum Category {
+        IMPORT(1),
+        // Files of a batch import, parsed side by side under the IMPORT task that waits for them
+        PARSE(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)),
+        // Read-ahead of compressed input, one per parse plus one for a single-file import, and the
+        // watch loop of a watched file
+        IO(Math.max(1, Runtime.getRuntime().availableProcessors() - 1) + 2),
+        ANALYSIS(2),
+        AI(1);
+
+        private final int limit;
+
+        Category(int limit) {
+            this.limit = limit;
+        }
+
+        public int getLimit() { return limit; }
+    }
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Map<Category, Lane> lanes = new EnumMap<>(Category.class);
+    private final Map<String, Future<?>> latest = new HashMap<>();
+    private boolean shutdown;
+
+    public TaskScheduler() {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtual != null ? virtual : newBoundedPool();
+        for (Category c : Category.values()) lanes.put(c, new Lane(c.getLimit()));
+    }
+
+    public boolean usesVirtualThreads() { return virtualThreads; }
+
+    // Queues the task (a FutureTask such as a JavaFX Task) in its category. A non-null key cancels
+    // the task last submitted with the same key if it has not finished.
+    public <T extends RunnableFuture<?>> T submit(Category category, String key, T task) {
+        synchronized (this) {
+            if (shutdown) throw new IllegalStateException("Scheduler is shut down.");
+            if (key != null) {
+                Future<?> previous = latest.put(key, task);
+                if (previous != null && previous != task) previous.cancel(true);
+            }
+        }
+        lanes.get(category).submit(task);
+        return task;
+    }
+
+    // Cancels the task last submitted under the key, if any
+    public synchronized void cancel(String key) {
+        Future<?> previous = latest.remove(key);
+        if (previous != null) previous.cancel(true);
+    }
+
+    // Cancels queued and running work; called when the application exits
+    public void shutdown() {
+        synchronized (this) {
+            if (shutdown) return;
+            shutdown = true;
+            for (Future<?> f : latest.values()) f.cancel(true);
+            latest.clear();
+        }
+        for (Lane lane : lanes.values()) lane.cancelPending();
+        executor.shutdownNow();
+    }
+
+    private final class Lane {
+        private final int limit;
+        private final Queue<RunnableFuture<?>> pending = new ArrayDeque<>();
+        private int running;
+
+        Lane(int limit) {
+            this.limit = limit;
+        }
+
+        void submit(RunnableFuture<?> task) {
+            synchronized (this) {
+                if (running >= limit) {
+                    pending.add(task);
+                    return;
+                }
+                running++;
+            }
+            start(task);
+        }
+
+        synchronized void cancelPending() {
+            for (RunnableFuture<?> task : pending) task.cancel(false);
+            pending.clear();
+        }
+
+        private void start(RunnableFuture<?> task) {
+            try {
+                executor.execute(() -> run(task));
+            } catch (RuntimeException e) {
+                // Rejected after shutdown
+                task.cancel(false);
+                synchronized (this) {
+                    running--;
+                }
+            }
+        }
+
+        private void run(RunnableFuture<?> task) {
+            try {
+                task.run();
+            } finally {
+                RunnableFuture<?> next;
+                synchronized (this) {
+                    // Cancelled tasks still queued are dropped without taking a slot
+                    do {
+                        next = pending.poll();
+                    } while (next != null && next.isCancelled());
+                    if (next == null) running--;
+                }
+                if (next != null) start(next);
+            }
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newBoundedPool() {
+        int threads = 0;
+        for (Category c : Category.values()) threads += c.getLimit();
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "worker-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,381 @@
+package com.courtney.dietai.io;
+
+import com.courtney.dietai.concurrent.TaskScheduler;
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.SymbolTable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Imports many exports at once (e.g. one file per month): the files are parsed concurrently in the
+// scheduler's PARSE lane, then merged into one date-ordered list and handed to the listener in batches.
+// Exports often overlap, so a row is dropped when an earlier file (in name order) already had it.
+// Rows are compared by a 64-bit hash of their normalized content; repeats within one file are
+// kept, since the same snack logged twice on a day is two entries.
+// A zip archive counts as a folder: each .csv entry in it is imported like a file of its own,
+// streamed and inflated without extracting. Gzip files are decompressed on the fly.
+public class BatchImporter {
+
+    // Outcome of one file or zip entry; the error is set when it could not be imported at all
+    public static final class FileStats {
+        private final String name;
+        private final long bytes;
+        private final long rowsParsed;
+        private final long rowsSkipped;
+        private final long millis;
+        private final String error;
+        private final ImportDiagnostics diagnostics;
+        private long duplicates;
+        private int completed;
+        private int total;
+
+        FileStats(String name, long bytes, long rowsParsed, long rowsSkipped, long millis, String error,
+                  ImportDiagnostics diagnostics) {
+            this.name = name;
+            this.bytes = bytes;
+            this.rowsParsed = rowsParsed;
+            this.rowsSkipped = rowsSkipped;
+            this.millis = millis;
+            this.error = error;
+            this.diagnostics = diagnostics;
+        }
+
+        // File name, or "archive.zip!/entry.csv" for a zip entry
+        public String getName() { return name; }
+        // Bytes as stored on disk; a zip entry counts its inflated size
+        public long getBytes() { return bytes; }
+        public long getRowsParsed() { return rowsParsed; }
+        public long getRowsSkipped() { return rowsSkipped; }
+        public long getDuplicates() { return duplicates; }
+        public long getMillis() { return millis; }
+        public String getError() { return error; }
+        public boolean isFailed() { return error != null; }
+        // Null when the file failed
+        public ImportDiagnostics getDiagnostics() { return diagnostics; }
+        // Files finished so far, this one included, out of all files and zip entries in the batch
+        public int getCompleted() { return completed; }
+        public int getTotal() { return total; }
+    }
+
+    public static final class Result {
+        private final List<FileStats> files;
+        private final long rowsImported;
+        private final long millis;
+        private final ImportDiagnostics diagnostics;
+
+        Result(List<FileStats> files, long rowsImported, long millis, ImportDiagnostics diagnostics) {
+            this.files = files;
+            this.rowsImported = rowsImported;
+            this.millis = millis;
+            this.diagnostics = diagnostics;
+        }
+
+        public List<FileStats> getFiles() { return files; }
+        // All files' diagnostics, with samples located by file name
+        public ImportDiagnostics getDiagnostics() { return diagnostics; }
+        public long getRowsImported() { return rowsImported; }
+        public long getMillis() { return millis; }
+
+        public long getBytes() { return files.stream().mapToLong(FileStats::getBytes).sum(); }
+        public long getRowsSkipped() { return files.stream().mapToLong(FileStats::getRowsSkipped).sum(); }
+        public long getDuplicates() { return files.stream().mapToLong(FileStats::getDuplicates).sum(); }
+        public long getFailedFiles() { return files.stream().filter(FileStats::isFailed).count(); }
+
+        public double getMegabytesPerSecond() {
+            return millis > 0 ? getBytes() / 1e6 / (millis / 1e3) : 0;
+        }
+
+        public double getRowsPerSecond() {
+            return millis > 0 ? rowsImported / (millis / 1e3) : 0;
+        }
+    }
+
+    // Regular files under dir matching the glob (relative to dir, e.g. "*.csv" or "**/*.csv"), by path
+    public static List<File> listFiles(Path dir, String glob) throws IOException {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        int depth = glob.contains("**") || glob.contains("/") ? Integer.MAX_VALUE : 1;
+        try (Stream<Path> paths = Files.walk(dir, depth)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(dir.relativize(p)))
+                    .sorted()
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // Parses the files in the scheduler's PARSE lane; onFile is called from those tasks as each file
+    // finishes, and the listener on the calling thread once everything is merged. Interrupting the
+    // calling thread cancels the parses still queued or running.
+    public static Result importFiles(List<File> files, SymbolTable symbols, TaskScheduler scheduler, int batchSize,
+                                     Consumer<FileStats> onFile, ImportListener listener) throws InterruptedException {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive.");
+        long start = System.nanoTime();
+        List<ZipFile> archives = new ArrayList<>();
+        List<Source> sources = new ArrayList<>();
+        for (File file : files) expand(file, sources, archives);
+
+        List<Future<List<DietEntry>>> futures = new ArrayList<>(sources.size());
+        FileStats[] stats = new FileStats[sources.size()];
+        AtomicInteger completed = new AtomicInteger();
+        try {
+            for (int i = 0; i < sources.size(); i++) {
+                int index = i;
+                futures.add(scheduler.submit(TaskScheduler.Category.PARSE, null, new FutureTask<List<DietEntry>>(() -> {
+                    Source source = sources.get(index);
+                    long t0 = System.nanoTime();
+                    List<DietEntry> rows = new ArrayList<>();
+                    FileStats s;
+                    try {
+                        ImportProgress p = source.parse(symbols, scheduler, batchSize, (batch, progress) -> rows.addAll(batch));
+                        s = new FileStats(source.name, source.bytes, p.getRowsParsed(), p.getRowsSkipped(), elapsedMillis(t0), null,
+                                p.getDiagnostics());
+                    } catch (Exception ex) {
+                        rows.clear();
+                        s = new FileStats(source.name, source.bytes, 0, 0, elapsedMillis(t0), message(ex), null);
+                    }
+                    s.completed = completed.incrementAndGet();
+                    s.total = sources.size();
+                    stats[index] = s;
+                    onFile.accept(s);
+                    return rows;
+                })));
+            }
+
+            // Collected in name order, so the earlier export wins a duplicate
+            List<DietEntry> merged = new ArrayList<>();
+            RowCounts seen = new RowCounts();
+            for (int i = 0; i < futures.size(); i++) {
+                List<DietEntry> rows = futures.get(i).get();
+                RowCounts local = new RowCounts();
+                long[] hashes = new long[rows.size()];
+                for (int r = 0; r < rows.size(); r++) {
+                    long h = hash(rows.get(r));
+                    hashes[r] = h;
+                    // The k-th copy in this file is new only if no earlier file had k copies
+                    if (local.increment(h) > seen.get(h)) merged.add(rows.get(r));
+                    else stats[i].duplicates++;
+                }
+                for (long h : hashes) seen.raiseTo(h, local.get(h));
+            }
+            // Stable, so rows of a day keep their file and line order
+            merged.sort(Comparator.comparing(DietEntry::getDate));
+
+            // Every file has been read by now, so the batches report all bytes done
+            long bytes = 0, skipped = 0;
+            for (FileStats s : stats) {
+                bytes += s.bytes;
+                skipped += s.rowsSkipped;
+            }
+            for (int from = 0; from < merged.size(); from += batchSize) {
+                int to = Math.min(merged.size(), from + batchSize);
+                listener.onBatch(new ArrayList<>(merged.subList(from, to)), new ImportProgress(bytes, bytes, to, skipped));
+            }
+            ImportDiagnostics diagnostics = new ImportDiagnostics();
+            for (FileStats s : stats) {
+                if (s.diagnostics != null) diagnostics.merge(s.diagnostics, s.name);
+            }
+            return new Result(Arrays.asList(stats), merged.size(), elapsedMillis(start), diagnostics);
+        } catch (ExecutionException e) {
+            // Per-file failures are caught above; anything else (e.g. a listener error) is fatal
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            for (Future<List<DietEntry>> f : futures) f.cancel(true);
+            for (ZipFile zip : archives) {
+                try {
+                    zip.close();
+                } catch (IOException ignore) {
+                    // Read-only; nothing is lost
+                }
+            }
+        }
+    }
+
+    // Adds the file, or each .csv entry of a zip in name order; an archive that cannot be opened is
+    // added as a source that fails with the reason
+    private static void expand(File file, List<Source> sources, List<ZipFile> archives) {
+        ZipFile zip;
+        try {
+            if (!Compression.isZip(file)) {
+                sources.add(new Source(file.getName(), file.length(), file, null, null, null));
+                return;
+            }
+            zip = new ZipFile(file);
+        } catch (IOException ex) {
+            sources.add(new Source(file.getName(), file.length(), file, null, null, message(ex)));
+            return;
+        }
+        archives.add(zip);
+        List<? extends ZipEntry> entries = zip.stream()
+                .filter(e -> !e.isDirectory() && e.getName().toLowerCase(Locale.ROOT).endsWith(".csv"))
+                .sorted(Comparator.comparing(ZipEntry::getName))
+                .collect(Collectors.toList());
+        if (entries.isEmpty()) {
+            sources.add(new Source(file.getName(), file.length(), file, null, null, "No CSV files in the archive."));
+        }
+        for (ZipEntry entry : entries) {
+            sources.add(new Source(file.getName() + "!/" + entry.getName(), Math.max(0, entry.getSize()), file, zip, entry, null));
+        }
+    }
+
+    private static String message(Exception ex) {
+        return ex.getMessage() != null ? ex.getMessage() : ex.toString();
+    }
+
+    // 64-bit hash of the row with text trimmed, lower-cased and whitespace-collapsed, and numbers
+    // rounded to hundredths, so re-exports that differ only in formatting still match
+    static long hash(DietEntry e) {
+        long h = mix(0x9E3779B97F4A7C15L, e.getDate().toEpochDay());
+        h = mix(h, text(e.getMeal()));
+        h = mix(h, text(e.getItem()));
+        h = mix(h, text(e.getQuantityOrDuration()));
+        h = mix(h, text(e.getNotes()));
+        h = mix(h, Math.round(e.getCalories() * 100));
+        h = mix(h, Math.round(e.getCarbs() * 100));
+        h = mix(h, Math.round(e.getProtein() * 100));
+        h = mix(h, Math.round(e.getFat() * 100));
+        h = mix(h, Math.round(e.getSodiumMg() * 100));
+        h = mix(h, Math.round(e.getFiber() * 100));
+        return h;
+    }
+
+    private static long text(String s) {
+        long h = 0xcbf29ce484222325L;
+        if (s == null) return h;
+        boolean space = false;
+        String v = s.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                h = (h ^ ' ') * 0x100000001b3L;
+                space = false;
+            }
+            h = (h ^ c) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // Combines with a SplitMix64 finalizer, so nearby values spread across all bits
+    private static long mix(long h, long v) {
+        long z = h * 31 + v + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    // A plain or gzip file, or one entry of a zip archive
+    private static final class Source {
+        final String name;
+        final long bytes;
+        final File file;
+        final ZipFile zip;
+        final ZipEntry entry;
+        final String error;
+
+        Source(String name, long bytes, File file, ZipFile zip, ZipEntry entry, String error) {
+            this.name = name;
+            this.bytes = bytes;
+            this.file = file;
+            this.zip = zip;
+            this.entry = entry;
+            this.error = error;
+        }
+
+        ImportProgress parse(SymbolTable symbols, TaskScheduler scheduler, int batchSize, ImportListener listener) throws Exception {
+            if (error != null) throw new IOException(error);
+            if (zip == null) return CsvImporter.importFile(file, symbols, scheduler, batchSize, listener);
+            // ZipFile allows concurrent entry streams; each is inflated ahead in the IO lane
+            try (CsvImporter.CountingInputStream in = new CsvImporter.CountingInputStream(zip.getInputStream(entry));
+                 InputStream csv = Compression.pipelined(in, scheduler)) {
+                return CsvImporter.importStream(csv, in, bytes, symbols, batchSize, listener);
+            }
+        }
+    }
+
+    // Open-addressing map from row hash to a count, without boxing
+    private static final class RowCounts {
+        private long[] keys = new long[1024];
+        private int[] counts = new int[1024];
+        private boolean[] used = new boolean[1024];
+        private int size;
+
+        int get(long key) {
+            int i = find(key);
+            return used[i] ? counts[i] : 0;
+        }
+
+        int increment(long key) {
+            int i = slot(key);
+            return ++counts[i];
+        }
+
+        void raiseTo(long key, int count) {
+            int i = slot(key);
+            if (counts[i] < count) counts[i] = count;
+        }
+
+        private int slot(long key) {
+            int i = find(key);
+            if (!used[i]) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    i = find(key);
+                }
+                used[i] = true;
+                keys[i] = key;
+                size++;
+            }
+            return i;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int i = (int) (key ^ (key >>> 32)) & mask;
+            while (used[i] && keys[i] != key) i = (i + 1) & mask;
+            return i;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            counts = new int[keys.length];
+            used = new boolean[keys.length];
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (!oldUsed[j]) continue;
+                int i = find(oldKeys[j]);
+                used[i] = true;
+                keys[i] = oldKeys[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+}
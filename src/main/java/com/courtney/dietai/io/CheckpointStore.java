@@ -0,0 +1,85 @@
+package com.courtney.dietai.io;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+// Import checkpoints persisted via Preferences, one child node per source path. Each node records
+// when it was last loaded or saved; saving evicts the least recently used nodes beyond the count
+// limit and any unused for longer than the age limit.
+public class CheckpointStore {
+    static final int DEFAULT_MAX_ENTRIES = 32;
+    static final Duration DEFAULT_MAX_AGE = Duration.ofDays(90);
+
+    private final Preferences prefs;
+    private final int maxEntries;
+    private final Duration maxAge;
+
+    public CheckpointStore() {
+        this(Preferences.userRoot().node("com.courtney.dietai.imports"), DEFAULT_MAX_ENTRIES, DEFAULT_MAX_AGE);
+    }
+
+    CheckpointStore(Preferences prefs, int maxEntries, Duration maxAge) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("At least one checkpoint must be kept.");
+        this.prefs = prefs;
+        this.maxEntries = maxEntries;
+        this.maxAge = maxAge;
+    }
+
+    // Null when the file has no checkpoint
+    public ImportCheckpoint load(File file) {
+        String path = file.getAbsolutePath();
+        Preferences node = prefs.node(ImportCheckpoint.pathKey(path));
+        if (!path.equals(node.get("path", null))) return null;
+        long offset = node.getLong("offset", -1);
+        if (offset <= 0) return null;
+        node.putLong("used", System.currentTimeMillis());
+        return new ImportCheckpoint(path, offset, node.getLong("headerFingerprint", 0), node.getInt("windowChecksum", 0));
+    }
+
+    public void save(ImportCheckpoint checkpoint) {
+        String key = ImportCheckpoint.pathKey(checkpoint.getPath());
+        Preferences node = prefs.node(key);
+        node.put("path", checkpoint.getPath());
+        node.putLong("offset", checkpoint.getOffset());
+        node.putLong("headerFingerprint", checkpoint.getHeaderFingerprint());
+        node.putInt("windowChecksum", checkpoint.getWindowChecksum());
+        node.putLong("used", System.currentTimeMillis());
+        evict(key);
+    }
+
+    public void remove(File file) {
+        try {
+            prefs.node(ImportCheckpoint.pathKey(file.getAbsolutePath())).removeNode();
+        } catch (BackingStoreException | IllegalStateException e) {
+            // Nothing stored, or already removed
+        }
+    }
+
+    // Keeps the node just saved; nodes without a usage time (older versions) count as unused
+    private void evict(String keep) {
+        try {
+            List<String> keys = new ArrayList<>(List.of(prefs.childrenNames()));
+            Map<String, Long> used = new HashMap<>();
+            for (String key : keys) used.put(key, prefs.node(key).getLong("used", 0));
+            keys.sort(Comparator.comparing((String key) -> used.get(key)).reversed());
+            long cutoff = System.currentTimeMillis() - maxAge.toMillis();
+            int kept = 0;
+            for (String key : keys) {
+                if (key.equals(keep) || (kept < maxEntries && used.get(key) >= cutoff)) {
+                    kept++;
+                } else {
+                    prefs.node(key).removeNode();
+                }
+            }
+        } catch (BackingStoreException | IllegalStateException e) {
+            // Tried again on the next save
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.courtney.dietai.io;
+
+import java.util.*;
+
+// Header-to-field binding resolved once per file: each field maps to the column indexes whose
+// header matches one of its synonyms (in header order), plus any unit conversion implied by the header.
+final class ColumnPlan {
+
+    // Supported headers (case-insensitive) plus common synonyms
+    private static final Set<String> H_DATE = set("date", "log date", "entry date", "day", "timestamp", "datetime");
+    private static final Set<String> H_ITEM = set("item", "food", "description", "name", "food name");
+    private static final Set<String> H_QTY = set("quantity", "quantity / duration", "qty", "serving", "servings", "amount", "duration");
+    private static final Set<String> H_CAL = set("calories", "kcal", "energy (kcal)", "calories (kcal)");
+    private static final Set<String> H_CAR = set("carbohydrates", "carbs", "carbohydrate (g)", "carbs (g)");
+    private static final Set<String> H_PRO = set("protein", "protein (g)");
+    private static final Set<String> H_FAT = set("fat", "total fat", "fat (g)");
+    private static final Set<String> H_SOD = set("sodium", "sodium (mg)", "sodium (g)", "salt", "salt (mg)", "salt (g)");
+    private static final Set<String> H_FIB = set("fiber", "dietary fiber", "fiber (g)");
+    private static final Set<String> H_MEAL = set("meal", "meal type", "meal_name", "category");
+    private static final Set<String> H_NOTES = set("notes", "note", "comment", "comments");
+
+    final int[] date;
+    final int[] item;
+    final int[] qty;
+    final int[] calories;
+    final int[] carbs;
+    final int[] protein;
+    final int[] fat;
+    final int[] sodium;
+    final int[] fiber;
+    final int[] meal;
+    final int[] notes;
+    final double sodiumToMg;
+
+    private ColumnPlan(Map<String, Integer> headerMap) {
+        List<String> names = new ArrayList<>(headerMap.size());
+        List<Integer> indexes = new ArrayList<>(headerMap.size());
+        for (Map.Entry<String, Integer> e : headerMap.entrySet()) {
+            names.add(normalize(e.getKey()));
+            indexes.add(e.getValue());
+        }
+        date = bind(names, indexes, H_DATE);
+        item = bind(names, indexes, H_ITEM);
+        qty = bind(names, indexes, H_QTY);
+        calories = bind(names, indexes, H_CAL);
+        carbs = bind(names, indexes, H_CAR);
+        protein = bind(names, indexes, H_PRO);
+        fat = bind(names, indexes, H_FAT);
+        sodium = bind(names, indexes, H_SOD);
+        fiber = bind(names, indexes, H_FIB);
+        meal = bind(names, indexes, H_MEAL);
+        notes = bind(names, indexes, H_NOTES);
+
+        // The first sodium header decides the unit; values without a "(g)" hint are treated as mg
+        String sodiumKey = null;
+        for (String h : headerMap.keySet()) {
+            if (H_SOD.contains(normalize(h))) { sodiumKey = h.toLowerCase(Locale.ROOT); break; }
+        }
+        sodiumToMg = sodiumKey != null && sodiumKey.contains("(g)") ? 1000.0 : 1.0;
+    }
+
+    static ColumnPlan compile(Map<String, Integer> headerMap) {
+        return new ColumnPlan(headerMap);
+    }
+
+    private static int[] bind(List<String> names, List<Integer> indexes, Set<String> keys) {
+        int[] cols = new int[names.size()];
+        int n = 0;
+        for (int i = 0; i < names.size(); i++) {
+            Integer idx = indexes.get(i);
+            if (idx != null && keys.contains(names.get(i))) cols[n++] = idx;
+        }
+        return Arrays.copyOf(cols, n);
+    }
+
+    private static String normalize(String s) {
+        String v = s == null ? "" : s.toLowerCase(Locale.ROOT).trim();
+        v = v.replaceAll("\\s+", " ");
+        return v;
+    }
+
+    private static Set<String> set(String... items) {
+        return new HashSet<>(Arrays.asList(items));
+    }
+}
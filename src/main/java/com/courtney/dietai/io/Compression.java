@@ -0,0 +1,51 @@
+package com.courtney.dietai.io;
+
+import com.courtney.dietai.concurrent.TaskScheduler;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+// Recognizes compressed exports by their leading bytes (so a renamed file still works) and
+// decompresses them while streaming. Given a scheduler, inflating runs in its IO lane ahead of the
+// parser, through a few large buffers, so decompression and parsing overlap.
+public final class Compression {
+    static final int CHUNK_BYTES = 1 << 20;
+    static final int QUEUED_CHUNKS = 4;
+    private static final int INFLATER_BUFFER_BYTES = 256 * 1024;
+
+    private Compression() {}
+
+    public static boolean isGzip(File file) throws IOException {
+        byte[] magic = leadingBytes(file, 2);
+        return magic.length == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b;
+    }
+
+    public static boolean isZip(File file) throws IOException {
+        byte[] magic = leadingBytes(file, 4);
+        return magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+    }
+
+    // True when rows can only be read by streaming through the whole file (no offsets, no mapping)
+    public static boolean isCompressed(File file) throws IOException {
+        return isGzip(file) || isZip(file);
+    }
+
+    // Gzip-decoded view of the stream, inflated ahead in the scheduler's IO lane, or by the reader
+    // itself without a scheduler
+    static InputStream gunzip(InputStream compressed, TaskScheduler scheduler) throws IOException {
+        return pipelined(new GZIPInputStream(compressed, INFLATER_BUFFER_BYTES), scheduler);
+    }
+
+    // Reads the stream ahead in the scheduler's IO lane; without a scheduler, the stream itself
+    static InputStream pipelined(InputStream in, TaskScheduler scheduler) {
+        return scheduler == null ? in : new PipelinedInputStream(in, CHUNK_BYTES, QUEUED_CHUNKS, scheduler);
+    }
+
+    private static byte[] leadingBytes(File file, int n) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return in.readNBytes(n);
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.courtney.dietai.io;
 
+import com.courtney.dietai.concurrent.TaskScheduler;
 import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.SymbolTable;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
 import java.text.ParseException;
@@ -16,19 +22,6 @@ import java.util.*;
 
 public class CsvImporter {
 
-    // Supported headers (case-insensitive) plus common synonyms
-    private static final Set<String> H_DATE = set("date", "log date", "entry date", "day", "timestamp", "datetime");
-    private static final Set<String> H_ITEM = set("item", "food", "description", "name", "food name");
-    private static final Set<String> H_QTY = set("quantity", "quantity / duration", "qty", "serving", "servings", "amount", "duration");
-    private static final Set<String> H_CAL = set("calories", "kcal", "energy (kcal)", "calories (kcal)");
-    private static final Set<String> H_CAR = set("carbohydrates", "carbs", "carbohydrate (g)", "carbs (g)");
-    private static final Set<String> H_PRO = set("protein", "protein (g)");
-    private static final Set<String> H_FAT = set("fat", "total fat", "fat (g)");
-    private static final Set<String> H_SOD = set("sodium", "sodium (mg)", "sodium (g)", "salt", "salt (mg)", "salt (g)");
-    private static final Set<String> H_FIB = set("fiber", "dietary fiber", "fiber (g)");
-    private static final Set<String> H_MEAL = set("meal", "meal type", "meal_name", "category");
-    private static final Set<String> H_NOTES = set("notes", "note", "comment", "comments");
-
     private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
             DateTimeFormatter.ofPattern("yyyy-MM-dd"),
             DateTimeFormatter.ofPattern("M/d/yyyy"),
@@ -38,79 +31,149 @@ public class CsvImporter {
             DateTimeFormatter.ofPattern("yyyy/MM/dd")
     );
 
+    public static final int DEFAULT_BATCH_SIZE = 2000;
+
     public static List<DietEntry> importFile(File file) throws Exception {
         List<DietEntry> result = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8));
-             CSVParser parser = CSVFormat.DEFAULT
-                     .builder()
-                     .setHeader()
-                     .setSkipHeaderRecord(true)
-                     .setIgnoreSurroundingSpaces(true)
-                     .setIgnoreEmptyLines(true)
-                     .build()
-                     .parse(reader)) {
-
-            Map<String, String> headerMap = normalizeHeaderMap(parser.getHeaderMap().keySet());
-            for (CSVRecord record : parser) {
-                try {
-                    DietEntry e = parseRecord(record, headerMap);
-                    if (e != null) result.add(e);
-                } catch (Exception ex) {
-                    System.err.println("Skipping row " + record.getRecordNumber() + ": " + ex.getMessage());
+        importFile(file, DEFAULT_BATCH_SIZE, (batch, progress) -> result.addAll(batch));
+        return result;
+    }
+
+    public static ImportProgress importFile(File file, int batchSize, ImportListener listener) throws Exception {
+        return importFile(file, new SymbolTable(), batchSize, listener);
+    }
+
+    public static ImportProgress importFile(File file, SymbolTable symbols, int batchSize, ImportListener listener) throws Exception {
+        return importFile(file, symbols, null, batchSize, listener);
+    }
+
+    // Streams parsed rows to the listener in batches instead of building the whole list up front.
+    // Text fields are interned through the symbol table so repeated values share one String.
+    // Gzip files are decompressed on the fly, ahead of parsing when a scheduler is given; progress
+    // then counts compressed bytes.
+    public static ImportProgress importFile(File file, SymbolTable symbols, TaskScheduler scheduler, int batchSize,
+                                            ImportListener listener) throws Exception {
+        boolean gzip = Compression.isGzip(file);
+        try (CountingInputStream in = new CountingInputStream(new FileInputStream(file));
+             InputStream csv = gzip ? Compression.gunzip(in, scheduler) : in) {
+            return importStream(csv, in, file.length(), symbols, batchSize, listener);
+        }
+    }
+
+    // Parses CSV text from csv, which is closed at the end; progress is read from counted, the
+    // (possibly still compressed) stream underneath csv, whose total size is totalBytes
+    static ImportProgress importStream(InputStream csv, CountingInputStream counted, long totalBytes, SymbolTable symbols,
+                                       int batchSize, ImportListener listener) throws Exception {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive.");
+        ImportDiagnostics diagnostics = new ImportDiagnostics();
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new TimedInputStream(csv, diagnostics), StandardCharsets.UTF_8));
+        ImportProgress done;
+        try (CSVParser parser = csvFormat().parse(reader)) {
+            done = importRecords(parser, ColumnPlan.compile(parser.getHeaderMap()), symbols, counted, totalBytes,
+                    batchSize, diagnostics, listener, start);
+        }
+        if (done.getRowsParsed() == 0) {
+            throw new IllegalArgumentException("No valid entries found. Check the CSV headers and values."
+                    + (diagnostics.hasProblems() ? " " + diagnostics.describeProblems() + "." : ""));
+        }
+        return done;
+    }
+
+    // The record loop of whole-file and tail imports: converts each record, hands full batches to
+    // the listener with progress read from counted, and records problems in diagnostics along with
+    // the phase times since startNanos. The last batch reports all totalBytes as read.
+    static ImportProgress importRecords(CSVParser parser, ColumnPlan plan, SymbolTable symbols, CountingInputStream counted,
+                                        long totalBytes, int batchSize, ImportDiagnostics diagnostics,
+                                        ImportListener listener, long startNanos) {
+        long rowsParsed = 0, rowsSkipped = 0;
+        long convertNanos = 0, listenerNanos = 0;
+        DateParser dates = new DateParser();
+        List<DietEntry> batch = new ArrayList<>(batchSize);
+        for (CSVRecord record : parser) {
+            long t0 = System.nanoTime();
+            try {
+                DietEntry e = parseRecord(record, plan, dates, symbols, diagnostics);
+                if (e != null) {
+                    batch.add(e);
+                    rowsParsed++;
                 }
+            } catch (Exception ex) {
+                rowsSkipped++;
+                diagnostics.rowSkipped(record, ex);
+            }
+            long t1 = System.nanoTime();
+            convertNanos += t1 - t0;
+            if (batch.size() >= batchSize) {
+                listener.onBatch(batch, new ImportProgress(Math.min(counted.getCount(), totalBytes), totalBytes, rowsParsed, rowsSkipped));
+                batch = new ArrayList<>(batchSize);
+                listenerNanos += System.nanoTime() - t1;
             }
         }
-        if (result.isEmpty()) {
-            throw new IllegalArgumentException("No valid entries found. Check the CSV headers and values.");
+        if (!batch.isEmpty()) {
+            long t0 = System.nanoTime();
+            listener.onBatch(batch, new ImportProgress(totalBytes, totalBytes, rowsParsed, rowsSkipped));
+            listenerNanos += System.nanoTime() - t0;
         }
-        return result;
+        // Whatever the loop spent outside reading, converting and the listener was CSV parsing
+        diagnostics.addTime(ImportDiagnostics.Phase.CONVERT, convertNanos);
+        long readNanos = diagnostics.getNanos(ImportDiagnostics.Phase.READ);
+        long totalNanos = System.nanoTime() - startNanos;
+        diagnostics.addTime(ImportDiagnostics.Phase.PARSE, Math.max(0, totalNanos - readNanos - convertNanos - listenerNanos));
+        return new ImportProgress(totalBytes, totalBytes, rowsParsed, rowsSkipped, diagnostics);
+    }
+
+    static CSVFormat csvFormat() {
+        return CSVFormat.DEFAULT
+                .builder()
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setIgnoreSurroundingSpaces(true)
+                .setIgnoreEmptyLines(true)
+                .build();
     }
 
-    private static DietEntry parseRecord(CSVRecord r, Map<String, String> hm) {
-        LocalDate date = parseDate(get(r, hm, H_DATE));
+    // Values that are not numbers are read as 0 and reported to diagnostics; a row with the wrong
+    // number of cells is reported once as misaligned instead
+    static DietEntry parseRecord(CSVRecord r, ColumnPlan plan, DateParser dates, SymbolTable symbols,
+                                 ImportDiagnostics diagnostics) {
+        ImportDiagnostics numbers = diagnostics;
+        if (!r.isConsistent()) {
+            diagnostics.misalignedRow(r);
+            numbers = null;
+        }
+        LocalDate date = parseDate(get(r, plan.date), dates);
         if (date == null) {
-            date = tryAnyDate(r);
-            if (date == null) throw new IllegalArgumentException("Unparseable date.");
+            date = tryAnyDate(r, dates);
+            if (date == null) throw new ImportDiagnostics.RowException(ImportDiagnostics.Category.UNPARSEABLE_DATE, "Unparseable date.");
         }
 
-        String meal = orDefault(get(r, hm, H_MEAL), "Meal");
-        String item = orDefault(get(r, hm, H_ITEM), "Item");
-        String qty = orDefault(get(r, hm, H_QTY), "");
+        String meal = symbols.canonical(orDefault(get(r, plan.meal), "Meal"));
+        String item = symbols.canonical(orDefault(get(r, plan.item), "Item"));
+        String qty = symbols.canonical(orDefault(get(r, plan.qty), ""));
 
-        double calories = parseDoubleOrZero(get(r, hm, H_CAL));
-        double carbs = parseDoubleOrZero(get(r, hm, H_CAR));
-        double protein = parseDoubleOrZero(get(r, hm, H_PRO));
-        double fat = parseDoubleOrZero(get(r, hm, H_FAT));
-        double fiber = parseDoubleOrZero(get(r, hm, H_FIB));
+        double calories = number(r, plan.calories, "calories", 1, numbers);
+        double carbs = number(r, plan.carbs, "carbs", 1, numbers);
+        double protein = number(r, plan.protein, "protein", 1, numbers);
+        double fat = number(r, plan.fat, "fat", 1, numbers);
+        double fiber = number(r, plan.fiber, "fiber", 1, numbers);
 
-        double sodium = parseSodium(r, hm);
+        double sodium = number(r, plan.sodium, "sodium", plan.sodiumToMg, numbers);
 
-        String notes = orDefault(get(r, hm, H_NOTES), "");
+        String notes = symbols.canonical(orDefault(get(r, plan.notes), ""));
 
         return new DietEntry(date, meal, item, qty, calories, carbs, protein, fat, sodium, fiber, notes);
     }
 
-    private static double parseSodium(CSVRecord r, Map<String, String> hm) {
-        String raw = get(r, hm, H_SOD);
-        if (raw == null) return 0;
-        String matchedKey = matchedHeaderKey(hm, H_SOD);
-        boolean headerSuggestsG = matchedKey != null && matchedKey.toLowerCase().contains("(g)");
-        boolean headerSuggestsMg = matchedKey != null && matchedKey.toLowerCase().contains("(mg)");
-        double val = parseDoubleOrZero(raw);
-        if (headerSuggestsG) return val * 1000.0;
-        if (headerSuggestsMg) return val;
-        if (val > 50) return val; // likely mg
-        return val; // treat as mg
-    }
-
-    private static String matchedHeaderKey(Map<String, String> hm, Set<String> candidates) {
-        for (Map.Entry<String, String> e : hm.entrySet()) {
-            if (candidates.contains(e.getValue())) return e.getKey();
-        }
-        return null;
+    private static LocalDate parseDate(String s, DateParser dates) {
+        if (s == null || s.isBlank()) return null;
+        String v = s.trim();
+        LocalDate fast = dates.parse(v);
+        return fast != null ? fast : parseDateLegacy(v);
     }
 
-    private static LocalDate parseDate(String s) {
+    // The formatter list DateParser falls back to; package-private for ImportAllocationBenchmark
+    static LocalDate parseDateLegacy(String s) {
         if (s == null || s.isBlank()) return null;
         String v = s.trim();
         for (DateTimeFormatter fmt : DATE_FORMATS) {
@@ -125,67 +188,113 @@ public class CsvImporter {
         return null;
     }
 
-    private static LocalDate tryAnyDate(CSVRecord r) {
+    private static LocalDate tryAnyDate(CSVRecord r, DateParser dates) {
         for (String val : r) {
-            LocalDate d = parseDate(val);
+            LocalDate d = parseDate(val, dates);
             if (d != null) return d;
         }
         return null;
     }
 
-    private static String get(CSVRecord r, Map<String, String> headerMap, Set<String> keys) {
-        for (Map.Entry<String, String> e : headerMap.entrySet()) {
-            if (keys.contains(e.getValue())) {
-                String v = safeGet(r, e.getKey());
-                if (v != null) return v;
-            }
+    // First non-blank value among the bound columns; short rows simply have no value there
+    private static String get(CSVRecord r, int[] columns) {
+        for (int c : columns) {
+            if (c >= r.size()) continue;
+            String v = r.get(c).trim();
+            if (!v.isEmpty()) return v;
         }
         return null;
     }
 
-    private static String safeGet(CSVRecord r, String key) {
-        try {
-            if (!r.isMapped(key)) return null;
-            String v = r.get(key);
-            if (v == null) return null;
-            v = v.trim();
-            return v.isEmpty() ? null : v;
-        } catch (IllegalArgumentException ex) {
-            return null;
-        }
-    }
-
     private static String orDefault(String s, String def) {
         return (s == null || s.isBlank()) ? def : s.trim();
     }
 
-    private static double parseDoubleOrZero(String raw) {
-        if (raw == null || raw.isBlank()) return 0.0;
+    // Missing values are 0; values that are not numbers, or out of range once multiplied by unit,
+    // too, but those are reported unless diagnostics is null
+    private static double number(CSVRecord r, int[] columns, String name, double unit, ImportDiagnostics diagnostics) {
+        String raw = get(r, columns);
+        if (raw == null) return 0.0;
+        double v = NumberParser.parse(raw);
+        if (Double.isNaN(v)) v = parseDoubleLegacy(raw);
+        if (Double.isNaN(v)) {
+            if (diagnostics != null) diagnostics.invalidNumber(r, name, raw);
+            return 0.0;
+        }
+        v *= unit;
+        // Also false for infinities, which the legacy parser returns for very long digit runs
+        if (Math.abs(v) <= DietEntry.MAX_AMOUNT) return v;
+        if (diagnostics != null) diagnostics.outOfRangeNumber(r, name, raw);
+        return 0.0;
+    }
+
+    // NaN when the text is not a number; package-private for ImportAllocationBenchmark
+    static double parseDoubleLegacy(String raw) {
         String s = raw.trim().replaceAll("[^0-9,.-]", "");
-        if (s.isBlank()) return 0.0;
+        if (s.isBlank()) return Double.NaN;
         try {
             if (s.contains(",") && !s.contains(".")) s = s.replace(',', '.');
             else s = s.replace(",", "");
             return Double.parseDouble(s);
         } catch (NumberFormatException e) {
             try { return NumberFormat.getNumberInstance().parse(s).doubleValue(); }
-            catch (ParseException ex) { return 0.0; }
+            catch (ParseException ex) { return Double.NaN; }
         }
     }
 
-    private static Map<String, String> normalizeHeaderMap(Set<String> headers) {
-        Map<String, String> map = new LinkedHashMap<>();
-        for (String h : headers) map.put(h, normalize(h));
-        return map;
-    }
+    // Adds the time spent waiting on the stream to the READ phase
+    static final class TimedInputStream extends FilterInputStream {
+        private final ImportDiagnostics diagnostics;
+
+        TimedInputStream(InputStream in, ImportDiagnostics diagnostics) {
+            super(in);
+            this.diagnostics = diagnostics;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long t0 = System.nanoTime();
+            int b = super.read();
+            diagnostics.addTime(ImportDiagnostics.Phase.READ, System.nanoTime() - t0);
+            return b;
+        }
 
-    private static String normalize(String s) {
-        String v = s == null ? "" : s.toLowerCase(Locale.ROOT).trim();
-        v = v.replaceAll("\\s+", " ");
-        return v;
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long t0 = System.nanoTime();
+            int n = super.read(b, off, len);
+            diagnostics.addTime(ImportDiagnostics.Phase.READ, System.nanoTime() - t0);
+            return n;
+        }
     }
 
-    private static Set<String> set(String... items) {
-        return new HashSet<>(Arrays.asList(items));
+    static final class CountingInputStream extends FilterInputStream {
+        // Volatile: with a pipelined reader the counting happens on another thread
+        private volatile long count;
+
+        CountingInputStream(InputStream in) { super(in); }
+
+        long getCount() { return count; }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
     }
 }
\ No newline at end of file
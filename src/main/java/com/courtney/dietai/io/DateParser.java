@@ -0,0 +1,90 @@
+package com.courtney.dietai.io;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+
+// Hand-rolled parser for the date layouts CsvImporter supports. The layout is detected from the
+// first date that parses and then locked, so later rows take a single shape check. Values in any
+// other shape (trailing times, odd widths) return null and go through the DateTimeFormatter path.
+// Not thread-safe: use one instance per parsing thread.
+final class DateParser {
+
+    enum Layout { ISO_DASH, SLASH_YEAR_LAST, SLASH_YEAR_FIRST }
+
+    private Layout locked;
+
+    // Consecutive rows usually share a day, so the last result is reused instead of reallocated
+    private int lastYear, lastMonth, lastDay;
+    private LocalDate last;
+
+    Layout getLayout() { return locked; }
+
+    LocalDate parse(String v) {
+        if (locked != null) {
+            LocalDate d = parse(v, locked);
+            if (d != null) return d;
+        }
+        for (Layout layout : Layout.values()) {
+            if (layout == locked) continue;
+            LocalDate d = parse(v, layout);
+            if (d != null) {
+                if (locked == null) locked = layout;
+                return d;
+            }
+        }
+        return null;
+    }
+
+    private LocalDate parse(String v, Layout layout) {
+        switch (layout) {
+            case ISO_DASH: {
+                // yyyy-MM-dd
+                if (v.length() != 10 || v.charAt(4) != '-' || v.charAt(7) != '-') return null;
+                return resolve(digits(v, 0, 4), digits(v, 5, 2), digits(v, 8, 2));
+            }
+            case SLASH_YEAR_FIRST: {
+                // yyyy/MM/dd
+                if (v.length() != 10 || v.charAt(4) != '/' || v.charAt(7) != '/') return null;
+                return resolve(digits(v, 0, 4), digits(v, 5, 2), digits(v, 8, 2));
+            }
+            case SLASH_YEAR_LAST: {
+                // M/d/yyyy, falling back to d/M/yyyy when the first field cannot be a month
+                int s1 = v.indexOf('/');
+                if (s1 < 1 || s1 > 2) return null;
+                int s2 = v.indexOf('/', s1 + 1);
+                if (s2 - s1 - 1 < 1 || s2 - s1 - 1 > 2 || v.length() - s2 - 1 != 4) return null;
+                int a = digits(v, 0, s1);
+                int b = digits(v, s1 + 1, s2 - s1 - 1);
+                int year = digits(v, s2 + 1, 4);
+                if (a < 0 || b < 0 || year < 0) return null;
+                if (a >= 1 && a <= 12 && b >= 1 && b <= 31) return resolve(year, a, b);
+                return resolve(year, b, a);
+            }
+            default:
+                return null;
+        }
+    }
+
+    // Same outcome as the SMART resolver used by the formatters: day 29-31 is clamped to the month end
+    private LocalDate resolve(int year, int month, int day) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) return null;
+        if (last != null && year == lastYear && month == lastMonth && day == lastDay) return last;
+        int maxDay = Month.of(month).length(Year.isLeap(year));
+        last = LocalDate.of(year, month, Math.min(day, maxDay));
+        lastYear = year;
+        lastMonth = month;
+        lastDay = day;
+        return last;
+    }
+
+    private static int digits(String s, int from, int len) {
+        int v = 0;
+        for (int i = from; i < from + len; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+}
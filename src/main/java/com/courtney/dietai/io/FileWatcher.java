@@ -0,0 +1,60 @@
+package com.courtney.dietai.io;
+
+import com.courtney.dietai.concurrent.TaskScheduler;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.FutureTask;
+
+// Watches a single file through a WatchService on its folder and runs the callback whenever the
+// file is created or modified. The watch loop is a long-lived task in the scheduler's IO lane, which
+// has a slot to spare for it; the callback runs on that task's thread. A writer usually causes
+// several events per append, so callers should debounce.
+public class FileWatcher implements Closeable {
+    private final WatchService service;
+    private final FutureTask<Void> watcher;
+
+    public FileWatcher(File file, TaskScheduler scheduler, Runnable onChange) throws IOException {
+        Path path = file.toPath().toAbsolutePath();
+        Path name = path.getFileName();
+        service = path.getFileSystem().newWatchService();
+        try {
+            path.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException e) {
+            service.close();
+            throw e;
+        }
+        watcher = new FutureTask<>(() -> watch(name, onChange), null);
+        scheduler.submit(TaskScheduler.Category.IO, null, watcher);
+    }
+
+    private void watch(Path name, Runnable onChange) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // Lost events are reported as an overflow, which may include ours
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())) changed = true;
+                }
+                if (changed) onChange.run();
+                if (!key.reset()) return;
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    // Ends the watch loop, or keeps it from starting if it is still queued
+    @Override
+    public void close() throws IOException {
+        watcher.cancel(true);
+        service.close();
+    }
+}
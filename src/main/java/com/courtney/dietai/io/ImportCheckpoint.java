@@ -0,0 +1,108 @@
+package com.courtney.dietai.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+// How far a CSV file has been imported: the byte offset just past the last imported line, with a
+// fingerprint of the header line and a checksum of the bytes just before the offset. While both
+// still match, the file has only been appended to and the rows after the offset can be imported on
+// their own; a truncated or rewritten file fails the check and needs a full import.
+public class ImportCheckpoint {
+    static final int WINDOW_BYTES = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+    private final String path;
+    private final long offset;
+    private final long headerFingerprint;
+    private final int windowChecksum;
+
+    public ImportCheckpoint(String path, long offset, long headerFingerprint, int windowChecksum) {
+        this.path = path;
+        this.offset = offset;
+        this.headerFingerprint = headerFingerprint;
+        this.windowChecksum = windowChecksum;
+    }
+
+    public String getPath() { return path; }
+    public long getOffset() { return offset; }
+    public long getHeaderFingerprint() { return headerFingerprint; }
+    public int getWindowChecksum() { return windowChecksum; }
+
+    // Checkpoint at offset; null when offset does not end a line (e.g. an unterminated last row)
+    public static ImportCheckpoint capture(File file, long offset) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return capture(ch, file.getAbsolutePath(), offset);
+        }
+    }
+
+    static ImportCheckpoint capture(FileChannel ch, String path, long offset) throws IOException {
+        if (offset <= 0 || ch.size() < offset || byteAt(ch, offset - 1) != '\n') return null;
+        return new ImportCheckpoint(path, offset, headerFingerprint(ch), windowChecksum(ch, offset));
+    }
+
+    // True when the file still starts with the imported bytes, as far as header and window tell
+    public boolean matches(File file) throws IOException {
+        if (!file.getAbsolutePath().equals(path)) return false;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return matches(ch);
+        }
+    }
+
+    boolean matches(FileChannel ch) throws IOException {
+        return ch.size() >= offset && headerFingerprint(ch) == headerFingerprint
+                && windowChecksum(ch, offset) == windowChecksum;
+    }
+
+    // FNV-1a of the bytes up to and including the first newline
+    static long headerFingerprint(FileChannel ch) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(MAX_HEADER_BYTES, ch.size()));
+        readFully(ch, buf, 0);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < buf.limit(); i++) {
+            byte b = buf.get(i);
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+            if (b == '\n') break;
+        }
+        return hash;
+    }
+
+    static int windowChecksum(FileChannel ch, long offset) throws IOException {
+        long start = Math.max(0, offset - WINDOW_BYTES);
+        ByteBuffer buf = ByteBuffer.allocate((int) (offset - start));
+        readFully(ch, buf, start);
+        CRC32C crc = new CRC32C();
+        crc.update(buf);
+        return (int) crc.getValue();
+    }
+
+    // 64-bit FNV-1a of a path, used to name per-file entries
+    static String pathKey(String path) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < path.length(); i++) {
+            hash ^= path.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return Long.toHexString(hash);
+    }
+
+    private static int byteAt(FileChannel ch, long position) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(1);
+        readFully(ch, buf, position);
+        return buf.get(0);
+    }
+
+    // Fills buf from position on (less at end of file) and flips it
+    private static void readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, position);
+            if (n < 0) break;
+            position += n;
+        }
+        buf.flip();
+    }
+}
@@ -0,0 +1,235 @@
+package com.courtney.dietai.io;
+
+import org.apache.commons.csv.CSVRecord;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// What went wrong while importing, kept small however dirty the file: a count per problem category,
+// the first few samples of each, and the time spent in each phase. Clean rows only add to the phase
+// timers. A collector is used by one thread at a time; parallel imports fill one per worker and
+// merge them afterwards, so phase times then add up across threads.
+public class ImportDiagnostics {
+    public static final int DEFAULT_SAMPLES_PER_CATEGORY = 5;
+    private static final int MAX_EXCERPT_CHARS = 40;
+
+    public enum Category {
+        UNPARSEABLE_DATE("unparseable date", true),
+        UNREADABLE_ROW("unreadable row", true),
+        // More or fewer cells than the header, so values may sit under the wrong columns
+        MISALIGNED_ROW("misaligned row", false),
+        INVALID_NUMBER("invalid number read as 0", false),
+        // Not finite, or beyond DietEntry.MAX_AMOUNT
+        OUT_OF_RANGE_NUMBER("out-of-range number read as 0", false);
+
+        private final String label;
+        private final boolean skipsRow;
+
+        Category(String label, boolean skipsRow) {
+            this.label = label;
+            this.skipsRow = skipsRow;
+        }
+
+        public String getLabel() { return label; }
+        // Whether the row is dropped, or kept with the value defaulted
+        public boolean isSkipsRow() { return skipsRow; }
+    }
+
+    // Reading (and inflating) the input, splitting it into CSV records, and converting records to
+    // entries; time spent in the listener is not counted
+    public enum Phase { READ, PARSE, CONVERT }
+
+    public static final class Sample {
+        private final String location;
+        private final String message;
+
+        Sample(String location, String message) {
+            this.location = location;
+            this.message = message;
+        }
+
+        // E.g. "row 12", or "jan.csv row 12" after a batch import
+        public String getLocation() { return location; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() { return location + ": " + message; }
+    }
+
+    private final int samplesPerCategory;
+    private final long[] counts = new long[Category.values().length];
+    private final Map<Category, List<Sample>> samples = new EnumMap<>(Category.class);
+    private final long[] phaseNanos = new long[Phase.values().length];
+    // How records are located in samples: by record number, or by character offset from a byte
+    // position when the records come from a chunk of the file
+    private final String rowPrefix;
+    private final long chunkStart;
+
+    public ImportDiagnostics() {
+        this(DEFAULT_SAMPLES_PER_CATEGORY);
+    }
+
+    public ImportDiagnostics(int samplesPerCategory) {
+        this(samplesPerCategory, "row ", -1);
+    }
+
+    private ImportDiagnostics(int samplesPerCategory, String rowPrefix, long chunkStart) {
+        if (samplesPerCategory < 0) throw new IllegalArgumentException("Sample count must not be negative.");
+        this.samplesPerCategory = samplesPerCategory;
+        this.rowPrefix = rowPrefix;
+        this.chunkStart = chunkStart;
+    }
+
+    // For the records of a file chunk starting at the given byte, located as "byte start+offset"
+    static ImportDiagnostics forChunk(long chunkStart) {
+        return new ImportDiagnostics(DEFAULT_SAMPLES_PER_CATEGORY, "row ", chunkStart);
+    }
+
+    // For rows parsed after an import checkpoint, numbered from the checkpoint
+    static ImportDiagnostics forAppendedRows() {
+        return new ImportDiagnostics(DEFAULT_SAMPLES_PER_CATEGORY, "appended row ", -1);
+    }
+
+    private void record(Category category, String location, String message) {
+        long n = counts[category.ordinal()]++;
+        if (n < samplesPerCategory) {
+            samples.computeIfAbsent(category, c -> new ArrayList<>(samplesPerCategory)).add(new Sample(location, message));
+        }
+    }
+
+    // A value that was not a number; the row is kept with 0 there
+    void invalidNumber(CSVRecord r, String column, String raw) {
+        Category c = Category.INVALID_NUMBER;
+        if (counts[c.ordinal()] < samplesPerCategory) record(c, locate(r), column + " \"" + excerpt(raw) + "\"");
+        else counts[c.ordinal()]++;
+    }
+
+    // A number too large to add up exactly; the row is kept with 0 there
+    void outOfRangeNumber(CSVRecord r, String column, String raw) {
+        Category c = Category.OUT_OF_RANGE_NUMBER;
+        if (counts[c.ordinal()] < samplesPerCategory) record(c, locate(r), column + " \"" + excerpt(raw) + "\"");
+        else counts[c.ordinal()]++;
+    }
+
+    void misalignedRow(CSVRecord r) {
+        Category c = Category.MISALIGNED_ROW;
+        if (counts[c.ordinal()] < samplesPerCategory) record(c, locate(r), r.size() + " cells");
+        else counts[c.ordinal()]++;
+    }
+
+    // A row that parseRecord rejected
+    void rowSkipped(CSVRecord r, Exception ex) {
+        Category c = ex instanceof RowException ? ((RowException) ex).category : Category.UNREADABLE_ROW;
+        if (counts[c.ordinal()] < samplesPerCategory) record(c, locate(r), ex.getMessage() != null ? ex.getMessage() : ex.toString());
+        else counts[c.ordinal()]++;
+    }
+
+    private String locate(CSVRecord r) {
+        return chunkStart >= 0 ? "byte " + chunkStart + "+" + r.getCharacterPosition() : rowPrefix + r.getRecordNumber();
+    }
+
+    void addTime(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    // Adds another collector's counts, samples (up to this one's limit) and times; locations are
+    // prefixed with source when it is not null
+    void merge(ImportDiagnostics other, String source) {
+        for (Category c : Category.values()) {
+            for (Sample s : other.getSamples(c)) {
+                List<Sample> list = samples.computeIfAbsent(c, k -> new ArrayList<>(samplesPerCategory));
+                if (list.size() >= samplesPerCategory) break;
+                list.add(new Sample(source != null ? source + " " + s.location : s.location, s.message));
+            }
+            counts[c.ordinal()] += other.counts[c.ordinal()];
+        }
+        for (int i = 0; i < phaseNanos.length; i++) phaseNanos[i] += other.phaseNanos[i];
+    }
+
+    public long getCount(Category category) {
+        return counts[category.ordinal()];
+    }
+
+    public List<Sample> getSamples(Category category) {
+        List<Sample> list = samples.get(category);
+        return list != null ? Collections.unmodifiableList(list) : List.of();
+    }
+
+    public long getMillis(Phase phase) {
+        return phaseNanos[phase.ordinal()] / 1_000_000;
+    }
+
+    long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public boolean hasProblems() {
+        for (long c : counts) {
+            if (c > 0) return true;
+        }
+        return false;
+    }
+
+    // One line for the status bar, e.g. "3 unparseable dates skipped, 12 invalid numbers read as 0"
+    public String describeProblems() {
+        StringBuilder sb = new StringBuilder();
+        for (Category c : Category.values()) {
+            long n = counts[c.ordinal()];
+            if (n == 0) continue;
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(describe(c, n));
+        }
+        return sb.toString();
+    }
+
+    public String describeTimes() {
+        return String.format(Locale.US, "read %d ms, parse %d ms, convert %d ms",
+                getMillis(Phase.READ), getMillis(Phase.PARSE), getMillis(Phase.CONVERT));
+    }
+
+    // Counts, samples and times, one per line
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Category c : Category.values()) {
+            long n = counts[c.ordinal()];
+            if (n == 0) continue;
+            sb.append(describe(c, n)).append(System.lineSeparator());
+            for (Sample s : getSamples(c)) sb.append("    ").append(s).append(System.lineSeparator());
+        }
+        if (sb.length() == 0) sb.append("No problems").append(System.lineSeparator());
+        return sb.append(describeTimes()).toString();
+    }
+
+    // Dropped rows say so; kept ones are described by the label itself
+    private static String describe(Category c, long n) {
+        return String.format(Locale.US, "%,d %s%s", n, plural(c.label, n), c.isSkipsRow() ? " skipped" : "");
+    }
+
+    // On one line and short enough for a tooltip
+    private static String excerpt(String raw) {
+        String v = raw.replaceAll("\\s+", " ");
+        return v.length() <= MAX_EXCERPT_CHARS ? v : v.substring(0, MAX_EXCERPT_CHARS) + "...";
+    }
+
+    // "invalid number read as 0" -> "invalid numbers read as 0"
+    private static String plural(String label, long n) {
+        if (n == 1) return label;
+        int space = label.indexOf(' ', label.indexOf(' ') + 1);
+        return space < 0 ? label + "s" : label.substring(0, space) + "s" + label.substring(space);
+    }
+
+    // Thrown by parseRecord for a row that is dropped for a known reason
+    static final class RowException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        private final Category category;
+
+        RowException(Category category, String message) {
+            super(message);
+            this.category = category;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.courtney.dietai.io;
+
+import com.courtney.dietai.model.DietEntry;
+import java.util.List;
+
+@FunctionalInterface
+public interface ImportListener {
+    // Called on the importing thread for every batch of parsed rows, in file order
+    void onBatch(List<DietEntry> batch, ImportProgress progress);
+}
@@ -0,0 +1,32 @@
+package com.courtney.dietai.io;
+
+public class ImportProgress {
+    private final long bytesRead;
+    private final long totalBytes;
+    private final long rowsParsed;
+    private final long rowsSkipped;
+    private final ImportDiagnostics diagnostics;
+
+    public ImportProgress(long bytesRead, long totalBytes, long rowsParsed, long rowsSkipped) {
+        this(bytesRead, totalBytes, rowsParsed, rowsSkipped, null);
+    }
+
+    public ImportProgress(long bytesRead, long totalBytes, long rowsParsed, long rowsSkipped, ImportDiagnostics diagnostics) {
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.rowsParsed = rowsParsed;
+        this.rowsSkipped = rowsSkipped;
+        this.diagnostics = diagnostics;
+    }
+
+    public long getBytesRead() { return bytesRead; }
+    public long getTotalBytes() { return totalBytes; }
+    public long getRowsParsed() { return rowsParsed; }
+    public long getRowsSkipped() { return rowsSkipped; }
+    // Set on the progress an import returns, null on the batches along the way
+    public ImportDiagnostics getDiagnostics() { return diagnostics; }
+
+    public double getFraction() {
+        return totalBytes > 0 ? Math.min(1.0, (double) bytesRead / totalBytes) : -1;
+    }
+}
@@ -0,0 +1,60 @@
+package com.courtney.dietai.io;
+
+// Allocation-free decimal parsing for numeric cells such as "53.4", "0mg", "2.3g" or "1,5".
+// Mirrors CsvImporter's legacy rules: everything except digits, ',', '.' and '-' is ignored, a lone
+// comma without a dot is a decimal separator and commas next to a dot are grouping separators.
+final class NumberParser {
+
+    // Returned when the input is outside the fast path and the caller must use the legacy parser
+    static final double FALLBACK = Double.NaN;
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberParser() {}
+
+    static double parse(String s) {
+        long mantissa = 0;
+        int digits = 0, dots = 0, commas = 0;
+        int digitsAfterDot = 0, digitsAfterComma = 0;
+        boolean negative = false, seenKept = false;
+
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa >= MAX_EXACT_MANTISSA) return FALLBACK;
+                digits++;
+                if (dots > 0) digitsAfterDot++;
+                if (commas > 0) digitsAfterComma++;
+            } else if (c == '.') {
+                dots++;
+            } else if (c == ',') {
+                commas++;
+            } else if (c == '-') {
+                if (seenKept) return FALLBACK;
+                negative = true;
+            } else {
+                continue;
+            }
+            seenKept = true;
+        }
+        // No number at all (e.g. "n/a"); the legacy parser reports it
+        if (!seenKept) return FALLBACK;
+        if (digits == 0) return FALLBACK;
+
+        int scale;
+        if (dots == 1) scale = digitsAfterDot;
+        else if (dots == 0 && commas <= 1) scale = commas == 1 ? digitsAfterComma : 0;
+        else return FALLBACK;
+        if (scale >= POW10.length) return FALLBACK;
+
+        // Both operands are exact doubles, so a single division is correctly rounded,
+        // giving the same result as Double.parseDouble on the filtered text
+        double v = mantissa / POW10[scale];
+        return negative ? -v : v;
+    }
+}
@@ -0,0 +1,239 @@
+package com.courtney.dietai.io;
+
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.SymbolTable;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Memory-maps the file, splits it at record boundaries and parses the chunks on a fork-join pool.
+// Rows come back in file order with the same per-row semantics as CsvImporter.
+public class ParallelCsvImporter {
+
+    private static final long MIN_CHUNK_BYTES = 4L << 20;
+    private static final long MAX_CHUNK_BYTES = 64L << 20;
+    private static final long SCAN_WINDOW_BYTES = 256L << 20;
+
+    public static List<DietEntry> importFile(File file) throws Exception {
+        List<DietEntry> result = new ArrayList<>();
+        importFile(file, ForkJoinPool.commonPool(), new SymbolTable(), CsvImporter.DEFAULT_BATCH_SIZE, (batch, progress) -> result.addAll(batch));
+        return result;
+    }
+
+    public static ImportProgress importFile(File file, ForkJoinPool pool, SymbolTable symbols,
+                                            int batchSize, ImportListener listener) throws Exception {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive.");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headerEnd = findHeaderEnd(channel, size);
+            String headerText = decode(channel, 0, headerEnd);
+
+            String[] headerNames;
+            ColumnPlan plan;
+            try (CSVParser headerParser = CsvImporter.csvFormat().parse(new StringReader(headerText))) {
+                headerNames = headerParser.getHeaderNames().toArray(new String[0]);
+                plan = ColumnPlan.compile(headerParser.getHeaderMap());
+            }
+            CSVFormat chunkFormat = CsvImporter.csvFormat().builder()
+                    .setHeader(headerNames)
+                    .setSkipHeaderRecord(false)
+                    .build();
+
+            List<long[]> chunks = split(channel, headerEnd, size, chunkSize(size, pool.getParallelism()));
+
+            // Only a window of chunks is parsed ahead of the ordered drain, so at most that many
+            // chunks' rows are held at once; the flag stops chunks still running when the drain fails
+            int window = Math.max(2, 2 * pool.getParallelism());
+            AtomicBoolean stop = new AtomicBoolean();
+            Deque<Future<ChunkResult>> inFlight = new ArrayDeque<>(window);
+            long rowsParsed = 0, rowsSkipped = 0;
+            ImportDiagnostics diagnostics = new ImportDiagnostics();
+            try {
+                int submitted = 0;
+                for (int i = 0; i < chunks.size(); i++) {
+                    for (; submitted < chunks.size() && submitted < i + window; submitted++) {
+                        long[] c = chunks.get(submitted);
+                        inFlight.add(pool.submit(() -> parseChunk(channel, c[0], c[1], chunkFormat, plan, symbols, stop)));
+                    }
+                    ChunkResult r = unwrap(inFlight.poll());
+                    rowsParsed += r.entries.size();
+                    rowsSkipped += r.skipped;
+                    diagnostics.merge(r.diagnostics, null);
+                    long bytesRead = chunks.get(i)[1];
+                    for (int from = 0; from < r.entries.size(); from += batchSize) {
+                        int to = Math.min(r.entries.size(), from + batchSize);
+                        listener.onBatch(new ArrayList<>(r.entries.subList(from, to)),
+                                new ImportProgress(bytesRead, size, rowsParsed - r.entries.size() + to, rowsSkipped));
+                    }
+                }
+            } finally {
+                // Pool tasks are not interrupted by cancel, so they watch the flag instead
+                stop.set(true);
+                for (Future<ChunkResult> f : inFlight) f.cancel(true);
+            }
+            if (rowsParsed == 0) {
+                throw new IllegalArgumentException("No valid entries found. Check the CSV headers and values."
+                        + (diagnostics.hasProblems() ? " " + diagnostics.describeProblems() + "." : ""));
+            }
+            return new ImportProgress(size, size, rowsParsed, rowsSkipped, diagnostics);
+        }
+    }
+
+    private static ChunkResult unwrap(Future<ChunkResult> f) throws Exception {
+        try {
+            return f.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception e) throw e;
+            throw ex;
+        }
+    }
+
+    // Parses straight from the mapped bytes, so no decoded copy of the chunk is kept around.
+    // Returns early, with a partial result nobody reads, once stop is set.
+    private static ChunkResult parseChunk(FileChannel channel, long start, long end, CSVFormat format,
+                                          ColumnPlan plan, SymbolTable symbols, AtomicBoolean stop) throws IOException {
+        ChunkResult result = new ChunkResult(start);
+        ImportDiagnostics diagnostics = result.diagnostics;
+        DateParser dates = new DateParser();
+        // Reading is mapping the chunk and, inside the parse loop, decoding it
+        long t0 = System.nanoTime();
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        long loopStart = System.nanoTime(), convertNanos = 0;
+        diagnostics.addTime(ImportDiagnostics.Phase.READ, loopStart - t0);
+        Reader reader = new InputStreamReader(new BufferInputStream(buf), StandardCharsets.UTF_8);
+        try (CSVParser parser = format.parse(new BufferedReader(reader, 1 << 16))) {
+            for (CSVRecord record : parser) {
+                if (stop.get()) break;
+                long t1 = System.nanoTime();
+                try {
+                    DietEntry e = CsvImporter.parseRecord(record, plan, dates, symbols, diagnostics);
+                    if (e != null) result.entries.add(e);
+                } catch (Exception ex) {
+                    result.skipped++;
+                    diagnostics.rowSkipped(record, ex);
+                }
+                convertNanos += System.nanoTime() - t1;
+            }
+        }
+        diagnostics.addTime(ImportDiagnostics.Phase.CONVERT, convertNanos);
+        diagnostics.addTime(ImportDiagnostics.Phase.PARSE, Math.max(0, System.nanoTime() - loopStart - convertNanos));
+        return result;
+    }
+
+    private static long chunkSize(long size, int parallelism) {
+        long perTask = size / Math.max(1, parallelism * 4L);
+        return Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, perTask));
+    }
+
+    // Chunk ends are placed just after a newline that is outside any quoted field, so quoted
+    // values containing line breaks are never split across chunks.
+    private static List<long[]> split(FileChannel channel, long start, long size, long chunkSize) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        long chunkStart = start;
+        long target = start + chunkSize;
+        boolean inQuotes = false;
+        for (long windowStart = start; windowStart < size && target < size; windowStart += SCAN_WINDOW_BYTES) {
+            long windowLen = Math.min(SCAN_WINDOW_BYTES, size - windowStart);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLen);
+            for (int i = 0; i < windowLen; i++) {
+                byte b = buf.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes && windowStart + i + 1 >= target) {
+                    long boundary = windowStart + i + 1;
+                    chunks.add(new long[]{chunkStart, boundary});
+                    chunkStart = boundary;
+                    target = boundary + chunkSize;
+                    if (target >= size) break;
+                }
+            }
+        }
+        if (chunkStart < size) chunks.add(new long[]{chunkStart, size});
+        return chunks;
+    }
+
+    private static long findHeaderEnd(FileChannel channel, long size) throws IOException {
+        boolean inQuotes = false, seenContent = false;
+        for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW_BYTES) {
+            long windowLen = Math.min(SCAN_WINDOW_BYTES, size - windowStart);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLen);
+            for (int i = 0; i < windowLen; i++) {
+                byte b = buf.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                    seenContent = true;
+                } else if (b == '\n') {
+                    if (!inQuotes && seenContent) return windowStart + i + 1;
+                } else if (b != '\r') {
+                    seenContent = true;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static String decode(FileChannel channel, long start, long end) throws IOException {
+        if (end <= start) return "";
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        return StandardCharsets.UTF_8.decode(buf).toString();
+    }
+
+    // Reads a mapped chunk without copying it onto the heap
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buf;
+
+        BufferInputStream(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buf.hasRemaining()) return -1;
+            int n = Math.min(len, buf.remaining());
+            buf.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+    }
+
+    private static final class ChunkResult {
+        final List<DietEntry> entries = new ArrayList<>();
+        final ImportDiagnostics diagnostics;
+        long skipped;
+
+        ChunkResult(long start) {
+            diagnostics = ImportDiagnostics.forChunk(start);
+        }
+    }
+}
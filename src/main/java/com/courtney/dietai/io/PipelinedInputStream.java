@@ -0,0 +1,109 @@
+package com.courtney.dietai.io;
+
+import com.courtney.dietai.concurrent.TaskScheduler;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Reads the source in the scheduler's IO lane into a small queue of large chunks, so whatever the
+// source does per byte (inflating, disk reads) overlaps with the consumer's parsing. The reader
+// always ends the queue with END; anything it threw surfaces from read() once the chunks before it
+// are consumed. Closing stops the reader and closes the source.
+final class PipelinedInputStream extends InputStream {
+    private static final byte[] END = new byte[0];
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> queue;
+    private final FutureTask<Void> reader;
+    // Taken by whichever runs first, the reader or close(); that one closes the source
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private volatile Throwable error;
+    private byte[] current;
+    private int pos;
+    private boolean done;
+
+    PipelinedInputStream(InputStream source, int chunkBytes, int queuedChunks, TaskScheduler scheduler) {
+        this.source = source;
+        queue = new ArrayBlockingQueue<>(queuedChunks);
+        reader = new FutureTask<>(() -> pump(chunkBytes), null);
+        scheduler.submit(TaskScheduler.Category.IO, null, reader);
+    }
+
+    private void pump(int chunkBytes) {
+        if (!claimed.compareAndSet(false, true)) return;
+        try (source) {
+            while (true) {
+                byte[] chunk = new byte[chunkBytes];
+                int n = source.readNBytes(chunk, 0, chunkBytes);
+                if (n > 0) queue.put(n == chunkBytes ? chunk : Arrays.copyOf(chunk, n));
+                if (n < chunkBytes) break;
+            }
+        } catch (InterruptedException e) {
+            // Closed by the consumer
+        } catch (Throwable t) {
+            error = t;
+        } finally {
+            try {
+                // close() clears the queue after interrupting, so there is room for END
+                queue.put(END);
+            } catch (InterruptedException e) {
+                // Closed by the consumer
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) return -1;
+        return current[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!fill()) return -1;
+        int n = Math.min(len, current.length - pos);
+        System.arraycopy(current, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null || done ? 0 : current.length - pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        done = true;
+        reader.cancel(true);
+        queue.clear();
+        // The reader never started, so the source is still open
+        if (claimed.compareAndSet(false, true)) source.close();
+    }
+
+    private boolean fill() throws IOException {
+        if (done) return false;
+        if (current != null && pos < current.length) return true;
+        try {
+            current = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for input.");
+        }
+        pos = 0;
+        if (current == END) {
+            done = true;
+            Throwable t = error;
+            if (t instanceof IOException) throw (IOException) t;
+            if (t != null) throw new IOException("Reading ahead failed: " + t, t);
+            return false;
+        }
+        return true;
+    }
+}
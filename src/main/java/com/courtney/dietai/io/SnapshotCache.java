@@ -0,0 +1,295 @@
+package com.courtney.dietai.io;
+
+import com.courtney.dietai.model.EntryStore;
+import com.courtney.dietai.model.SymbolTable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+// Binary snapshots of imported CSV files, so reopening an unchanged file skips parsing. One file per
+// source path under ~/.dietai/snapshots holds the symbol table, the store's columns (codes, not
+// strings) and the per-day rollup totals, and is read back through a memory mapping.
+// The header records the source's path, the number of bytes the rows came from, its mtime and the
+// CRC32C of those bytes: a matching size and mtime is trusted, a matching size with a new mtime is
+// confirmed by the checksum, and anything else means the CSV is parsed again, except that a file
+// which only grew can resume from the snapshot under an ImportCheckpoint (see TailImporter).
+// A truncated or unreadable snapshot is treated as missing.
+// A snapshot's mtime is refreshed whenever it is loaded, and each save evicts the least recently
+// used snapshots beyond the count limit as well as any unused for longer than the age limit.
+public class SnapshotCache {
+    private static final int MAGIC = 0x44534E50; // "DSNP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int ROLLUP_MEASURES = 7;
+    private static final int CHECKSUM_BUFFER_BYTES = 1 << 20;
+    static final int DEFAULT_MAX_SNAPSHOTS = 16;
+    static final Duration DEFAULT_MAX_AGE = Duration.ofDays(90);
+    private static final String SUFFIX = ".snapshot";
+
+    private final Path dir;
+    private final int maxSnapshots;
+    private final Duration maxAge;
+
+    public SnapshotCache() {
+        this(Paths.get(System.getProperty("user.home"), ".dietai", "snapshots"));
+    }
+
+    public SnapshotCache(Path dir) {
+        this(dir, DEFAULT_MAX_SNAPSHOTS, DEFAULT_MAX_AGE);
+    }
+
+    public SnapshotCache(Path dir, int maxSnapshots, Duration maxAge) {
+        if (maxSnapshots <= 0) throw new IllegalArgumentException("At least one snapshot must be kept.");
+        this.dir = dir;
+        this.maxSnapshots = maxSnapshots;
+        this.maxAge = maxAge;
+    }
+
+    // Null when there is no usable snapshot for the file as it is now
+    public Snapshot load(File source) throws IOException {
+        return load(source, source.length(), false);
+    }
+
+    // Snapshot of the bytes before the checkpoint's offset, which the caller has matched against the
+    // file; null when the snapshot covers a different range
+    public Snapshot load(File source, ImportCheckpoint checkpoint) throws IOException {
+        return load(source, checkpoint.getOffset(), true);
+    }
+
+    private Snapshot load(File source, long coveredSize, boolean prefixVerified) throws IOException {
+        Path file = snapshotPath(source);
+        if (!Files.isRegularFile(file)) return null;
+        long mtime = source.lastModified();
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) return null;
+            String path = readString(in);
+            long sourceSize = in.getLong();
+            long sourceMtime = in.getLong();
+            int sourceChecksum = in.getInt();
+            if (!path.equals(source.getAbsolutePath()) || sourceSize != coveredSize) return null;
+            if (!prefixVerified && sourceMtime != mtime && checksum(source.toPath(), sourceSize) != sourceChecksum) return null;
+
+            long rowsSkipped = in.getLong();
+            SymbolTable symbols = new SymbolTable();
+            int symbolCount = in.getInt();
+            for (int i = 0; i < symbolCount; i++) {
+                // Interned in code order, so the stored codes stay valid
+                if (symbols.intern(readString(in)) != i) return null;
+            }
+
+            EntryStore.Columns c = new EntryStore.Columns(in.getInt());
+            readInts(in, c.epochDay);
+            readDoubles(in, c.calories);
+            readDoubles(in, c.carbs);
+            readDoubles(in, c.protein);
+            readDoubles(in, c.fat);
+            readDoubles(in, c.sodiumMg);
+            readDoubles(in, c.fiber);
+            readInts(in, c.meal);
+            readInts(in, c.item);
+            readInts(in, c.quantity);
+            readInts(in, c.notes);
+
+            int[] dayKeys = new int[in.getInt()];
+            readInts(in, dayKeys);
+            long[][] dayTotals = new long[ROLLUP_MEASURES][dayKeys.length];
+            for (long[] measure : dayTotals) readLongs(in, measure);
+            touch(file);
+            return new Snapshot(symbols, c, rowsSkipped, dayKeys, dayTotals);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Writes the snapshot of the first coveredSize bytes of the source, unless the source was modified
+    // since sourceMtime was taken (before the import started); returns whether it was written
+    public boolean save(File source, long coveredSize, long sourceMtime, Snapshot snapshot) throws IOException {
+        int checksum = checksum(source.toPath(), coveredSize);
+        if (source.length() < coveredSize || source.lastModified() != sourceMtime) return false;
+
+        Files.createDirectories(dir);
+        Path file = snapshotPath(source);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, source.getAbsolutePath());
+                out.writeLong(coveredSize);
+                out.writeLong(sourceMtime);
+                out.writeInt(checksum);
+
+                out.writeLong(snapshot.rowsSkipped);
+                SymbolTable symbols = snapshot.symbols;
+                int symbolCount = symbols.size();
+                out.writeInt(symbolCount);
+                for (int i = 0; i < symbolCount; i++) writeString(out, symbols.get(i));
+
+                EntryStore.Columns c = snapshot.columns;
+                out.writeInt(c.size);
+                writeInts(out, c.epochDay);
+                writeDoubles(out, c.calories);
+                writeDoubles(out, c.carbs);
+                writeDoubles(out, c.protein);
+                writeDoubles(out, c.fat);
+                writeDoubles(out, c.sodiumMg);
+                writeDoubles(out, c.fiber);
+                writeInts(out, c.meal);
+                writeInts(out, c.item);
+                writeInts(out, c.quantity);
+                writeInts(out, c.notes);
+
+                out.writeInt(snapshot.dayKeys.length);
+                writeInts(out, snapshot.dayKeys);
+                for (long[] measure : snapshot.dayTotals) writeLongs(out, measure);
+            }
+            // Readers never see a half-written snapshot
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evict(file);
+            return true;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Drops snapshots unused for longer than maxAge, then the least recently used beyond
+    // maxSnapshots; keep is the one just written. Files that vanish meanwhile are skipped.
+    void evict(Path keep) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Map<Path, FileTime> used = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path f : stream) {
+                try {
+                    used.put(f, Files.getLastModifiedTime(f));
+                    files.add(f);
+                } catch (IOException e) {
+                    // Removed by another instance
+                }
+            }
+        }
+        files.sort(Comparator.comparing((Path f) -> used.get(f)).reversed());
+        FileTime cutoff = FileTime.from(Instant.now().minus(maxAge));
+        int kept = 0;
+        for (Path f : files) {
+            if (f.equals(keep) || (kept < maxSnapshots && used.get(f).compareTo(cutoff) >= 0)) {
+                kept++;
+            } else {
+                Files.deleteIfExists(f);
+            }
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            // Only affects eviction order
+        }
+    }
+
+    private Path snapshotPath(File source) {
+        // The path hash keeps same-named files in different folders apart
+        return dir.resolve(source.getName() + "-" + ImportCheckpoint.pathKey(source.getAbsolutePath()) + SUFFIX);
+    }
+
+    // CRC32C of the first length bytes
+    static int checksum(Path file, long length) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buf = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_BYTES);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long remaining = length;
+            while (remaining > 0) {
+                buf.limit((int) Math.min(buf.capacity(), remaining));
+                int n = ch.read(buf);
+                if (n < 0) break;
+                remaining -= n;
+                buf.flip();
+                crc.update(buf);
+                buf.clear();
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void readInts(ByteBuffer in, int[] dst) {
+        in.asIntBuffer().get(dst);
+        in.position(in.position() + dst.length * Integer.BYTES);
+    }
+
+    private static void readDoubles(ByteBuffer in, double[] dst) {
+        in.asDoubleBuffer().get(dst);
+        in.position(in.position() + dst.length * Double.BYTES);
+    }
+
+    private static void readLongs(ByteBuffer in, long[] dst) {
+        in.asLongBuffer().get(dst);
+        in.position(in.position() + dst.length * Long.BYTES);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int v : values) out.writeInt(v);
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        for (double v : values) out.writeDouble(v);
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        for (long v : values) out.writeLong(v);
+    }
+
+    // Contents of one snapshot; the columns' codes refer to symbols
+    public static final class Snapshot {
+        private final SymbolTable symbols;
+        private final EntryStore.Columns columns;
+        private final long rowsSkipped;
+        private final int[] dayKeys;
+        private final long[][] dayTotals;
+
+        public Snapshot(SymbolTable symbols, EntryStore.Columns columns, long rowsSkipped, int[] dayKeys, long[][] dayTotals) {
+            this.symbols = symbols;
+            this.columns = columns;
+            this.rowsSkipped = rowsSkipped;
+            this.dayKeys = dayKeys;
+            this.dayTotals = dayTotals;
+        }
+
+        public SymbolTable getSymbols() { return symbols; }
+        public EntryStore.Columns getColumns() { return columns; }
+        public long getRowsSkipped() { return rowsSkipped; }
+        public int[] getDayKeys() { return dayKeys; }
+        public long[][] getDayTotals() { return dayTotals; }
+    }
+}
@@ -0,0 +1,144 @@
+package com.courtney.dietai.io;
+
+import com.courtney.dietai.model.SymbolTable;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+// Imports only the rows appended to a CSV file after an ImportCheckpoint. Parsing stops at the last
+// complete record, so a row still being written (even one inside a multi-line quoted field) is
+// picked up by the next call, and the returned checkpoint moves past the imported records. Files that no longer match the checkpoint (truncated,
+// rewritten, new header) are left alone: the caller falls back to a full import.
+public class TailImporter {
+    private static final int SCAN_CHUNK_BYTES = 64 * 1024;
+
+    public static final class Result {
+        private final ImportProgress progress;
+        private final ImportCheckpoint checkpoint;
+
+        Result(ImportProgress progress, ImportCheckpoint checkpoint) {
+            this.progress = progress;
+            this.checkpoint = checkpoint;
+        }
+
+        // Bytes and rows of the tail only
+        public ImportProgress getProgress() { return progress; }
+        public ImportCheckpoint getCheckpoint() { return checkpoint; }
+    }
+
+    // Null when the file does not match the checkpoint
+    public static Result importTail(File file, ImportCheckpoint from, SymbolTable symbols, int batchSize,
+                                    ImportListener listener) throws IOException {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive.");
+        if (!file.getAbsolutePath().equals(from.getPath())) return null;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (!from.matches(ch)) return null;
+            long start = from.getOffset();
+            long end = endOfLastRecord(ch, start);
+            long totalBytes = end - start;
+            ImportDiagnostics diagnostics = ImportDiagnostics.forAppendedRows();
+            if (totalBytes == 0) return new Result(new ImportProgress(0, 0, 0, 0, diagnostics), from);
+
+            // The tail has no header line; the columns come from the file's first line. The names keep
+            // every column, duplicates included, which the header map does not.
+            String[] names;
+            ColumnPlan plan;
+            try (CSVParser headerParser = CsvImporter.csvFormat().parse(new StringReader(readHeaderLine(ch)))) {
+                names = headerParser.getHeaderNames().toArray(new String[0]);
+                plan = ColumnPlan.compile(headerParser.getHeaderMap());
+            }
+            CSVFormat format = CsvImporter.csvFormat().builder()
+                    .setHeader(names)
+                    .setSkipHeaderRecord(false)
+                    .build();
+            long loopStart = System.nanoTime();
+            ImportProgress done;
+            ch.position(start);
+            try (CsvImporter.CountingInputStream in = new CsvImporter.CountingInputStream(
+                         new BoundedInputStream(Channels.newInputStream(ch), totalBytes));
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(
+                         new CsvImporter.TimedInputStream(in, diagnostics), StandardCharsets.UTF_8));
+                 CSVParser parser = format.parse(reader)) {
+                done = CsvImporter.importRecords(parser, plan, symbols, in, totalBytes, batchSize, diagnostics, listener, loopStart);
+            }
+            ImportCheckpoint next = new ImportCheckpoint(from.getPath(), end, from.getHeaderFingerprint(),
+                    ImportCheckpoint.windowChecksum(ch, end));
+            return new Result(done, next);
+        }
+    }
+
+    // Offset just past the last newline outside quotes at or after start, or start when there is
+    // none. Scans forward from start, which is a record boundary, so the quote state is known; a
+    // newline inside a quoted field does not end a record.
+    private static long endOfLastRecord(FileChannel ch, long start) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(SCAN_CHUNK_BYTES);
+        long size = ch.size();
+        long end = start;
+        boolean inQuotes = false;
+        for (long pos = start; pos < size; ) {
+            buf.clear().limit((int) Math.min(SCAN_CHUNK_BYTES, size - pos));
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, pos + buf.position()) < 0) break;
+            }
+            int len = buf.position();
+            if (len == 0) break;
+            for (int i = 0; i < len; i++) {
+                byte b = buf.get(i);
+                if (b == '"') inQuotes = !inQuotes;
+                else if (b == '\n' && !inQuotes) end = pos + i + 1;
+            }
+            pos += len;
+        }
+        return end;
+    }
+
+    private static String readHeaderLine(FileChannel ch) throws IOException {
+        ch.position(0);
+        // Not closed: that would close the channel
+        BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(ch), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null) throw new IOException("Missing CSV header.");
+        return line;
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // The channel belongs to the caller
+        }
+    }
+}
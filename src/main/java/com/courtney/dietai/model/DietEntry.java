@@ -3,6 +3,11 @@ package com.courtney.dietai.model;
 import java.time.LocalDate;
 
 public class DietEntry {
+    // Largest calories, macro grams or sodium mg a single row may hold. Summaries add amounts as
+    // fixed-point micro-units in longs, which stay exact for tens of millions of rows at this bound;
+    // importers read anything beyond it, or not finite, as 0
+    public static final double MAX_AMOUNT = 100_000;
+
     private LocalDate date;
     private String meal;
     private String item;
@@ -0,0 +1,372 @@
+package com.courtney.dietai.model;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Column-oriented storage for diet entries: one primitive array per field, with the text fields
+// dictionary-encoded through a SymbolTable. Rows are exposed as DietEntry views built on demand;
+// a view is a detached copy, so changing it does not write back to the store.
+// Not thread-safe; other threads read through snapshot().
+public class EntryStore {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private SymbolTable symbols;
+    private final RowList rows = new RowList();
+    private int size;
+    private int version;
+
+    // The store snapshots were taken from (this one for a live store); indexes kept in step with a
+    // store accept its snapshots as the same source
+    private final EntryStore origin;
+    private final boolean readOnly;
+    // Set while a snapshot may share the column arrays, so changes to existing rows copy them first
+    private boolean shared;
+
+    private int[] epochDay = new int[INITIAL_CAPACITY];
+    private double[] calories = new double[INITIAL_CAPACITY];
+    private double[] carbs = new double[INITIAL_CAPACITY];
+    private double[] protein = new double[INITIAL_CAPACITY];
+    private double[] fat = new double[INITIAL_CAPACITY];
+    private double[] sodiumMg = new double[INITIAL_CAPACITY];
+    private double[] fiber = new double[INITIAL_CAPACITY];
+    private int[] meal = new int[INITIAL_CAPACITY];
+    private int[] item = new int[INITIAL_CAPACITY];
+    private int[] quantity = new int[INITIAL_CAPACITY];
+    private int[] notes = new int[INITIAL_CAPACITY];
+
+    public EntryStore() {
+        this(new SymbolTable());
+    }
+
+    public EntryStore(SymbolTable symbols) {
+        this.symbols = symbols;
+        this.origin = this;
+        this.readOnly = false;
+    }
+
+    private EntryStore(EntryStore live) {
+        origin = live;
+        readOnly = true;
+        symbols = live.symbols;
+        size = live.size;
+        version = live.version;
+        epochDay = live.epochDay;
+        calories = live.calories;
+        carbs = live.carbs;
+        protein = live.protein;
+        fat = live.fat;
+        sodiumMg = live.sodiumMg;
+        fiber = live.fiber;
+        meal = live.meal;
+        item = live.item;
+        quantity = live.quantity;
+        notes = live.notes;
+    }
+
+    // Read-only view of the current rows for a background task, taken in O(1). It shares the column
+    // arrays: appends only write past its size, and any other change copies the columns first, so
+    // its rows never change. Hand it over through an executor or similar, like any shared object.
+    public EntryStore snapshot() {
+        if (readOnly) return this;
+        shared = true;
+        return new EntryStore(this);
+    }
+
+    public boolean isSnapshot() { return readOnly; }
+    public EntryStore getOrigin() { return origin; }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public SymbolTable getSymbols() { return symbols; }
+
+    // Bumped whenever existing rows change or go away; pure appends leave it alone so derived
+    // indexes can catch up on the new tail instead of rebuilding
+    public int getVersion() { return version; }
+
+    // List view over the rows; structural changes through it update the columns
+    public List<DietEntry> rows() { return rows; }
+
+    public int getEpochDay(int row) { return epochDay[check(row)]; }
+    public LocalDate getDate(int row) { return LocalDate.ofEpochDay(epochDay[check(row)]); }
+    public double getCalories(int row) { return calories[check(row)]; }
+    public double getCarbs(int row) { return carbs[check(row)]; }
+    public double getProtein(int row) { return protein[check(row)]; }
+    public double getFat(int row) { return fat[check(row)]; }
+    public double getSodiumMg(int row) { return sodiumMg[check(row)]; }
+    public double getFiber(int row) { return fiber[check(row)]; }
+
+    public int getMealCode(int row) { return meal[check(row)]; }
+    public int getItemCode(int row) { return item[check(row)]; }
+    public int getQuantityCode(int row) { return quantity[check(row)]; }
+    public int getNotesCode(int row) { return notes[check(row)]; }
+
+    public String getMeal(int row) { return symbols.get(getMealCode(row)); }
+    public String getItem(int row) { return symbols.get(getItemCode(row)); }
+    public String getQuantityOrDuration(int row) { return symbols.get(getQuantityCode(row)); }
+    public String getNotes(int row) { return symbols.get(getNotesCode(row)); }
+
+    public DietEntry get(int row) {
+        check(row);
+        return new DietEntry(LocalDate.ofEpochDay(epochDay[row]),
+                symbols.get(meal[row]), symbols.get(item[row]), symbols.get(quantity[row]),
+                calories[row], carbs[row], protein[row], fat[row], sodiumMg[row], fiber[row],
+                symbols.get(notes[row]));
+    }
+
+    public void add(DietEntry e) {
+        insert(size, e);
+    }
+
+    public void addAll(Collection<? extends DietEntry> entries) {
+        checkWritable();
+        ensureCapacity(size + entries.size());
+        for (DietEntry e : entries) write(size++, e);
+    }
+
+    public void insert(int index, DietEntry e) {
+        checkWritable();
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        ensureCapacity(size + 1);
+        if (index < size) {
+            unshare();
+            shift(index, index + 1, size - index);
+            version++;
+        }
+        size++;
+        write(index, e);
+    }
+
+    public void set(int index, DietEntry e) {
+        checkWritable();
+        check(index);
+        unshare();
+        write(index, e);
+        version++;
+    }
+
+    public void remove(int index) {
+        removeRange(check(index), index + 1);
+    }
+
+    public void removeRange(int from, int to) {
+        checkWritable();
+        if (from < 0 || to > size || from > to) throw new IndexOutOfBoundsException("Range: " + from + ".." + to + ", size: " + size);
+        unshare();
+        shift(to, from, size - to);
+        size -= to - from;
+        version++;
+    }
+
+    // Drops all rows and starts a fresh dictionary, so codes of a previous import do not accumulate
+    public void clear() {
+        checkWritable();
+        size = 0;
+        version++;
+        symbols = new SymbolTable();
+        if (shared || epochDay.length > INITIAL_CAPACITY) {
+            shared = false;
+            epochDay = new int[INITIAL_CAPACITY];
+            calories = new double[INITIAL_CAPACITY];
+            carbs = new double[INITIAL_CAPACITY];
+            protein = new double[INITIAL_CAPACITY];
+            fat = new double[INITIAL_CAPACITY];
+            sodiumMg = new double[INITIAL_CAPACITY];
+            fiber = new double[INITIAL_CAPACITY];
+            meal = new int[INITIAL_CAPACITY];
+            item = new int[INITIAL_CAPACITY];
+            quantity = new int[INITIAL_CAPACITY];
+            notes = new int[INITIAL_CAPACITY];
+        }
+    }
+
+    // Drops the spare capacity appends leave behind (up to half the rows), e.g. once an import is done
+    public void trimToSize() {
+        checkWritable();
+        if (epochDay.length == size) return;
+        resize(size);
+    }
+
+    // Copies of the columns trimmed to the current size, e.g. for writing a snapshot
+    public Columns columns() {
+        Columns c = new Columns(size);
+        System.arraycopy(epochDay, 0, c.epochDay, 0, size);
+        System.arraycopy(calories, 0, c.calories, 0, size);
+        System.arraycopy(carbs, 0, c.carbs, 0, size);
+        System.arraycopy(protein, 0, c.protein, 0, size);
+        System.arraycopy(fat, 0, c.fat, 0, size);
+        System.arraycopy(sodiumMg, 0, c.sodiumMg, 0, size);
+        System.arraycopy(fiber, 0, c.fiber, 0, size);
+        System.arraycopy(meal, 0, c.meal, 0, size);
+        System.arraycopy(item, 0, c.item, 0, size);
+        System.arraycopy(quantity, 0, c.quantity, 0, size);
+        System.arraycopy(notes, 0, c.notes, 0, size);
+        return c;
+    }
+
+    // Replaces all rows with the given columns, whose codes refer to symbols. The arrays are adopted
+    // rather than copied, so the caller must not keep using them.
+    public void load(SymbolTable symbols, Columns c) {
+        checkWritable();
+        shared = false;
+        this.symbols = symbols;
+        epochDay = c.epochDay;
+        calories = c.calories;
+        carbs = c.carbs;
+        protein = c.protein;
+        fat = c.fat;
+        sodiumMg = c.sodiumMg;
+        fiber = c.fiber;
+        meal = c.meal;
+        item = c.item;
+        quantity = c.quantity;
+        notes = c.notes;
+        size = c.size;
+        version++;
+    }
+
+    // One array per field, exactly size long
+    public static final class Columns {
+        public final int size;
+        public final int[] epochDay;
+        public final double[] calories;
+        public final double[] carbs;
+        public final double[] protein;
+        public final double[] fat;
+        public final double[] sodiumMg;
+        public final double[] fiber;
+        public final int[] meal;
+        public final int[] item;
+        public final int[] quantity;
+        public final int[] notes;
+
+        public Columns(int size) {
+            this.size = size;
+            epochDay = new int[size];
+            calories = new double[size];
+            carbs = new double[size];
+            protein = new double[size];
+            fat = new double[size];
+            sodiumMg = new double[size];
+            fiber = new double[size];
+            meal = new int[size];
+            item = new int[size];
+            quantity = new int[size];
+            notes = new int[size];
+        }
+    }
+
+    private void write(int row, DietEntry e) {
+        epochDay[row] = Math.toIntExact(e.getDate().toEpochDay());
+        calories[row] = e.getCalories();
+        carbs[row] = e.getCarbs();
+        protein[row] = e.getProtein();
+        fat[row] = e.getFat();
+        sodiumMg[row] = e.getSodiumMg();
+        fiber[row] = e.getFiber();
+        meal[row] = symbols.intern(e.getMeal());
+        item[row] = symbols.intern(e.getItem());
+        quantity[row] = symbols.intern(e.getQuantityOrDuration());
+        notes[row] = symbols.intern(e.getNotes());
+    }
+
+    private void shift(int src, int dst, int len) {
+        System.arraycopy(epochDay, src, epochDay, dst, len);
+        System.arraycopy(calories, src, calories, dst, len);
+        System.arraycopy(carbs, src, carbs, dst, len);
+        System.arraycopy(protein, src, protein, dst, len);
+        System.arraycopy(fat, src, fat, dst, len);
+        System.arraycopy(sodiumMg, src, sodiumMg, dst, len);
+        System.arraycopy(fiber, src, fiber, dst, len);
+        System.arraycopy(meal, src, meal, dst, len);
+        System.arraycopy(item, src, item, dst, len);
+        System.arraycopy(quantity, src, quantity, dst, len);
+        System.arraycopy(notes, src, notes, dst, len);
+    }
+
+    // Gives the store columns of its own before existing rows are overwritten
+    private void unshare() {
+        if (shared) resize(epochDay.length);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= epochDay.length) return;
+        resize(Math.max(needed, epochDay.length + (epochDay.length >> 1)));
+    }
+
+    // Fresh arrays, so a snapshot sharing the old ones keeps them as they are
+    private void resize(int cap) {
+        shared = false;
+        epochDay = Arrays.copyOf(epochDay, cap);
+        calories = Arrays.copyOf(calories, cap);
+        carbs = Arrays.copyOf(carbs, cap);
+        protein = Arrays.copyOf(protein, cap);
+        fat = Arrays.copyOf(fat, cap);
+        sodiumMg = Arrays.copyOf(sodiumMg, cap);
+        fiber = Arrays.copyOf(fiber, cap);
+        meal = Arrays.copyOf(meal, cap);
+        item = Arrays.copyOf(item, cap);
+        quantity = Arrays.copyOf(quantity, cap);
+        notes = Arrays.copyOf(notes, cap);
+    }
+
+    private void checkWritable() {
+        if (readOnly) throw new UnsupportedOperationException("Snapshots are read-only.");
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+        return row;
+    }
+
+    private final class RowList extends AbstractList<DietEntry> implements RandomAccess {
+        @Override public DietEntry get(int index) { return EntryStore.this.get(index); }
+        @Override public int size() { return size; }
+
+        @Override
+        public DietEntry set(int index, DietEntry e) {
+            DietEntry old = EntryStore.this.get(index);
+            EntryStore.this.set(index, e);
+            return old;
+        }
+
+        @Override
+        public void add(int index, DietEntry e) {
+            insert(index, e);
+            modCount++;
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends DietEntry> c) {
+            if (index == size) {
+                EntryStore.this.addAll(c);
+                modCount++;
+                return !c.isEmpty();
+            }
+            return super.addAll(index, c);
+        }
+
+        @Override
+        public DietEntry remove(int index) {
+            DietEntry old = EntryStore.this.get(index);
+            EntryStore.this.remove(index);
+            modCount++;
+            return old;
+        }
+
+        @Override
+        protected void removeRange(int from, int to) {
+            EntryStore.this.removeRange(from, to);
+            modCount++;
+        }
+
+        @Override
+        public void clear() {
+            EntryStore.this.clear();
+            modCount++;
+        }
+    }
+}
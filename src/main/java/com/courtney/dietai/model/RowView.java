@@ -0,0 +1,244 @@
+package com.courtney.dietai.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntBinaryOperator;
+import javafx.collections.ObservableListBase;
+
+// Observable list of EntryStore row ids for a TableView: either all rows [0, n), which costs nothing
+// per row, or an ascending subset held in an int[]. Cells read the columns by row id, so no DietEntry
+// objects exist for rows that are not on screen. Content changes are reported as add/remove runs,
+// and sorting as a permutation of the display order.
+public class RowView extends ObservableListBase<Integer> implements RandomAccess {
+    private static final int[] NO_ROWS = new int[0];
+
+    private final boolean allRows;
+    private int[] rows = NO_ROWS; // ascending; unused when allRows
+    private int size;
+
+    // Display order while sorted, otherwise null
+    private IntBinaryOperator order;
+    private int[] sorted;
+
+    private RowView(boolean allRows) {
+        this.allRows = allRows;
+    }
+
+    public static RowView allRows() {
+        return new RowView(true);
+    }
+
+    public static RowView subset() {
+        return new RowView(false);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return row(index);
+    }
+
+    public int row(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        if (sorted != null) return sorted[index];
+        return allRows ? index : rows[index];
+    }
+
+    @Override
+    public int size() { return size; }
+
+    // Ascending copy of the rows in the view
+    public int[] toRowArray() {
+        if (!allRows) return Arrays.copyOf(rows, size);
+        int[] out = new int[size];
+        for (int i = 0; i < size; i++) out[i] = i;
+        return out;
+    }
+
+    // All-rows view: rows [size, count) were appended to the store
+    public void extendTo(int count) {
+        if (!allRows) throw new IllegalStateException("Not an all-rows view.");
+        if (count <= size) return;
+        int from = size;
+        if (sorted != null) {
+            sorted = Arrays.copyOf(sorted, count);
+            for (int i = from; i < count; i++) sorted[i] = i;
+        }
+        size = count;
+        beginChange();
+        nextAdd(from, count);
+        endChange();
+    }
+
+    // Subset view: appends rows greater than any row already present. While sorted they are shown
+    // at the end until the next sort.
+    public void append(int[] newRows) {
+        if (allRows) throw new IllegalStateException("Not a subset view.");
+        if (newRows.length == 0) return;
+        int from = size;
+        rows = concat(rows, size, newRows);
+        if (sorted != null) sorted = concat(sorted, from, newRows);
+        size += newRows.length;
+        beginChange();
+        nextAdd(from, size);
+        endChange();
+    }
+
+    // Subset view: brings the content to the given ascending rows, reporting only the runs that
+    // differ, so listeners such as a live summary see O(changed rows) of work
+    public void show(int[] newRows) {
+        if (allRows) throw new IllegalStateException("Not a subset view.");
+        int[] old = rows;
+        int oldSize = size;
+        if (sorted != null) {
+            replaceSorted(newRows);
+            return;
+        }
+        rows = newRows;
+        size = newRows.length;
+
+        beginChange();
+        int pos = 0, i = 0, j = 0;
+        while (i < oldSize || j < newRows.length) {
+            if (i < oldSize && j < newRows.length && old[i] == newRows[j]) {
+                pos++; i++; j++;
+            } else if (j >= newRows.length || (i < oldSize && old[i] < newRows[j])) {
+                int start = i;
+                while (i < oldSize && (j >= newRows.length || old[i] < newRows[j])) i++;
+                nextRemove(pos, ids(old, start, i));
+            } else {
+                int start = j;
+                while (j < newRows.length && (i >= oldSize || newRows[j] < old[i])) j++;
+                nextAdd(pos, pos + (j - start));
+                pos += j - start;
+            }
+        }
+        endChange();
+    }
+
+    // Empties the view; an all-rows view then grows again from row 0
+    public void clear() {
+        if (size == 0) return;
+        List<Integer> removed = allRows && sorted == null ? range(size) : ids(display(), 0, size);
+        rows = NO_ROWS;
+        sorted = sorted == null ? null : NO_ROWS;
+        size = 0;
+        beginChange();
+        nextRemove(0, removed);
+        endChange();
+    }
+
+    // Reorders the display with the given row comparator (stable), or restores row order for null
+    public void sortBy(IntBinaryOperator comparator) {
+        if (comparator == null && order == null) return;
+        int[] before = display();
+        int[] after = toRowArray();
+        if (comparator != null) mergeSort(after, comparator);
+        order = comparator;
+        sorted = comparator == null ? null : after;
+        if (size == 0) return;
+
+        // perm[old display index] = new display index
+        int[] newIndexByBase = new int[size];
+        for (int k = 0; k < size; k++) newIndexByBase[basePosition(after[k])] = k;
+        int[] perm = new int[size];
+        for (int k = 0; k < size; k++) perm[k] = newIndexByBase[basePosition(before[k])];
+        beginChange();
+        nextPermutation(0, size, perm);
+        endChange();
+    }
+
+    // Both displays are in comparator order with ties by row id, so one merge pass finds the runs
+    // that left or joined. Rows appended while sorted sit out of order at the end; once the two
+    // orders disagree the rest is replaced.
+    private void replaceSorted(int[] newRows) {
+        int[] oldRows = rows, old = sorted;
+        int oldSize = size;
+        int[] next = Arrays.copyOf(newRows, newRows.length);
+        mergeSort(next, order);
+        rows = newRows;
+        sorted = next;
+        size = next.length;
+
+        beginChange();
+        int pos = 0, i = 0, j = 0;
+        while (i < oldSize || j < next.length) {
+            if (i < oldSize && j < next.length && old[i] == next[j]) {
+                pos++; i++; j++;
+            } else if (i < oldSize && !contains(newRows, newRows.length, old[i])) {
+                int start = i;
+                while (i < oldSize && !contains(newRows, newRows.length, old[i])) i++;
+                nextRemove(pos, ids(old, start, i));
+            } else if (j < next.length && !contains(oldRows, oldSize, next[j])) {
+                int start = j;
+                while (j < next.length && !contains(oldRows, oldSize, next[j])) j++;
+                nextAdd(pos, pos + (j - start));
+                pos += j - start;
+            } else {
+                nextRemove(pos, ids(old, i, oldSize));
+                nextAdd(pos, pos + (next.length - j));
+                break;
+            }
+        }
+        endChange();
+    }
+
+    private static boolean contains(int[] ascending, int n, int row) {
+        return Arrays.binarySearch(ascending, 0, n, row) >= 0;
+    }
+
+    private int[] display() {
+        return sorted != null ? sorted : toRowArray();
+    }
+
+    private int basePosition(int row) {
+        return allRows ? row : Arrays.binarySearch(rows, 0, size, row);
+    }
+
+    private static int[] concat(int[] a, int aSize, int[] b) {
+        int[] out = Arrays.copyOf(a, aSize + b.length);
+        System.arraycopy(b, 0, out, aSize, b.length);
+        return out;
+    }
+
+    private static void mergeSort(int[] a, IntBinaryOperator comparator) {
+        int[] buf = new int[a.length];
+        for (int width = 1; width < a.length; width *= 2) {
+            for (int lo = 0; lo < a.length - width; lo += 2 * width) {
+                int mid = lo + width, hi = Math.min(lo + 2 * width, a.length);
+                if (comparator.applyAsInt(a[mid - 1], a[mid]) <= 0) continue;
+                System.arraycopy(a, lo, buf, lo, hi - lo);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) a[k++] = comparator.applyAsInt(buf[j], buf[i]) < 0 ? buf[j++] : buf[i++];
+                while (i < mid) a[k++] = buf[i++];
+                while (j < hi) a[k++] = buf[j++];
+            }
+        }
+    }
+
+    private static List<Integer> ids(int[] values, int from, int to) {
+        return new IdList(values, from, to);
+    }
+
+    private static List<Integer> range(int n) {
+        return new AbstractList<>() {
+            @Override public Integer get(int index) { return index; }
+            @Override public int size() { return n; }
+        };
+    }
+
+    private static final class IdList extends AbstractList<Integer> implements RandomAccess {
+        private final int[] values;
+        private final int from, to;
+
+        IdList(int[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override public Integer get(int index) { return values[from + index]; }
+        @Override public int size() { return to - from; }
+    }
+}
@@ -0,0 +1,50 @@
+package com.courtney.dietai.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dictionary for repeated strings (meals, items, quantities, notes). Each distinct value is stored once
+// and referred to by a dense int code, so equal strings compare as equal codes. Lookups are lock-free;
+// new values are appended under a lock so parallel import chunks can share one table.
+public class SymbolTable {
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64];
+    private volatile int size;
+
+    public int intern(String s) {
+        String v = s == null ? "" : s;
+        Integer code = codes.get(v);
+        if (code != null) return code;
+        synchronized (this) {
+            code = codes.get(v);
+            if (code != null) return code;
+            int next = size;
+            String[] vals = values;
+            if (next == vals.length) vals = Arrays.copyOf(vals, next * 2);
+            vals[next] = v;
+            values = vals;
+            size = next + 1;
+            codes.put(v, next);
+            return next;
+        }
+    }
+
+    // The shared instance equal to s, so repeated values do not keep separate copies alive
+    public String canonical(String s) {
+        return get(intern(s));
+    }
+
+    // Code of an already interned value, or -1
+    public int find(String s) {
+        Integer code = codes.get(s == null ? "" : s);
+        return code == null ? -1 : code;
+    }
+
+    public String get(int code) {
+        if (code < 0 || code >= size) throw new IndexOutOfBoundsException("Symbol: " + code + ", size: " + size);
+        return values[code];
+    }
+
+    public int size() { return size; }
+}
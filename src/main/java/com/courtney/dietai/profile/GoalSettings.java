@@ -10,6 +10,18 @@ public class GoalSettings {
     private double fiberTargetG = -1;  // <=0 means auto by calories
     private double sodiumTargetMg = -1; // <=0 means default
 
+    // Detached copy for background work while the dialog may edit this one
+    public GoalSettings copy() {
+        GoalSettings g = new GoalSettings();
+        g.mode = mode;
+        g.weeklyRateKg = weeklyRateKg;
+        g.proteinPerKg = proteinPerKg;
+        g.fatPerKg = fatPerKg;
+        g.fiberTargetG = fiberTargetG;
+        g.sodiumTargetMg = sodiumTargetMg;
+        return g;
+    }
+
     public GoalMode getMode() { return mode; }
     public void setMode(GoalMode mode) { this.mode = mode; }
 
@@ -18,6 +18,17 @@ public class UserProfile {
     private double heightCm = 170;
     private ActivityLevel activityLevel = ActivityLevel.SEDENTARY;
 
+    // Detached copy for background work while the dialog may edit this one
+    public UserProfile copy() {
+        UserProfile p = new UserProfile();
+        p.age = age;
+        p.sex = sex;
+        p.weightKg = weightKg;
+        p.heightCm = heightCm;
+        p.activityLevel = activityLevel;
+        return p;
+    }
+
     public int getAge() { return age; }
     public void setAge(int age) { this.age = age; }
 
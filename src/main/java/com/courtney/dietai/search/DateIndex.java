@@ -0,0 +1,139 @@
+package com.courtney.dietai.search;
+
+import com.courtney.dietai.model.EntryStore;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Rows of an EntryStore ordered by day (ties by row), with the epoch days in a sorted primitive
+// array so a [from, to] range is two binary searches. Logs are normally exported in date order;
+// while the store stays ordered the permutation is the identity and a range is a plain row slice.
+// Kept in step with the store, or snapshots of it, by update(): in-order appends extend it,
+// anything else rebuilds.
+public class DateIndex {
+    private static final int INITIAL_CAPACITY = 256;
+    // The counting sort is used while the day span is within this many days per row; one far-off
+    // date (a typo'd year) would otherwise allocate a count per day across centuries
+    private static final int DENSE_DAYS_PER_ROW = 4;
+
+    private int[] days = new int[INITIAL_CAPACITY];
+    // Row at each sorted position; null while that is the identity
+    private int[] order;
+
+    private EntryStore source;
+    private int sourceVersion;
+    private int rowsCovered;
+
+    public void update(EntryStore store) {
+        update(store, store.size());
+    }
+
+    // Covers only the first rowCount rows (see DailyRollup.update)
+    public void update(EntryStore store, int rowCount) {
+        if (store.getOrigin() != source || store.getVersion() != sourceVersion || rowCount < rowsCovered) {
+            rebuild(store, rowCount);
+            return;
+        }
+        int last = rowsCovered > 0 ? days[rowsCovered - 1] : Integer.MIN_VALUE;
+        for (int row = rowsCovered; row < rowCount; row++) {
+            int day = store.getEpochDay(row);
+            if (day < last) {
+                rebuild(store, rowCount);
+                return;
+            }
+            last = day;
+        }
+        ensureCapacity(rowCount);
+        for (int row = rowsCovered; row < rowCount; row++) {
+            days[row] = store.getEpochDay(row);
+            if (order != null) order[row] = row;
+        }
+        rowsCovered = rowCount;
+    }
+
+    // True when row order is date order, so ascending rows are also ascending days
+    public boolean isOrdered() { return order == null; }
+
+    // Number of rows within [from, to]; null bounds are open
+    public int count(LocalDate from, LocalDate to) {
+        return Math.max(0, upper(to) - lower(from));
+    }
+
+    // Ascending rows in [fromRow, toRow) dated within [from, to]
+    public int[] rows(LocalDate from, LocalDate to, int fromRow, int toRow) {
+        int lo = lower(from), hi = upper(to);
+        if (order == null) {
+            int start = Math.max(lo, fromRow), end = Math.min(hi, toRow);
+            int[] out = new int[Math.max(0, end - start)];
+            for (int k = 0; k < out.length; k++) out[k] = start + k;
+            return out;
+        }
+        int[] out = new int[Math.max(0, hi - lo)];
+        int n = 0;
+        for (int k = lo; k < hi; k++) {
+            int row = order[k];
+            if (row >= fromRow && row < toRow) out[n++] = row;
+        }
+        out = Arrays.copyOf(out, n);
+        Arrays.sort(out);
+        return out;
+    }
+
+    private int lower(LocalDate from) {
+        return from == null ? 0 : lowerBound(from.toEpochDay());
+    }
+
+    private int upper(LocalDate to) {
+        return to == null ? rowsCovered : lowerBound(to.toEpochDay() + 1);
+    }
+
+    private int lowerBound(long epochDay) {
+        int lo = 0, hi = rowsCovered;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < epochDay) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private void rebuild(EntryStore store, int rowCount) {
+        source = store.getOrigin();
+        sourceVersion = store.getVersion();
+        rowsCovered = rowCount;
+        order = null;
+        ensureCapacity(rowCount);
+
+        int minDay = Integer.MAX_VALUE, maxDay = Integer.MIN_VALUE;
+        boolean sorted = true;
+        for (int row = 0; row < rowCount; row++) {
+            int day = store.getEpochDay(row);
+            if (row > 0 && day < days[row - 1]) sorted = false;
+            days[row] = day;
+            if (day < minDay) minDay = day;
+            if (day > maxDay) maxDay = day;
+        }
+        if (sorted) return;
+
+        // Stable counting sort by day offset when the span is dense enough, otherwise sort (day, row) pairs
+        int[] sortedRows = new int[days.length];
+        if ((long) maxDay - minDay < (long) DENSE_DAYS_PER_ROW * rowCount) {
+            int[] starts = new int[maxDay - minDay + 2];
+            for (int row = 0; row < rowCount; row++) starts[days[row] - minDay + 1]++;
+            for (int i = 1; i < starts.length; i++) starts[i] += starts[i - 1];
+            for (int row = 0; row < rowCount; row++) sortedRows[starts[days[row] - minDay]++] = row;
+        } else {
+            long[] keys = new long[rowCount];
+            for (int row = 0; row < rowCount; row++) keys[row] = ((long) days[row] << 32) | row;
+            Arrays.sort(keys);
+            for (int k = 0; k < rowCount; k++) sortedRows[k] = (int) keys[k];
+        }
+        for (int k = 0; k < rowCount; k++) days[k] = store.getEpochDay(sortedRows[k]);
+        order = sortedRows;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= days.length) return;
+        int cap = Math.max(needed, days.length + (days.length >> 1));
+        days = Arrays.copyOf(days, cap);
+        if (order != null) order = Arrays.copyOf(order, cap);
+    }
+}
@@ -0,0 +1,198 @@
+package com.courtney.dietai.search;
+
+import com.courtney.dietai.model.EntryStore;
+import com.courtney.dietai.search.FilterQuery.Comparison;
+import com.courtney.dietai.search.FilterQuery.TextTerm;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+// A FilterQuery combined with the date pickers, executed against an EntryStore in three steps:
+// candidate rows come from the date or text index (whichever is most selective drives), the remaining
+// terms and the date range are checked by symbol code and epoch day, and numeric comparisons run
+// last as one pass per column over the surviving rows. Passes check the thread's interrupt flag
+// between blocks, so a cancelled filter task stops early with a CancellationException.
+public class FilterPlan {
+    private static final int BLOCK = 1 << 16;
+
+    private final FilterQuery query;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    private FilterPlan(FilterQuery query, LocalDate from, LocalDate to) {
+        this.query = query;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static FilterPlan compile(String text, LocalDate from, LocalDate to) {
+        return compile(FilterQuery.parse(text), from, to);
+    }
+
+    public static FilterPlan compile(FilterQuery query, LocalDate from, LocalDate to) {
+        LocalDate lo = later(from, query.getFrom());
+        LocalDate hi = earlier(to, query.getTo());
+        return new FilterPlan(query, lo, hi);
+    }
+
+    public static FilterPlan all() {
+        return new FilterPlan(new FilterQuery(), null, null);
+    }
+
+    // Effective date bounds (null = open)
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+
+    public boolean isEmpty() {
+        return from == null && to == null && query.getTerms().isEmpty() && query.getComparisons().isEmpty();
+    }
+
+    // True when only a date range applies, so per-day rollups can answer it
+    public boolean isDateOnly() {
+        return query.getTerms().isEmpty() && query.getComparisons().isEmpty();
+    }
+
+    // Ascending matching rows in [fromRow, toRow); both indexes must cover toRow
+    public int[] execute(EntryStore store, TextIndex index, DateIndex dates, int fromRow, int toRow) {
+        if (from != null && to != null && from.isAfter(to)) return new int[0];
+        List<TextTerm> terms = query.getTerms();
+
+        // Symbol masks per term; the one with the fewest postings supplies the candidates
+        boolean[][] masks = new boolean[terms.size()][];
+        int driver = -1;
+        long best = Long.MAX_VALUE;
+        for (int t = 0; t < terms.size(); t++) {
+            masks[t] = index.matchingSymbols(terms.get(t).getText());
+            long estimate = index.postingCount(masks[t]);
+            if (estimate < best) { best = estimate; driver = t; }
+        }
+
+        // A short range (e.g. a freshly imported batch) is cheaper to scan than either index
+        boolean dated = from != null || to != null;
+        long dateCount = dated ? dates.count(from, to) : Long.MAX_VALUE;
+        long cheapest = Math.min(best, dateCount);
+        boolean byDate = dateCount <= best && cheapest <= toRow - fromRow;
+        if (byDate || cheapest > toRow - fromRow) driver = -1;
+
+        int[] rows;
+        int n;
+        if (byDate) {
+            rows = dates.rows(from, to, fromRow, toRow);
+            n = rows.length;
+        } else if (driver >= 0) {
+            rows = index.rows(masks[driver], fromRow, toRow);
+            n = rows.length;
+        } else {
+            n = toRow - fromRow;
+            rows = new int[n];
+            for (int k = 0; k < n; k++) rows[k] = fromRow + k;
+        }
+
+        // Text terms and dates, checked on codes and days only
+        long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        if (dated && !byDate) {
+            int kept = 0;
+            for (int lo = 0; lo < n; lo += BLOCK) {
+                checkInterrupted();
+                for (int k = lo, hi = Math.min(n, lo + BLOCK); k < hi; k++) {
+                    int day = store.getEpochDay(rows[k]);
+                    if (day >= fromDay && day <= toDay) rows[kept++] = rows[k];
+                }
+            }
+            n = kept;
+        }
+        for (int t = 0; t < terms.size(); t++) {
+            TextTerm term = terms.get(t);
+            // The driver's rows already match when it spans all text columns
+            if (t == driver && term.getField() == FilterQuery.TextField.ANY) continue;
+            n = retainText(store, term.getField(), masks[t], rows, n);
+        }
+
+        for (Comparison c : query.getComparisons()) {
+            n = retainComparison(column(store, c.getField()), c.getOp(), c.getValue(), rows, n);
+        }
+        return n == rows.length ? rows : Arrays.copyOf(rows, n);
+    }
+
+    private static int retainText(EntryStore store, FilterQuery.TextField field, boolean[] mask, int[] rows, int n) {
+        int kept = 0;
+        if (field == FilterQuery.TextField.ANY) {
+            for (int lo = 0; lo < n; lo += BLOCK) {
+                checkInterrupted();
+                for (int k = lo, hi = Math.min(n, lo + BLOCK); k < hi; k++) {
+                    int row = rows[k];
+                    if (matches(mask, store.getItemCode(row)) || matches(mask, store.getMealCode(row))
+                            || matches(mask, store.getNotesCode(row))) rows[kept++] = row;
+                }
+            }
+            return kept;
+        }
+        IntUnaryOperator codes = codes(store, field);
+        for (int lo = 0; lo < n; lo += BLOCK) {
+            checkInterrupted();
+            for (int k = lo, hi = Math.min(n, lo + BLOCK); k < hi; k++) {
+                if (matches(mask, codes.applyAsInt(rows[k]))) rows[kept++] = rows[k];
+            }
+        }
+        return kept;
+    }
+
+    // One tight loop per operator so the comparison is not re-dispatched per row
+    private static int retainComparison(IntToDoubleFunction column, FilterQuery.Op op, double v, int[] rows, int n) {
+        int kept = 0;
+        for (int lo = 0; lo < n; lo += BLOCK) {
+            checkInterrupted();
+            int hi = Math.min(n, lo + BLOCK);
+            switch (op) {
+                case GT: for (int k = lo; k < hi; k++) if (column.applyAsDouble(rows[k]) > v) rows[kept++] = rows[k]; break;
+                case GE: for (int k = lo; k < hi; k++) if (column.applyAsDouble(rows[k]) >= v) rows[kept++] = rows[k]; break;
+                case LT: for (int k = lo; k < hi; k++) if (column.applyAsDouble(rows[k]) < v) rows[kept++] = rows[k]; break;
+                case LE: for (int k = lo; k < hi; k++) if (column.applyAsDouble(rows[k]) <= v) rows[kept++] = rows[k]; break;
+                default: for (int k = lo; k < hi; k++) if (column.applyAsDouble(rows[k]) == v) rows[kept++] = rows[k];
+            }
+        }
+        return kept;
+    }
+
+    // Leaves the flag set so the caller's task still sees the interrupt
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException("Filter cancelled.");
+    }
+
+    private static boolean matches(boolean[] mask, int code) {
+        return code < mask.length && mask[code];
+    }
+
+    private static IntUnaryOperator codes(EntryStore store, FilterQuery.TextField field) {
+        switch (field) {
+            case ITEM: return store::getItemCode;
+            case MEAL: return store::getMealCode;
+            default: return store::getNotesCode;
+        }
+    }
+
+    private static IntToDoubleFunction column(EntryStore store, FilterQuery.NumericField field) {
+        switch (field) {
+            case CALORIES: return store::getCalories;
+            case CARBS: return store::getCarbs;
+            case PROTEIN: return store::getProtein;
+            case FAT: return store::getFat;
+            case SODIUM: return store::getSodiumMg;
+            default: return store::getFiber;
+        }
+    }
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        if (a == null) return b;
+        return b == null || a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate earlier(LocalDate a, LocalDate b) {
+        if (a == null) return b;
+        return b == null || a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,213 @@
+package com.courtney.dietai.search;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Parsed form of the search box text. All terms must match:
+//   greek "greek yogurt"          substring of item, meal or notes
+//   meal:dinner item:"oat milk"   substring of one text column
+//   calories>600 sodium>=1000     numeric comparison (>, >=, <, <=, = or :), or a range fiber:5..10
+//   date:2025-08..2025-09         date or range; a year or month covers all its days, ends may be open
+// A word whose prefix is not a known field (e.g. 12:30) is plain text.
+public class FilterQuery {
+    private static final Pattern FIELD = Pattern.compile("([a-z]+)(>=|<=|>|<|=|:)(.*)");
+
+    public enum TextField { ANY, ITEM, MEAL, NOTES }
+
+    public enum NumericField { CALORIES, CARBS, PROTEIN, FAT, SODIUM, FIBER }
+
+    public enum Op { GT, GE, LT, LE, EQ }
+
+    public static final class TextTerm {
+        private final TextField field;
+        private final String text;
+
+        TextTerm(TextField field, String text) {
+            this.field = field;
+            this.text = text;
+        }
+
+        public TextField getField() { return field; }
+        public String getText() { return text; }
+    }
+
+    public static final class Comparison {
+        private final NumericField field;
+        private final Op op;
+        private final double value;
+
+        Comparison(NumericField field, Op op, double value) {
+            this.field = field;
+            this.op = op;
+            this.value = value;
+        }
+
+        public NumericField getField() { return field; }
+        public Op getOp() { return op; }
+        public double getValue() { return value; }
+    }
+
+    private final List<TextTerm> terms = new ArrayList<>();
+    private final List<Comparison> comparisons = new ArrayList<>();
+    private LocalDate from;
+    private LocalDate to;
+
+    public List<TextTerm> getTerms() { return Collections.unmodifiableList(terms); }
+    public List<Comparison> getComparisons() { return Collections.unmodifiableList(comparisons); }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+
+    public boolean isEmpty() {
+        return terms.isEmpty() && comparisons.isEmpty() && from == null && to == null;
+    }
+
+    // Throws IllegalArgumentException with a user-facing message when the text is malformed
+    public static FilterQuery parse(String text) {
+        FilterQuery q = new FilterQuery();
+        String s = text == null ? "" : text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < s.length()) {
+            if (Character.isWhitespace(s.charAt(i))) { i++; continue; }
+            StringBuilder token = new StringBuilder();
+            boolean quotedStart = s.charAt(i) == '"';
+            boolean inQuote = false;
+            for (; i < s.length() && (inQuote || !Character.isWhitespace(s.charAt(i))); i++) {
+                char c = s.charAt(i);
+                if (c == '"') inQuote = !inQuote;
+                else token.append(c);
+            }
+            if (inQuote) throw new IllegalArgumentException("Unclosed quote in filter.");
+            q.addToken(token.toString(), quotedStart);
+        }
+        return q;
+    }
+
+    private void addToken(String token, boolean quoted) {
+        Matcher m = quoted ? null : FIELD.matcher(token);
+        if (m == null || !m.matches() || !isField(m.group(1))) {
+            if (!token.isEmpty()) terms.add(new TextTerm(TextField.ANY, token));
+            return;
+        }
+        String name = m.group(1);
+        String op = m.group(2);
+        String value = m.group(3);
+        if (value.isEmpty()) throw new IllegalArgumentException("Missing value for " + name + ".");
+
+        if (name.equals("date")) {
+            addDate(op, value);
+        } else if (isTextField(name)) {
+            if (!op.equals(":")) throw new IllegalArgumentException(name + " only supports ':'.");
+            terms.add(new TextTerm(TextField.valueOf(name.toUpperCase(Locale.ROOT)), value));
+        } else {
+            addNumeric(numericField(name), op, value);
+        }
+    }
+
+    private void addNumeric(NumericField field, String op, String value) {
+        int dots = value.indexOf("..");
+        if (dots >= 0 && op.equals(":")) {
+            String lo = value.substring(0, dots), hi = value.substring(dots + 2);
+            if (!lo.isEmpty()) comparisons.add(new Comparison(field, Op.GE, number(lo)));
+            if (!hi.isEmpty()) comparisons.add(new Comparison(field, Op.LE, number(hi)));
+            return;
+        }
+        comparisons.add(new Comparison(field, op(op), number(value)));
+    }
+
+    private void addDate(String op, String value) {
+        int dots = value.indexOf("..");
+        if (dots >= 0 && op.equals(":")) {
+            String lo = value.substring(0, dots), hi = value.substring(dots + 2);
+            if (!lo.isEmpty()) narrow(dateStart(lo), null);
+            if (!hi.isEmpty()) narrow(null, dateEnd(hi));
+            return;
+        }
+        switch (op(op)) {
+            case GT: narrow(dateEnd(value).plusDays(1), null); break;
+            case GE: narrow(dateStart(value), null); break;
+            case LT: narrow(null, dateStart(value).minusDays(1)); break;
+            case LE: narrow(null, dateEnd(value)); break;
+            default: narrow(dateStart(value), dateEnd(value));
+        }
+    }
+
+    private void narrow(LocalDate start, LocalDate end) {
+        if (start != null && (from == null || start.isAfter(from))) from = start;
+        if (end != null && (to == null || end.isBefore(to))) to = end;
+    }
+
+    private static Op op(String op) {
+        switch (op) {
+            case ">": return Op.GT;
+            case ">=": return Op.GE;
+            case "<": return Op.LT;
+            case "<=": return Op.LE;
+            default: return Op.EQ;
+        }
+    }
+
+    private static double number(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    // A year, month or day, as its first and last day
+    private static LocalDate dateStart(String value) {
+        return dateBounds(value)[0];
+    }
+
+    private static LocalDate dateEnd(String value) {
+        return dateBounds(value)[1];
+    }
+
+    private static LocalDate[] dateBounds(String value) {
+        try {
+            switch (value.length()) {
+                case 4: {
+                    int year = Integer.parseInt(value);
+                    return new LocalDate[] {LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31)};
+                }
+                case 7: {
+                    YearMonth month = YearMonth.parse(value);
+                    return new LocalDate[] {month.atDay(1), month.atEndOfMonth()};
+                }
+                default: {
+                    LocalDate day = LocalDate.parse(value);
+                    return new LocalDate[] {day, day};
+                }
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Not a date: " + value + " (use yyyy, yyyy-MM or yyyy-MM-dd)");
+        }
+    }
+
+    private static boolean isField(String name) {
+        return name.equals("date") || isTextField(name) || numericField(name) != null;
+    }
+
+    private static boolean isTextField(String name) {
+        return name.equals("item") || name.equals("meal") || name.equals("notes");
+    }
+
+    private static NumericField numericField(String name) {
+        switch (name) {
+            case "calories": case "kcal": return NumericField.CALORIES;
+            case "carbs": return NumericField.CARBS;
+            case "protein": return NumericField.PROTEIN;
+            case "fat": return NumericField.FAT;
+            case "sodium": return NumericField.SODIUM;
+            case "fiber": return NumericField.FIBER;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.courtney.dietai.search;
+
+import com.courtney.dietai.model.EntryStore;
+import com.courtney.dietai.model.SymbolTable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Inverted index for the substring search over item, meal and notes. Each distinct string is
+// lowercased once and its trigrams point at the symbol codes containing them; each symbol in turn
+// has a posting list of the rows using it. A query intersects the trigram postings, verifies only
+// the candidate strings, and unions their row postings, so no row text is touched per search.
+// Kept in step with the store, or snapshots of it, by update(): appended rows are indexed,
+// anything else rebuilds.
+public class TextIndex {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Per symbol code; null when the symbol is not used in a searchable column
+    private String[] lower = new String[INITIAL_CAPACITY];
+    private int[][] rowPostings = new int[INITIAL_CAPACITY][];
+    private int[] rowPostingSizes = new int[INITIAL_CAPACITY];
+
+    private final Map<Long, IntList> trigrams = new HashMap<>();
+
+    private EntryStore source;
+    private SymbolTable sourceSymbols;
+    private int sourceVersion;
+    private int rowsCovered;
+
+    public void update(EntryStore store) {
+        update(store, store.size());
+    }
+
+    // Covers only the first rowCount rows (see DailyRollup.update)
+    public void update(EntryStore store, int rowCount) {
+        if (store.getOrigin() != source || store.getSymbols() != sourceSymbols
+                || store.getVersion() != sourceVersion || rowCount < rowsCovered) {
+            clear();
+            source = store.getOrigin();
+            sourceSymbols = store.getSymbols();
+            sourceVersion = store.getVersion();
+        }
+        int n = rowCount;
+        for (int row = rowsCovered; row < n; row++) {
+            addRow(store.getItemCode(row), row);
+            addRow(store.getMealCode(row), row);
+            addRow(store.getNotesCode(row), row);
+        }
+        rowsCovered = n;
+    }
+
+    // Marks the symbol codes whose text contains the query; the query must already be lowercased (Locale.ROOT)
+    public boolean[] matchingSymbols(String query) {
+        boolean[] out = new boolean[lower.length];
+        if (query.length() < 3) {
+            for (int code = 0; code < lower.length; code++) {
+                out[code] = lower[code] != null && lower[code].contains(query);
+            }
+            return out;
+        }
+        IntList candidates = null;
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            IntList postings = trigrams.get(trigram(query, i));
+            if (postings == null) return out;
+            if (candidates == null || postings.size < candidates.size) candidates = postings;
+        }
+        // Verifying the shortest posting list is cheaper than intersecting the rest
+        for (int k = 0; k < candidates.size; k++) {
+            int code = candidates.values[k];
+            if (lower[code].contains(query)) out[code] = true;
+        }
+        return out;
+    }
+
+    // Ascending rows in [fromRow, toRow) whose item, meal or notes contain the query
+    public int[] search(String query, int fromRow, int toRow) {
+        return rows(matchingSymbols(query), fromRow, toRow);
+    }
+
+    // Ascending rows in [fromRow, toRow) using any of the marked symbols in a searchable column
+    public int[] rows(boolean[] symbols, int fromRow, int toRow) {
+        BitSet rows = new BitSet(rowsCovered);
+        for (int code = 0; code < symbols.length && code < lower.length; code++) {
+            if (!symbols[code]) continue;
+            int[] postings = rowPostings[code];
+            for (int k = 0, n = rowPostingSizes[code]; k < n; k++) rows.set(postings[k]);
+        }
+        int[] out = new int[Math.max(0, Math.min(rows.cardinality(), toRow - fromRow))];
+        int n = 0;
+        for (int row = rows.nextSetBit(fromRow); row >= 0 && row < toRow; row = rows.nextSetBit(row + 1)) {
+            out[n++] = row;
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    // Upper bound on rows(symbols, ...).length, for choosing the most selective term
+    public long postingCount(boolean[] symbols) {
+        long total = 0;
+        for (int code = 0; code < symbols.length && code < lower.length; code++) {
+            if (symbols[code]) total += rowPostingSizes[code];
+        }
+        return total;
+    }
+
+    private void clear() {
+        lower = new String[INITIAL_CAPACITY];
+        rowPostings = new int[INITIAL_CAPACITY][];
+        rowPostingSizes = new int[INITIAL_CAPACITY];
+        trigrams.clear();
+        rowsCovered = 0;
+    }
+
+    private void addRow(int code, int row) {
+        if (code >= lower.length) {
+            int cap = Math.max(code + 1, lower.length * 2);
+            lower = Arrays.copyOf(lower, cap);
+            rowPostings = Arrays.copyOf(rowPostings, cap);
+            rowPostingSizes = Arrays.copyOf(rowPostingSizes, cap);
+        }
+        if (lower[code] == null) indexSymbol(code);
+
+        // Rows arrive in order, so a row repeating one symbol across columns is the last posting
+        int n = rowPostingSizes[code];
+        int[] postings = rowPostings[code];
+        if (n > 0 && postings[n - 1] == row) return;
+        if (postings == null) postings = rowPostings[code] = new int[4];
+        else if (n == postings.length) postings = rowPostings[code] = Arrays.copyOf(postings, n * 2);
+        postings[n] = row;
+        rowPostingSizes[code] = n + 1;
+    }
+
+    private void indexSymbol(int code) {
+        String s = sourceSymbols.get(code).toLowerCase(Locale.ROOT);
+        lower[code] = s;
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            long t = trigram(s, i);
+            if (t == previous) continue;
+            previous = t;
+            IntList postings = trigrams.computeIfAbsent(t, k -> new IntList());
+            // Codes are indexed once each, so a repeat can only be this code's own earlier trigram
+            if (postings.size == 0 || postings.values[postings.size - 1] != code) postings.add(code);
+        }
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+    }
+}
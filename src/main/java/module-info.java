@@ -15,8 +15,8 @@ module com.courtney.dietai {
     // Allow JavaFX to find your Application class at launch
     opens com.courtney.dietai to javafx.graphics;
 
-    // TableView uses reflection to read getters
-    opens com.courtney.dietai.model to javafx.base, com.fasterxml.jackson.databind;
+    // Jackson serializes model beans reflectively; the table reads the columns through lambdas
+    opens com.courtney.dietai.model to com.fasterxml.jackson.databind;
 
     // Jackson needs reflective access for JSON (profile/targets/summary/etc.)
     opens com.courtney.dietai.profile to com.fasterxml.jackson.databind;
@@ -0,0 +1,157 @@
+package com.courtney.dietai.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.PieChart;
+import javafx.scene.chart.XYChart;
+import org.junit.jupiter.api.Test;
+
+class ChartUpdatesTest {
+
+    @Test
+    void keepsUnchangedPointsAndOnlyTouchesTheRunsThatDiffer() {
+        ObservableList<XYChart.Data<String, Number>> data = FXCollections.observableArrayList();
+        ChartUpdates.updateSeries(data, List.of("a", "b", "c", "d", "e"), List.of(1L, 2L, 3L, 4L, 5L));
+        XYChart.Data<String, Number> b = data.get(1), e = data.get(4);
+        Counter counter = new Counter(data);
+
+        ChartUpdates.updateSeries(data, List.of("a", "b", "x", "y", "e", "f"), List.of(1L, 7L, 8L, 9L, 5L, 6L));
+
+        assertSeries(data, List.of("a", "b", "x", "y", "e", "f"), List.of(1L, 7L, 8L, 9L, 5L, 6L));
+        assertSame(b, data.get(1));
+        assertSame(e, data.get(4));
+        assertEquals(2, counter.removed);
+        assertEquals(3, counter.added);
+        // c and d went as one run; x, y and then f came in two
+        assertEquals(3, counter.changes);
+    }
+
+    @Test
+    void reorderedLabelsReplaceThePoints() {
+        ObservableList<XYChart.Data<String, Number>> data = FXCollections.observableArrayList();
+        ChartUpdates.updateSeries(data, List.of("a", "b", "c"), List.of(1L, 2L, 3L));
+        Counter counter = new Counter(data);
+
+        ChartUpdates.updateSeries(data, List.of("c", "a", "b"), List.of(3L, 1L, 2L));
+
+        assertSeries(data, List.of("c", "a", "b"), List.of(3L, 1L, 2L));
+        assertEquals(3, counter.added);
+    }
+
+    @Test
+    void switchingGranularityReplacesEveryPoint() {
+        ObservableList<XYChart.Data<String, Number>> data = FXCollections.observableArrayList();
+        List<String> days = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        for (int d = 1; d <= 31; d++) {
+            days.add(String.format("2025-01-%02d", d));
+            values.add(1800L + d);
+        }
+        ChartUpdates.updateSeries(data, days, values);
+
+        ChartUpdates.updateSeries(data, List.of("2025-W01", "2025-W02", "2025-W03", "2025-W04", "2025-W05"),
+                List.of(1802L, 1806L, 1813L, 1820L, 1828L));
+        assertSeries(data, List.of("2025-W01", "2025-W02", "2025-W03", "2025-W04", "2025-W05"),
+                List.of(1802L, 1806L, 1813L, 1820L, 1828L));
+
+        ChartUpdates.updateSeries(data, List.of("2025-01"), List.of(1816L));
+        assertSeries(data, List.of("2025-01"), List.of(1816L));
+
+        ChartUpdates.updateSeries(data, List.of(), List.of());
+        assertTrue(data.isEmpty());
+    }
+
+    @Test
+    void randomUpdatesMatchTheWantedSeries() {
+        Random random = new Random(31);
+        ObservableList<XYChart.Data<String, Number>> data = FXCollections.observableArrayList();
+        List<String> universe = new ArrayList<>();
+        for (int i = 0; i < 120; i++) universe.add(String.format("L%03d", i));
+
+        for (int round = 0; round < 500; round++) {
+            List<String> labels = new ArrayList<>();
+            List<Long> values = new ArrayList<>();
+            double density = random.nextDouble();
+            for (String label : universe) {
+                if (random.nextDouble() < density) {
+                    labels.add(label);
+                    values.add((long) random.nextInt(5));
+                }
+            }
+            int kind = random.nextInt(10);
+            if (kind == 0) {
+                // Out of order, as when the sort changes
+                Collections.shuffle(labels, random);
+            } else if (kind == 1) {
+                // A different granularity shares no labels with the last one
+                labels.replaceAll(l -> "G" + l);
+            }
+
+            Map<XYChart.Data<String, Number>, String> before = new IdentityHashMap<>();
+            for (XYChart.Data<String, Number> p : data) before.put(p, p.getXValue());
+            ChartUpdates.updateSeries(data, labels, values);
+
+            assertSeries(data, labels, values);
+            // Points that survive keep their label; only their value may change
+            for (XYChart.Data<String, Number> p : data) {
+                if (before.containsKey(p)) assertEquals(before.get(p), p.getXValue());
+            }
+        }
+    }
+
+    @Test
+    void lengthMismatchIsRejected() {
+        ObservableList<XYChart.Data<String, Number>> data = FXCollections.observableArrayList();
+        assertThrows(IllegalArgumentException.class, () -> ChartUpdates.updateSeries(data, List.of("a"), List.of()));
+    }
+
+    @Test
+    void pieValuesChangeInPlaceWhileTheNamesMatch() {
+        ObservableList<PieChart.Data> data = FXCollections.observableArrayList();
+        String[] names = {"Protein", "Carbs", "Fat"};
+        ChartUpdates.updatePie(data, names, new double[] {30, 40, 30});
+        PieChart.Data protein = data.get(0);
+
+        ChartUpdates.updatePie(data, names, new double[] {25, 45, 30});
+        assertSame(protein, data.get(0));
+        assertEquals(45, data.get(1).getPieValue());
+
+        ChartUpdates.updatePie(data, new String[] {"Protein", "Fat"}, new double[] {50, 50});
+        assertEquals(2, data.size());
+        assertEquals("Fat", data.get(1).getName());
+    }
+
+    private static void assertSeries(List<XYChart.Data<String, Number>> data, List<String> labels, List<Long> values) {
+        assertEquals(labels.size(), data.size());
+        for (int i = 0; i < labels.size(); i++) {
+            assertEquals(labels.get(i), data.get(i).getXValue());
+            assertEquals(values.get(i), data.get(i).getYValue());
+        }
+    }
+
+    private static final class Counter implements ListChangeListener<XYChart.Data<String, Number>> {
+        int added, removed, changes;
+
+        Counter(ObservableList<XYChart.Data<String, Number>> list) {
+            list.addListener(this);
+        }
+
+        @Override
+        public void onChanged(Change<? extends XYChart.Data<String, Number>> c) {
+            while (c.next()) {
+                changes++;
+                added += c.getAddedSize();
+                removed += c.getRemovedSize();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.courtney.dietai.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.EntryStore;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DailyRollupTest {
+    private static final LocalDate BASE = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void summarizesDateRanges() {
+        EntryStore store = storeOf(0, 0, 1, 3, 3, 3);
+        DailyRollup rollup = DailyRollup.of(store);
+
+        assertEquals(3, rollup.getDaysCount());
+        DietSummary all = rollup.summarize(null, null);
+        assertEquals(6, all.getEntriesCount());
+        assertEquals(3, all.getDaysCount());
+        assertEquals(600, all.getTotalCalories(), 1e-9);
+
+        DietSummary tail = rollup.summarize(BASE.plusDays(1), BASE.plusDays(3));
+        assertEquals(4, tail.getEntriesCount());
+        assertEquals(BASE.plusDays(1), tail.getStartDate());
+        assertEquals(BASE.plusDays(3), tail.getEndDate());
+
+        assertNull(rollup.summarize(BASE.plusDays(4), null));
+    }
+
+    @Test
+    void appendedRowsOutOfOrderAmongThemselvesRebuild() {
+        EntryStore store = storeOf(0, 5);
+        DailyRollup rollup = DailyRollup.of(store);
+
+        // Both are after the old last day, but the second goes back in time
+        store.add(entry(10, 100));
+        store.add(entry(7, 100));
+        rollup.update(store);
+        store.add(entry(10, 100));
+        rollup.update(store);
+
+        assertArrayEquals(new int[] {day(0), day(5), day(7), day(10)}, rollup.dayKeys());
+        assertEquals(2, rollup.summarize(BASE.plusDays(10), BASE.plusDays(10)).getEntriesCount());
+        assertEquals(3, rollup.summarize(BASE.plusDays(6), null).getEntriesCount());
+    }
+
+    @Test
+    void incrementalUpdateMatchesRebuild() {
+        EntryStore store = storeOf(0, 1);
+        DailyRollup rollup = DailyRollup.of(store);
+        for (int d : new int[] {1, 2, 2, 9, 4, 4, 12}) {
+            store.add(entry(d, 10 + d));
+            rollup.update(store);
+        }
+
+        DailyRollup fresh = DailyRollup.of(store);
+        assertArrayEquals(fresh.dayKeys(), rollup.dayKeys());
+        long[][] expected = fresh.dayTotals(), actual = rollup.dayTotals();
+        for (int m = 0; m < expected.length; m++) assertArrayEquals(expected[m], actual[m]);
+    }
+
+    @Test
+    void snapshotsOfTheSameStoreUpdateIncrementally() {
+        EntryStore store = storeOf(0, 1);
+        DailyRollup rollup = DailyRollup.of(store.snapshot());
+        store.add(entry(2, 100));
+        EntryStore later = store.snapshot();
+        store.add(entry(3, 100));
+        rollup.update(later);
+
+        assertEquals(3, rollup.getDaysCount());
+        assertEquals(300, rollup.summarize(null, null).getTotalCalories(), 1e-9);
+    }
+
+    @Test
+    void removingRowsRebuilds() {
+        EntryStore store = storeOf(0, 1, 2);
+        DailyRollup rollup = DailyRollup.of(store);
+        store.remove(2);
+        rollup.update(store);
+
+        assertEquals(2, rollup.getDaysCount());
+        assertEquals(200, rollup.summarize(null, null).getTotalCalories(), 1e-9);
+    }
+
+    @Test
+    void aFarOffDateSortsInsteadOfBucketing() {
+        // A typo'd year: the day span is centuries for a handful of rows
+        EntryStore store = storeOf(3, 0, 3, 1);
+        store.add(new DietEntry(LocalDate.of(25, 1, 1), "Lunch", "Soup", "1 bowl", 50, 10, 5, 2, 300, 1, ""));
+        DailyRollup rollup = DailyRollup.of(store);
+
+        assertArrayEquals(new int[] {(int) LocalDate.of(25, 1, 1).toEpochDay(), day(0), day(1), day(3)}, rollup.dayKeys());
+        assertEquals(450, rollup.summarize(null, null).getTotalCalories(), 1e-9);
+        assertEquals(200, rollup.summarize(BASE.plusDays(2), null).getTotalCalories(), 1e-9);
+        assertEquals(50, rollup.summarize(null, LocalDate.of(2000, 1, 1)).getTotalCalories(), 1e-9);
+    }
+
+    @Test
+    void seriesClipsEdgeBuckets() {
+        // 2025-01-01 is a Wednesday; Jan 6 starts the next week
+        EntryStore store = storeOf(0, 1, 5, 6, 40);
+        DailyRollup rollup = DailyRollup.of(store);
+
+        List<RollupBucket> weeks = rollup.series(Granularity.WEEK, BASE.plusDays(1), BASE.plusDays(6));
+        assertEquals(2, weeks.size());
+        assertEquals(1, weeks.get(0).getDaysLogged());
+        assertEquals(2, weeks.get(1).getDaysLogged());
+
+        List<RollupBucket> months = rollup.series(Granularity.MONTH, null, null);
+        assertEquals(2, months.size());
+        assertEquals(4, months.get(0).getEntries());
+        assertEquals(LocalDate.of(2025, 2, 1), months.get(1).getStart());
+    }
+
+    @Test
+    void isoWeeksRunAcrossAYearChange() {
+        // 2020 has an ISO week 53, Monday Dec 28 to Sunday Jan 3
+        EntryStore store = storeOfDates(LocalDate.of(2020, 12, 27), LocalDate.of(2020, 12, 28),
+                LocalDate.of(2021, 1, 1), LocalDate.of(2021, 1, 3), LocalDate.of(2021, 1, 4));
+        DailyRollup rollup = DailyRollup.of(store);
+
+        List<RollupBucket> weeks = rollup.series(Granularity.WEEK, null, null);
+        assertEquals(List.of("2020-W52", "2020-W53", "2021-W01"), weeks.stream().map(RollupBucket::getLabel).toList());
+        assertEquals(LocalDate.of(2020, 12, 28), weeks.get(1).getStart());
+        assertEquals(3, weeks.get(1).getDaysLogged());
+
+        // The week is split between the years
+        List<RollupBucket> years = rollup.series(Granularity.YEAR, null, null);
+        assertEquals(List.of("2020", "2021"), years.stream().map(RollupBucket::getLabel).toList());
+        assertEquals(2, years.get(0).getDaysLogged());
+        assertEquals(3, years.get(1).getDaysLogged());
+
+        // Dec 30, 2024 starts the first week of 2025
+        LocalDate start = Granularity.WEEK.bucketStart(LocalDate.of(2025, 1, 1));
+        assertEquals(LocalDate.of(2024, 12, 30), start);
+        assertEquals("2025-W01", Granularity.WEEK.label(start));
+        assertEquals(LocalDate.of(2024, 12, 1), Granularity.MONTH.bucketStart(LocalDate.of(2024, 12, 31)));
+        assertEquals(LocalDate.of(2024, 1, 1), Granularity.YEAR.bucketStart(LocalDate.of(2024, 12, 31)));
+    }
+
+    @Test
+    void clippedSeriesAddsUpToTheRangeSummary() {
+        EntryStore store = new EntryStore();
+        for (int d = 0; d < 200; d++) {
+            for (int k = 0; k <= d % 3; k++) store.add(entry(d, 10 + d));
+        }
+        DailyRollup rollup = DailyRollup.of(store);
+        LocalDate from = BASE.plusDays(17), to = BASE.plusDays(140);
+
+        for (Granularity g : Granularity.values()) {
+            List<RollupBucket> buckets = rollup.series(g, from, to);
+            DietSummary range = rollup.summarize(from, to);
+            assertEquals(range.getEntriesCount(), buckets.stream().mapToLong(RollupBucket::getEntries).sum(), g.name());
+            assertEquals(range.getDaysCount(), buckets.stream().mapToInt(RollupBucket::getDaysLogged).sum(), g.name());
+            assertEquals(range.getTotalCalories(), buckets.stream().mapToDouble(RollupBucket::getCalories).sum(), 1e-6, g.name());
+            // Edge buckets keep their calendar start but only count days in range
+            assertEquals(g.bucketStart(from), buckets.get(0).getStart(), g.name());
+            assertEquals(g.bucketStart(to), buckets.get(buckets.size() - 1).getStart(), g.name());
+        }
+
+        // Jan 18 to May 21
+        List<RollupBucket> months = rollup.series(Granularity.MONTH, from, to);
+        assertEquals(LocalDate.of(2025, 1, 1), months.get(0).getStart());
+        assertEquals(31 - 17, months.get(0).getDaysLogged());
+        assertEquals(31, months.get(2).getDaysLogged());
+        assertEquals(21, months.get(months.size() - 1).getDaysLogged());
+    }
+
+    @Test
+    void granularityIsTheFinestThatFitsTheBarBudget() {
+        int bars = 120;
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        assertEquals(Granularity.DAY, Granularity.forSpan(start, start.plusDays(bars - 1), bars));
+        assertEquals(Granularity.WEEK, Granularity.forSpan(start, start.plusDays(bars), bars));
+        assertEquals(Granularity.MONTH, Granularity.forSpan(start, start.plusYears(5), bars));
+        assertEquals(Granularity.YEAR, Granularity.forSpan(start, start.plusYears(10), bars));
+        // More years than bars still rolls up by year
+        assertEquals(Granularity.YEAR, Granularity.forSpan(start, start.plusYears(500), bars));
+
+        // 835 days are 119 weeks and 2 days, so from a Monday they touch 120 weeks but from a Sunday 121
+        LocalDate sunday = LocalDate.of(2023, 1, 1);
+        assertEquals(121, Granularity.WEEK.bucketsBetween(sunday, sunday.plusDays(834)));
+        assertEquals(Granularity.MONTH, Granularity.forSpan(sunday, sunday.plusDays(834), bars));
+        assertEquals(Granularity.WEEK, Granularity.forSpan(sunday.plusDays(1), sunday.plusDays(835), bars));
+
+        EntryStore store = new EntryStore();
+        for (int d = 0; d < 835; d++) store.add(new DietEntry(sunday.plusDays(d), "Lunch", "Soup", "1 bowl", 100, 10, 5, 2, 300, 1, ""));
+        DailyRollup rollup = DailyRollup.of(store);
+        Granularity g = Granularity.forSpan(sunday, sunday.plusDays(834), bars);
+        assertTrue(rollup.series(g, null, null).size() <= bars);
+    }
+
+    private static EntryStore storeOfDates(LocalDate... dates) {
+        EntryStore store = new EntryStore();
+        for (LocalDate d : dates) store.add(new DietEntry(d, "Lunch", "Soup", "1 bowl", 100, 10, 5, 2, 300, 1, ""));
+        return store;
+    }
+
+    private static EntryStore storeOf(int... dayOffsets) {
+        EntryStore store = new EntryStore();
+        for (int d : dayOffsets) store.add(entry(d, 100));
+        return store;
+    }
+
+    private static DietEntry entry(int dayOffset, double calories) {
+        return new DietEntry(BASE.plusDays(dayOffset), "Lunch", "Soup", "1 bowl", calories, 10, 5, 2, 300, 1, "");
+    }
+
+    private static int day(int dayOffset) {
+        return (int) BASE.plusDays(dayOffset).toEpochDay();
+    }
+}
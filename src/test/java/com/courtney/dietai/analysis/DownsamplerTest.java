@@ -0,0 +1,139 @@
+package com.courtney.dietai.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DownsamplerTest {
+
+    @Test
+    void lttbKeepsEverythingOutsideItsRange() {
+        double[] x = xs(10), y = new double[10];
+
+        assertArrayEquals(identity(10), Downsampler.lttb(x, y, 2));
+        assertArrayEquals(identity(10), Downsampler.lttb(x, y, 0));
+        assertArrayEquals(identity(10), Downsampler.lttb(x, y, 10));
+        assertArrayEquals(identity(10), Downsampler.lttb(x, y, 50));
+        assertArrayEquals(identity(2), Downsampler.lttb(xs(2), new double[2], 3));
+        assertArrayEquals(identity(1), Downsampler.lttb(xs(1), new double[1], 3));
+        assertArrayEquals(new int[0], Downsampler.lttb(new double[0], new double[0], 3));
+    }
+
+    @Test
+    void lttbReturnsExactlyThresholdAscendingIndexesWithBothEnds() {
+        Random random = new Random(9);
+        for (int round = 0; round < 200; round++) {
+            int n = 3 + random.nextInt(400);
+            int threshold = 3 + random.nextInt(n - 2);
+            double[] y = randomSeries(random, n);
+            int[] kept = Downsampler.lttb(xs(n), y, threshold);
+
+            String when = "n=" + n + " threshold=" + threshold;
+            assertEquals(Math.min(threshold, n), kept.length, when);
+            assertValidSelection(kept, n, when);
+        }
+    }
+
+    @Test
+    void lttbKeepsAnIsolatedSpike() {
+        double[] y = new double[1000];
+        y[437] = 5000;
+
+        int[] kept = Downsampler.lttb(xs(y.length), y, 50);
+
+        assertTrue(contains(kept, 437));
+    }
+
+    @Test
+    void minMaxKeepsEverythingOutsideItsRange() {
+        double[] y = new double[10];
+
+        assertArrayEquals(identity(10), Downsampler.minMax(y, 0));
+        assertArrayEquals(identity(10), Downsampler.minMax(y, -1));
+        // 2 * 4 + 2 points would be no fewer than the input
+        assertArrayEquals(identity(10), Downsampler.minMax(y, 4));
+        assertArrayEquals(identity(2), Downsampler.minMax(new double[2], 1));
+        assertArrayEquals(identity(1), Downsampler.minMax(new double[1], 1));
+    }
+
+    @Test
+    void minMaxStaysWithinItsBoundNearHalfTheInput() {
+        Random random = new Random(13);
+        for (int n = 3; n < 120; n++) {
+            double[] y = randomSeries(random, n);
+            // Bucket counts around n / 2, where buckets hold only two or three points
+            for (int buckets = Math.max(1, n / 2 - 3); buckets <= n / 2 + 1; buckets++) {
+                int[] kept = Downsampler.minMax(y, buckets);
+                String when = "n=" + n + " buckets=" + buckets;
+                assertTrue(kept.length <= Math.max(n, 2 * buckets + 2), when);
+                if (2 * buckets + 2 < n) assertTrue(kept.length < n, when);
+                assertValidSelection(kept, n, when);
+            }
+        }
+    }
+
+    @Test
+    void minMaxKeepsEachBucketsExtremes() {
+        Random random = new Random(21);
+        for (int round = 0; round < 100; round++) {
+            int n = 50 + random.nextInt(2000);
+            int buckets = 1 + random.nextInt(60);
+            double[] y = randomSeries(random, n);
+            int[] kept = Downsampler.minMax(y, buckets);
+
+            // The global extremes of the interior are each some bucket's extreme
+            int max = 1, min = 1;
+            for (int i = 2; i < n - 1; i++) {
+                if (y[i] > y[max]) max = i;
+                if (y[i] < y[min]) min = i;
+            }
+            String when = "n=" + n + " buckets=" + buckets;
+            assertTrue(contains(kept, max), when);
+            assertTrue(contains(kept, min), when);
+            assertValidSelection(kept, n, when);
+        }
+    }
+
+    @Test
+    void minMaxKeepsASingleSampleSpike() {
+        double[] y = new double[10_000];
+        for (int i = 0; i < y.length; i++) y[i] = 1800 + (i % 5);
+        y[7777] = 9000;
+
+        int[] kept = Downsampler.minMax(y, 59);
+
+        assertTrue(kept.length <= 2 * 59 + 2);
+        assertTrue(contains(kept, 7777));
+    }
+
+    // Ascending, distinct, in range, and with the first and last points
+    private static void assertValidSelection(int[] kept, int n, String when) {
+        assertEquals(0, kept[0], when);
+        assertEquals(n - 1, kept[kept.length - 1], when);
+        for (int i = 1; i < kept.length; i++) assertTrue(kept[i] > kept[i - 1], when + " at " + i);
+    }
+
+    private static double[] randomSeries(Random random, int n) {
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) y[i] = 1500 + random.nextGaussian() * 400;
+        return y;
+    }
+
+    private static double[] xs(int n) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) x[i] = i;
+        return x;
+    }
+
+    private static int[] identity(int n) {
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++) out[i] = i;
+        return out;
+    }
+
+    private static boolean contains(int[] a, int v) {
+        for (int x : a) if (x == v) return true;
+        return false;
+    }
+}
@@ -0,0 +1,112 @@
+package com.courtney.dietai.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.EntryStore;
+import com.courtney.dietai.model.RowView;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class LiveSummaryTest {
+    private static final LocalDate BASE = LocalDate.of(2025, 3, 1);
+
+    @Test
+    void followsASubsetThroughShowAppendClearAndSort() {
+        EntryStore store = randomStore(3000);
+        RowView view = RowView.subset();
+        LiveSummary live = new LiveSummary();
+        live.attach(store, view);
+        Random random = new Random(17);
+        IntBinaryOperator byCalories = (a, b) -> Double.compare(store.getCalories(a), store.getCalories(b));
+        IntBinaryOperator byDay = (a, b) -> Integer.compare(store.getEpochDay(b), store.getEpochDay(a));
+
+        // The subset stays below a moving limit, so appends can add rows past it
+        int limit = 1000;
+        for (int step = 0; step < 200; step++) {
+            int op = random.nextInt(10);
+            if (op < 5) {
+                view.show(randomSubset(random, 0, limit, random.nextInt(4) == 0 ? 0.02 : 0.3));
+            } else if (op < 7 && limit < store.size()) {
+                int to = Math.min(store.size(), limit + 1 + random.nextInt(40));
+                view.append(randomSubset(random, limit, to, 0.5));
+                limit = to;
+            } else if (op < 9) {
+                view.sortBy(random.nextBoolean() ? byCalories : random.nextBoolean() ? byDay : null);
+            } else {
+                view.clear();
+            }
+            assertMatchesFreshSummary(store, view, live, "step " + step);
+        }
+    }
+
+    @Test
+    void followsAnAllRowsViewAsTheStoreGrows() {
+        EntryStore store = randomStore(500);
+        RowView view = RowView.allRows();
+        view.extendTo(200);
+        LiveSummary live = new LiveSummary();
+        live.attach(store, view);
+        assertMatchesFreshSummary(store, view, live, "attached");
+
+        view.sortBy((a, b) -> Double.compare(store.getFat(a), store.getFat(b)));
+        view.extendTo(350);
+        assertMatchesFreshSummary(store, view, live, "extended while sorted");
+        view.clear();
+        assertNull(live.getSummary());
+        view.extendTo(500);
+        assertMatchesFreshSummary(store, view, live, "regrown");
+    }
+
+    @Test
+    void detachStopsListening() {
+        EntryStore store = randomStore(50);
+        RowView view = RowView.subset();
+        LiveSummary live = new LiveSummary();
+        live.attach(store, view);
+        view.show(new int[] {1, 2, 3});
+        live.detach();
+        view.show(new int[] {4});
+
+        assertNull(live.getSummary());
+    }
+
+    private static void assertMatchesFreshSummary(EntryStore store, RowView view, LiveSummary live, String when) {
+        DietSummary actual = live.getSummary();
+        if (view.isEmpty()) {
+            assertNull(actual, when);
+            return;
+        }
+        DietSummary expected = NutritionAnalyzer.summarize(store, view.toRowArray());
+        assertNotNull(actual, when);
+        assertEquals(expected.getEntriesCount(), actual.getEntriesCount(), when);
+        assertEquals(expected.getDaysCount(), actual.getDaysCount(), when);
+        assertEquals(expected.getStartDate(), actual.getStartDate(), when);
+        assertEquals(expected.getEndDate(), actual.getEndDate(), when);
+        assertEquals(expected.getTotalCalories(), actual.getTotalCalories(), when);
+        assertEquals(expected.getTotalProteinG(), actual.getTotalProteinG(), when);
+        assertEquals(expected.getAvgSodiumPerDayMg(), actual.getAvgSodiumPerDayMg(), when);
+        assertEquals(expected.getDailyCalories(), actual.getDailyCalories(), when);
+    }
+
+    // Ascending rows of [from, to), each kept with the given probability
+    private static int[] randomSubset(Random random, int from, int to, double density) {
+        return IntStream.range(from, to).filter(r -> random.nextDouble() < density).toArray();
+    }
+
+    // Mostly date-ordered with some late entries, as exports are
+    private static EntryStore randomStore(int rows) {
+        Random random = new Random(3);
+        EntryStore store = new EntryStore();
+        for (int i = 0; i < rows; i++) {
+            int day = random.nextInt(8) == 0 ? random.nextInt(90) : i * 90 / rows;
+            store.add(new DietEntry(BASE.plusDays(day), "Lunch", "Soup", "1 bowl", random.nextInt(90000) / 100.0,
+                    random.nextInt(80), random.nextInt(4000) / 100.0, random.nextInt(30), random.nextInt(900),
+                    random.nextInt(12), ""));
+        }
+        return store;
+    }
+}
@@ -0,0 +1,54 @@
+package com.courtney.dietai.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.EntryStore;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PortionAnalyzerTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 1);
+
+    @Test
+    void averagesPortionsAndPer100gValuesPerItem() {
+        EntryStore store = new EntryStore();
+        store.add(entry("Oats", "50 g", 190, 7));
+        store.add(entry("Oats", "2 x 40 g", 300, 10));
+        store.add(entry("Oats", "1 bowl", 400, 12));
+        store.add(entry("Apple", "1 medium (180g)", 95, 0.5));
+
+        List<PortionAnalyzer.ItemPortions> items = PortionAnalyzer.analyze(store, new QuantityParser());
+
+        assertEquals(2, items.size());
+        PortionAnalyzer.ItemPortions oats = items.get(0);
+        assertEquals("Oats", oats.getItem());
+        assertEquals(3, oats.getEntries());
+        assertEquals(2, oats.getWeighedEntries());
+        assertEquals(65, oats.getAvgPortionG(), 1e-9);
+        assertEquals(490 * 100 / 130.0, oats.getCaloriesPer100g(), 1e-9);
+        assertEquals(17 * 100 / 130.0, oats.getProteinPer100g(), 1e-9);
+        assertEquals(180, items.get(1).getAvgPortionG(), 1e-9);
+    }
+
+    @Test
+    void readsTheRowsAsTheyWereWhenThePassStarted() {
+        EntryStore store = new EntryStore();
+        store.add(entry("Oats", "50 g", 190, 7));
+        EntryStore snapshot = store.snapshot();
+        store.add(entry("Rice", "150 g", 195, 4));
+        store.set(0, entry("Oats", "100 g", 380, 14));
+
+        List<PortionAnalyzer.ItemPortions> items = PortionAnalyzer.analyze(snapshot, new QuantityParser());
+
+        assertEquals(1, items.size());
+        assertEquals(50, items.get(0).getTotalGrams(), 1e-9);
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> PortionAnalyzer.analyze(snapshot, new int[]{1}, new QuantityParser()));
+    }
+
+    private static DietEntry entry(String item, String qty, double calories, double protein) {
+        return new DietEntry(DAY, "Breakfast", item, qty, calories, 0, protein, 0, 0, 0, "");
+    }
+}
@@ -0,0 +1,62 @@
+package com.courtney.dietai.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class QuantityParserTest {
+
+    @Test
+    void readsMultiplierAmountUnitAndWeight() {
+        Quantity q = QuantityParser.parseUncached("3 x 6 fl oz (178g)");
+        assertEquals(3, q.getMultiplier(), 1e-9);
+        assertEquals(6, q.getAmount(), 1e-9);
+        assertEquals("fl oz", q.getUnit());
+        assertEquals(178, q.getGramsPerServing(), 1e-9);
+        assertEquals(534, q.getGrams(), 1e-9);
+    }
+
+    @Test
+    void readsFractionsAndGluedUnits() {
+        assertEquals(0.75, QuantityParser.parseUncached("3/4 cup").getAmount(), 1e-9);
+        assertEquals(1.5, QuantityParser.parseUncached("1 1/2 cups").getAmount(), 1e-9);
+        Quantity ml = QuantityParser.parseUncached("100ml");
+        assertEquals(100, ml.getAmount(), 1e-9);
+        assertEquals("ml", ml.getUnit());
+        assertFalse(ml.hasGrams());
+    }
+
+    @Test
+    void convertsWeightUnits() {
+        assertEquals(7 * 28.349523125, QuantityParser.parseUncached("7 oz").getGrams(), 1e-9);
+        assertEquals(147, QuantityParser.parseUncached("1 peach is 7 oz (147g)").getGrams(), 1e-9);
+        assertEquals(42.524284687, QuantityParser.parseUncached("whole (1,5 oz)").getGrams(), 1e-6);
+        assertEquals(250, QuantityParser.parseUncached("0.25 kg").getGrams(), 1e-9);
+    }
+
+    @Test
+    void textWithoutNumbersCountsAsOneServing() {
+        Quantity q = QuantityParser.parseUncached("  Whole   (304g) ");
+        assertEquals(1, q.getMultiplier(), 1e-9);
+        assertEquals(1, q.getAmount(), 1e-9);
+        assertEquals("whole", q.getUnit());
+        assertEquals(304, q.getGrams(), 1e-9);
+    }
+
+    @Test
+    void cachesByTextAndEvictsLeastRecentlyUsed() {
+        QuantityParser parser = new QuantityParser(2);
+        Quantity a = parser.parse("100 g");
+        parser.parse("200 g");
+        assertSame(a, parser.parse("100 g"));
+        parser.parse("300 g");
+
+        assertEquals(2, parser.size());
+        assertEquals(1, parser.getHits());
+        // "200 g" was the least recently used
+        parser.parse("200 g");
+        assertEquals(4, parser.getMisses());
+        assertNull(parser.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> new QuantityParser(0));
+    }
+}
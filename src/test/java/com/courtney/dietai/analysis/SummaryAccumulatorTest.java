@@ -0,0 +1,96 @@
+package com.courtney.dietai.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.EntryStore;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SummaryAccumulatorTest {
+    private static final LocalDate BASE = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void combineMatchesSequentialAddExactly() {
+        List<DietEntry> entries = randomEntries(5000);
+        SummaryAccumulator all = new SummaryAccumulator();
+        SummaryAccumulator left = new SummaryAccumulator(), right = new SummaryAccumulator();
+        for (int i = 0; i < entries.size(); i++) {
+            all.add(entries.get(i));
+            (i % 3 == 0 ? left : right).add(entries.get(i));
+        }
+
+        assertSameSummary(all.toSummary(), left.combine(right).toSummary());
+    }
+
+    @Test
+    void removeUndoesAdd() {
+        List<DietEntry> entries = randomEntries(200);
+        SummaryAccumulator acc = new SummaryAccumulator();
+        for (DietEntry e : entries) acc.add(e);
+        for (DietEntry e : entries.subList(100, 200)) acc.remove(e);
+
+        SummaryAccumulator expected = new SummaryAccumulator();
+        for (DietEntry e : entries.subList(0, 100)) expected.add(e);
+        assertSameSummary(expected.toSummary(), acc.toSummary());
+    }
+
+    @Test
+    void extremeAmountsCannotWrapTheTotals() {
+        // Each alone would saturate the fixed-point conversion; several used to wrap the sum negative
+        SummaryAccumulator acc = new SummaryAccumulator();
+        for (int i = 0; i < 5; i++) acc.add(entry(0, 1e13));
+        acc.add(entry(1, Double.POSITIVE_INFINITY));
+        acc.add(entry(1, Double.NaN));
+        acc.add(entry(2, -1e300));
+
+        DietSummary summary = acc.toSummary();
+        assertEquals(5 * DietEntry.MAX_AMOUNT, summary.getTotalCalories(), 1e-6);
+        assertEquals(500_000, (int) summary.getDailyCalories().get(BASE));
+        assertEquals(100_000, (int) summary.getDailyCalories().get(BASE.plusDays(1)));
+        assertEquals(-100_000, (int) summary.getDailyCalories().get(BASE.plusDays(2)));
+    }
+
+    @Test
+    void removingAnUnknownDayFails() {
+        SummaryAccumulator acc = new SummaryAccumulator();
+        acc.add(entry(0, 100));
+        assertThrows(IllegalStateException.class, () -> acc.remove(entry(5, 100)));
+    }
+
+    @Test
+    void parallelStoreSummaryMatchesBeanSummary() {
+        // Large enough for the fork-join path on both sides
+        List<DietEntry> entries = randomEntries(NutritionAnalyzer.PARALLEL_THRESHOLD + 1234);
+        EntryStore store = new EntryStore();
+        store.addAll(entries);
+
+        assertSameSummary(NutritionAnalyzer.summarize(entries), NutritionAnalyzer.summarize(store));
+    }
+
+    private static void assertSameSummary(DietSummary expected, DietSummary actual) {
+        assertEquals(expected.getEntriesCount(), actual.getEntriesCount());
+        assertEquals(expected.getDaysCount(), actual.getDaysCount());
+        assertEquals(expected.getStartDate(), actual.getStartDate());
+        assertEquals(expected.getEndDate(), actual.getEndDate());
+        assertEquals(expected.getTotalCalories(), actual.getTotalCalories());
+        assertEquals(expected.getTotalProteinG(), actual.getTotalProteinG());
+        assertEquals(expected.getAvgSodiumPerDayMg(), actual.getAvgSodiumPerDayMg());
+        assertEquals(expected.getDailyCalories(), actual.getDailyCalories());
+    }
+
+    private static List<DietEntry> randomEntries(int n) {
+        Random random = new Random(11);
+        List<DietEntry> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(entry(random.nextInt(90), random.nextInt(90000) / 100.0));
+        return out;
+    }
+
+    private static DietEntry entry(int dayOffset, double calories) {
+        return new DietEntry(BASE.plusDays(dayOffset), "Dinner", "Rice", "1 cup", calories,
+                calories / 9, calories / 20, calories / 40, calories * 1.5, 0.7, "");
+    }
+}
@@ -0,0 +1,156 @@
+package com.courtney.dietai.concurrent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TaskSchedulerTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final TaskScheduler scheduler = new TaskScheduler();
+
+    @AfterEach
+    void shutDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void submittingUnderAKeyCancelsThePreviousTask() throws Exception {
+        Blocker first = new Blocker();
+        scheduler.submit(TaskScheduler.Category.ANALYSIS, "filter", first.task);
+        first.awaitStarted();
+
+        CountDownLatch ran = new CountDownLatch(1);
+        FutureTask<Void> second = new FutureTask<>(ran::countDown, null);
+        scheduler.submit(TaskScheduler.Category.ANALYSIS, "filter", second);
+
+        assertTrue(first.task.isCancelled());
+        first.awaitInterrupted();
+        assertTrue(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(second.isCancelled());
+    }
+
+    @Test
+    void cancelStopsTheTaskUnderTheKeyOnly() throws Exception {
+        Blocker keyed = new Blocker(), other = new Blocker();
+        scheduler.submit(TaskScheduler.Category.ANALYSIS, "summary", keyed.task);
+        scheduler.submit(TaskScheduler.Category.ANALYSIS, "filter", other.task);
+        keyed.awaitStarted();
+        other.awaitStarted();
+
+        scheduler.cancel("summary");
+        scheduler.cancel("unknown");
+
+        keyed.awaitInterrupted();
+        assertTrue(keyed.task.isCancelled());
+        assertFalse(other.task.isDone());
+        other.release.countDown();
+        other.task.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void eachLaneRunsAtMostItsLimitAtOnce() throws Exception {
+        TaskScheduler.Category lane = TaskScheduler.Category.ANALYSIS;
+        int tasks = lane.getLimit() + 3;
+        AtomicInteger running = new AtomicInteger(), peak = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(lane.getLimit()), release = new CountDownLatch(1);
+        List<FutureTask<Void>> submitted = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                release.await();
+                running.decrementAndGet();
+                return null;
+            });
+            submitted.add(scheduler.submit(lane, null, task));
+        }
+
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // Give a task beyond the limit a chance to start if the lane let it
+        Thread.sleep(100);
+        assertEquals(lane.getLimit(), running.get());
+
+        // Other lanes are not held up by a full one
+        FutureTask<Void> other = new FutureTask<>(() -> { }, null);
+        scheduler.submit(TaskScheduler.Category.AI, null, other);
+        other.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        release.countDown();
+        for (FutureTask<Void> task : submitted) task.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(lane.getLimit(), peak.get());
+    }
+
+    @Test
+    void cancelledQueuedTasksAreSkippedWithoutTakingTheSlot() throws Exception {
+        Blocker blocker = new Blocker();
+        scheduler.submit(TaskScheduler.Category.IMPORT, null, blocker.task);
+        blocker.awaitStarted();
+
+        AtomicInteger ranCancelled = new AtomicInteger();
+        FutureTask<Void> cancelled = new FutureTask<>(ranCancelled::incrementAndGet, null);
+        CountDownLatch ran = new CountDownLatch(1);
+        FutureTask<Void> next = new FutureTask<>(ran::countDown, null);
+        scheduler.submit(TaskScheduler.Category.IMPORT, null, cancelled);
+        scheduler.submit(TaskScheduler.Category.IMPORT, null, next);
+        cancelled.cancel(false);
+
+        blocker.release.countDown();
+        assertTrue(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(0, ranCancelled.get());
+
+        // The single slot is free again
+        FutureTask<Void> after = new FutureTask<>(() -> { }, null);
+        scheduler.submit(TaskScheduler.Category.IMPORT, null, after);
+        after.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shutdownCancelsRunningAndQueuedWorkAndRefusesMore() throws Exception {
+        Blocker running = new Blocker();
+        scheduler.submit(TaskScheduler.Category.IMPORT, "import", running.task);
+        running.awaitStarted();
+        FutureTask<Void> queued = new FutureTask<>(() -> { }, null);
+        scheduler.submit(TaskScheduler.Category.IMPORT, null, queued);
+
+        scheduler.shutdown();
+
+        running.awaitInterrupted();
+        assertTrue(running.task.isCancelled());
+        assertTrue(queued.isCancelled());
+        assertThrows(IllegalStateException.class,
+                () -> scheduler.submit(TaskScheduler.Category.IMPORT, null, new FutureTask<Void>(() -> { }, null)));
+        // A second shutdown is harmless
+        scheduler.shutdown();
+    }
+
+    // A task that runs until released or interrupted
+    private static final class Blocker {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final FutureTask<Void> task = new FutureTask<>(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }, null);
+
+        void awaitStarted() throws InterruptedException {
+            assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "Task did not start.");
+        }
+
+        void awaitInterrupted() throws InterruptedException {
+            assertTrue(interrupted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "Task was not interrupted.");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.concurrent.TaskScheduler;
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.SymbolTable;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchImporterTest {
+    private static final String HEADER = "Date,Meal,Item,Quantity,Calories\n";
+
+    @TempDir
+    Path dir;
+
+    private final TaskScheduler scheduler = new TaskScheduler();
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void mergesOverlappingExportsInDateOrder() throws Exception {
+        File june = write("2025-06.csv", HEADER
+                + "2025-06-30,Lunch,Rice,150 g,195\n"
+                + "2025-06-02,Snack,Apple,1 pc,95\n"
+                + "2025-06-02,Snack,Apple,1 pc,95\n");
+        File july = write("2025-07.csv", HEADER
+                + "2025-06-30,Lunch,Rice,150 g,195\n"
+                + "2025-07-01,Dinner,Salmon,120 g,250\n"
+                + "2025-06-02,Snack,Apple,1 pc,95\n"
+                + "2025-06-02,Snack,Apple,1 pc,95\n"
+                + "2025-06-02,Snack,Apple,1 pc,95\n");
+
+        List<DietEntry> rows = new ArrayList<>();
+        List<ImportProgress> progress = new ArrayList<>();
+        BatchImporter.Result result = BatchImporter.importFiles(List.of(june, july), new SymbolTable(), scheduler, 2,
+                stats -> { }, (batch, p) -> {
+                    rows.addAll(batch);
+                    progress.add(p);
+                });
+
+        // Two apples per file are the same entries; July's third one is new
+        assertEquals(5, rows.size());
+        assertEquals(5, result.getRowsImported());
+        assertEquals(3, result.getDuplicates());
+        for (int i = 1; i < rows.size(); i++) assertFalse(rows.get(i).getDate().isBefore(rows.get(i - 1).getDate()));
+        assertEquals(LocalDate.of(2025, 7, 1), rows.get(4).getDate());
+
+        // Batches report bytes in byte fields and rows in row fields
+        long bytes = june.length() + july.length();
+        ImportProgress last = progress.get(progress.size() - 1);
+        assertEquals(bytes, last.getBytesRead());
+        assertEquals(bytes, last.getTotalBytes());
+        assertEquals(5, last.getRowsParsed());
+        assertEquals(bytes, result.getBytes());
+    }
+
+    @Test
+    void reportsAFailedFileWithoutFailingTheBatch() throws Exception {
+        File good = write("a.csv", HEADER + "2025-06-01,Lunch,Rice,150 g,195\n");
+        File bad = write("b.csv", "no header here\n");
+
+        List<DietEntry> rows = new ArrayList<>();
+        BatchImporter.Result result = BatchImporter.importFiles(List.of(good, bad), new SymbolTable(), scheduler, 10,
+                stats -> { }, (batch, p) -> rows.addAll(batch));
+
+        assertEquals(1, rows.size());
+        assertEquals(1, result.getFailedFiles());
+        assertTrue(result.getFiles().get(1).isFailed());
+    }
+
+    private File write(String name, String content) throws Exception {
+        Path p = dir.resolve(name);
+        Files.writeString(p, content, StandardCharsets.UTF_8);
+        return p.toFile();
+    }
+}
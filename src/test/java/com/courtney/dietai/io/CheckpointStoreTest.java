@@ -0,0 +1,71 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.prefs.Preferences;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class CheckpointStoreTest {
+    private final Preferences prefs = Preferences.userRoot().node("com.courtney.dietai.test-" + System.nanoTime());
+
+    @AfterEach
+    void removeNode() throws Exception {
+        prefs.removeNode();
+    }
+
+    @Test
+    void savesLoadsAndRemoves() {
+        CheckpointStore store = new CheckpointStore(prefs, 4, Duration.ofDays(30));
+        File file = new File("/data/log.csv");
+        store.save(new ImportCheckpoint(file.getAbsolutePath(), 120, 7L, 9));
+
+        ImportCheckpoint loaded = store.load(file);
+        assertEquals(120, loaded.getOffset());
+        assertEquals(7L, loaded.getHeaderFingerprint());
+        assertEquals(9, loaded.getWindowChecksum());
+
+        store.remove(file);
+        assertNull(store.load(file));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondTheLimit() throws Exception {
+        CheckpointStore store = new CheckpointStore(prefs, 2, Duration.ofDays(30));
+        File a = new File("/data/a.csv"), b = new File("/data/b.csv"), c = new File("/data/c.csv");
+
+        save(store, a);
+        save(store, b);
+        Thread.sleep(5);
+        // Loading a marks it used, so b is the least recently used when c arrives
+        assertNotNull(store.load(a));
+        Thread.sleep(5);
+        save(store, c);
+
+        assertEquals(2, prefs.childrenNames().length);
+        assertNotNull(store.load(a));
+        assertNull(store.load(b));
+        assertNotNull(store.load(c));
+    }
+
+    @Test
+    void evictsCheckpointsPastTheAgeLimit() throws Exception {
+        CheckpointStore store = new CheckpointStore(prefs, 10, Duration.ofDays(30));
+        File a = new File("/data/a.csv"), b = new File("/data/b.csv");
+
+        save(store, a);
+        prefs.node(ImportCheckpoint.pathKey(a.getAbsolutePath()))
+                .putLong("used", System.currentTimeMillis() - Duration.ofDays(31).toMillis());
+        save(store, b);
+
+        assertEquals(1, prefs.childrenNames().length);
+        assertNull(store.load(a));
+        assertNotNull(store.load(b));
+    }
+
+    private static void save(CheckpointStore store, File file) {
+        store.save(new ImportCheckpoint(file.getAbsolutePath(), 100, 1L, 2));
+    }
+}
@@ -0,0 +1,61 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.util.Map;
+import org.apache.commons.csv.CSVParser;
+import org.junit.jupiter.api.Test;
+
+class ColumnPlanTest {
+
+    @Test
+    void bindsSynonymsCaseInsensitively() throws Exception {
+        ColumnPlan plan = plan("Log Date,Food Name,QTY,kcal,Carbs (g),Protein (g),Total Fat,Sodium (mg),Dietary  Fiber,Meal Type,Comments");
+
+        assertArrayEquals(new int[] {0}, plan.date);
+        assertArrayEquals(new int[] {1}, plan.item);
+        assertArrayEquals(new int[] {2}, plan.qty);
+        assertArrayEquals(new int[] {3}, plan.calories);
+        assertArrayEquals(new int[] {4}, plan.carbs);
+        assertArrayEquals(new int[] {5}, plan.protein);
+        assertArrayEquals(new int[] {6}, plan.fat);
+        assertArrayEquals(new int[] {7}, plan.sodium);
+        assertArrayEquals(new int[] {8}, plan.fiber);
+        assertArrayEquals(new int[] {9}, plan.meal);
+        assertArrayEquals(new int[] {10}, plan.notes);
+        assertEquals(1.0, plan.sodiumToMg);
+    }
+
+    @Test
+    void bindsEveryMatchingColumnInHeaderOrder() throws Exception {
+        ColumnPlan plan = plan("Notes,Date,Calories,Food,kcal,Item");
+
+        assertArrayEquals(new int[] {2, 4}, plan.calories);
+        assertArrayEquals(new int[] {3, 5}, plan.item);
+        assertArrayEquals(new int[] {0}, plan.notes);
+    }
+
+    @Test
+    void leavesUnknownFieldsUnbound() throws Exception {
+        ColumnPlan plan = plan("Date,Whatever,Calories");
+
+        assertEquals(0, plan.item.length);
+        assertEquals(0, plan.sodium.length);
+        assertArrayEquals(new int[] {2}, plan.calories);
+    }
+
+    @Test
+    void sodiumInGramsIsScaledToMilligrams() throws Exception {
+        assertEquals(1000.0, plan("Date,Salt (g)").sodiumToMg);
+        assertEquals(1000.0, plan("Date,SODIUM (G),Sodium").sodiumToMg);
+        assertEquals(1.0, plan("Date,Sodium,Salt (g)").sodiumToMg);
+    }
+
+    private static ColumnPlan plan(String header) throws Exception {
+        try (CSVParser parser = CsvImporter.csvFormat().parse(new StringReader(header + "\n"))) {
+            Map<String, Integer> map = parser.getHeaderMap();
+            return ColumnPlan.compile(map);
+        }
+    }
+}
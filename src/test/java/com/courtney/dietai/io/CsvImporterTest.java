@@ -0,0 +1,108 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.model.DietEntry;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CsvImporterTest {
+    private static final String HEADER = "Date,Item,Quantity / Duration,Calories,Carbohydrates,Protein,Fat,Sodium,Fiber,Meal,Notes\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void streamsRowsInBatchesWithProgress() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 25; i++) {
+            csv.append("2025-08-").append(String.format("%02d", 1 + i % 28)).append(",Apple,1 medium,")
+                    .append(50 + i).append(",12,0.3,0.2,1mg,2.4,Snack,\n");
+        }
+        File file = write("log.csv", csv.toString());
+
+        List<Integer> sizes = new ArrayList<>();
+        List<ImportProgress> progress = new ArrayList<>();
+        ImportProgress done = CsvImporter.importFile(file, 10, (batch, p) -> {
+            sizes.add(batch.size());
+            progress.add(p);
+        });
+
+        assertEquals(List.of(10, 10, 5), sizes);
+        assertEquals(10, progress.get(0).getRowsParsed());
+        assertEquals(25, progress.get(2).getRowsParsed());
+        assertEquals(file.length(), progress.get(2).getBytesRead());
+        assertEquals(25, done.getRowsParsed());
+        assertEquals(0, done.getRowsSkipped());
+        assertEquals(1.0, done.getFraction());
+        assertNotNull(done.getDiagnostics());
+    }
+
+    @Test
+    void listImportMatchesStreamedRows() throws Exception {
+        File file = write("log.csv", HEADER
+                + "08/19/2025,Bananas,1 serving (126g),112.1,28.8,1.4,0.4,1mg,3.3,Breakfast,\n"
+                + "08/20/2025,Coffee,3 x 6 fl oz,5.3,0,0.6,0.1,11mg,0,Breakfast,black\n");
+
+        List<DietEntry> rows = CsvImporter.importFile(file);
+
+        assertEquals(2, rows.size());
+        DietEntry first = rows.get(0);
+        assertEquals(LocalDate.of(2025, 8, 19), first.getDate());
+        assertEquals("Bananas", first.getItem());
+        assertEquals("Breakfast", first.getMeal());
+        assertEquals(112.1, first.getCalories());
+        assertEquals(3.3, first.getFiber());
+        assertEquals("black", rows.get(1).getNotes());
+    }
+
+    @Test
+    void outOfRangeNumbersAreReadAsZeroAndReported() throws Exception {
+        File file = write("log.csv", HEADER
+                + "2025-08-01,Typo,1,9300000000000,12,0,0,0,0,Snack,\n"
+                + "2025-08-01,Overflow,1," + "9".repeat(400) + ",12,0,0,0,0,Snack,\n"
+                + "2025-08-02,Apple,1,50,12,0,0,250000g,0,Snack,\n");
+
+        List<DietEntry> rows = new ArrayList<>();
+        ImportProgress done = CsvImporter.importFile(file, 10, (batch, p) -> rows.addAll(batch));
+
+        assertEquals(3, rows.size());
+        assertEquals(0, rows.get(0).getCalories());
+        assertEquals(0, rows.get(1).getCalories());
+        assertEquals(12, rows.get(1).getCarbs());
+        assertEquals(50, rows.get(2).getCalories());
+        assertEquals(0, rows.get(2).getSodiumMg());
+        ImportDiagnostics d = done.getDiagnostics();
+        assertEquals(3, d.getCount(ImportDiagnostics.Category.OUT_OF_RANGE_NUMBER));
+        assertEquals(0, d.getCount(ImportDiagnostics.Category.INVALID_NUMBER));
+        assertEquals("row 1: calories \"9300000000000\"", d.getSamples(ImportDiagnostics.Category.OUT_OF_RANGE_NUMBER).get(0).toString());
+        assertEquals("3 out-of-range numbers read as 0", d.describeProblems());
+    }
+
+    @Test
+    void rejectsFileWithoutValidRows() throws Exception {
+        File file = write("empty.csv", HEADER + "not a date,Apple,,,,,,,,,\n");
+
+        assertThrows(IllegalArgumentException.class, () -> CsvImporter.importFile(file));
+    }
+
+    @Test
+    void rejectsNonPositiveBatchSize() throws Exception {
+        File file = write("log.csv", HEADER + "2025-08-01,Apple,1,50,12,0,0,0,0,Snack,\n");
+
+        assertThrows(IllegalArgumentException.class, () -> CsvImporter.importFile(file, 0, (batch, p) -> { }));
+    }
+
+    private File write(String name, String content) throws Exception {
+        Path path = dir.resolve(name);
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path.toFile();
+    }
+}
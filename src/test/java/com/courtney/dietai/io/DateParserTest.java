@@ -0,0 +1,56 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class DateParserTest {
+
+    @Test
+    void parsesSupportedLayouts() {
+        assertEquals(LocalDate.of(2025, 8, 19), new DateParser().parse("2025-08-19"));
+        assertEquals(LocalDate.of(2025, 8, 19), new DateParser().parse("2025/08/19"));
+        assertEquals(LocalDate.of(2025, 8, 19), new DateParser().parse("08/19/2025"));
+        assertEquals(LocalDate.of(2025, 8, 9), new DateParser().parse("8/9/2025"));
+    }
+
+    @Test
+    void fallsBackToDayFirstWhenMonthIsImpossible() {
+        assertEquals(LocalDate.of(2025, 8, 19), new DateParser().parse("19/8/2025"));
+    }
+
+    @Test
+    void locksOntoTheFirstLayoutButStillAcceptsOthers() {
+        DateParser dates = new DateParser();
+        assertNull(dates.getLayout());
+        dates.parse("08/19/2025");
+        assertEquals(DateParser.Layout.SLASH_YEAR_LAST, dates.getLayout());
+
+        assertEquals(LocalDate.of(2025, 8, 20), dates.parse("2025-08-20"));
+        assertEquals(DateParser.Layout.SLASH_YEAR_LAST, dates.getLayout());
+    }
+
+    @Test
+    void clampsDaysPastTheMonthEnd() {
+        assertEquals(LocalDate.of(2025, 2, 28), new DateParser().parse("2025-02-30"));
+        assertEquals(LocalDate.of(2024, 2, 29), new DateParser().parse("2024-02-31"));
+    }
+
+    @Test
+    void reusesTheLastDateForTheSameDay() {
+        DateParser dates = new DateParser();
+        LocalDate first = dates.parse("2025-08-19");
+        assertSame(first, dates.parse("2025-08-19"));
+        assertNotSame(first, dates.parse("2025-08-20"));
+    }
+
+    @Test
+    void returnsNullForOtherShapes() {
+        DateParser dates = new DateParser();
+        assertNull(dates.parse("2025-08-19T10:00"));
+        assertNull(dates.parse("2025-13-01"));
+        assertNull(dates.parse("19.08.2025"));
+        assertNull(dates.parse("Breakfast"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.concurrent.TaskScheduler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileWatcherTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void reportsAppendsFromTheSchedulerAndStopsOnClose() throws Exception {
+        Path file = dir.resolve("log.csv");
+        Files.writeString(file, "Date,Item\n", StandardCharsets.UTF_8);
+        TaskScheduler scheduler = new TaskScheduler();
+        try {
+            CountDownLatch changed = new CountDownLatch(1);
+            try (FileWatcher watcher = new FileWatcher(file.toFile(), scheduler, changed::countDown)) {
+                Files.writeString(file, "2025-08-01,Apple\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+                assertTrue(changed.await(30, TimeUnit.SECONDS));
+            }
+
+            // Closing frees the watch loop's slot: every IO slot can be taken at once
+            int limit = TaskScheduler.Category.IO.getLimit();
+            CountDownLatch ran = new CountDownLatch(limit);
+            for (int i = 0; i < limit; i++) {
+                scheduler.submit(TaskScheduler.Category.IO, null, new FutureTask<Void>(() -> {
+                    ran.countDown();
+                    ran.await();
+                    return null;
+                }));
+            }
+            assertTrue(ran.await(10, TimeUnit.SECONDS));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.courtney.dietai.io;
+
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.SymbolTable;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Random;
+
+// Bytes allocated per row while importing a synthetic export, converting cells the legacy way
+// (DateTimeFormatter list, regex-filtered numbers, a String per cell) versus through DateParser,
+// NumberParser and the symbol table, plus a whole CsvImporter.importFile run. Both conversion
+// passes share the same CSV parsing, so their difference is the conversion alone. Not a unit test;
+// run it by hand on a quiet JVM:
+//   java -cp target/classes:target/test-classes:<commons-csv.jar> com.courtney.dietai.io.ImportAllocationBenchmark [rows]
+public class ImportAllocationBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 286_000;
+        File file = File.createTempFile("allocation", ".csv");
+        file.deleteOnExit();
+        write(file, rows);
+        System.out.printf("rows: %d, file: %.1f MB%n", rows, file.length() / 1e6);
+
+        // The first rounds warm up the JIT, so only the last one is reported
+        for (int round = 0; round < 3; round++) {
+            long legacy = measure(() -> convert(file, false));
+            long current = measure(() -> convert(file, true));
+            long full = measure(() -> CsvImporter.importFile(file, new SymbolTable(), CsvImporter.DEFAULT_BATCH_SIZE, (batch, p) -> { }));
+            if (round < 2) continue;
+            System.out.printf("legacy conversion: %.0f bytes/row%n", (double) legacy / rows);
+            System.out.printf("current conversion: %.0f bytes/row%n", (double) current / rows);
+            System.out.printf("importFile: %.0f bytes/row%n", (double) full / rows);
+        }
+    }
+
+    // Parses every record, keeping only the last row so the result is not optimized away
+    private static Object convert(File file, boolean current) throws IOException {
+        DietEntry last = null;
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+             CSVParser parser = CsvImporter.csvFormat().parse(reader)) {
+            ColumnPlan plan = ColumnPlan.compile(parser.getHeaderMap());
+            DateParser dates = new DateParser();
+            SymbolTable symbols = new SymbolTable();
+            ImportDiagnostics diagnostics = new ImportDiagnostics();
+            for (CSVRecord r : parser) {
+                last = current ? CsvImporter.parseRecord(r, plan, dates, symbols, diagnostics) : legacyRecord(r);
+            }
+        }
+        return last;
+    }
+
+    // The importer's conversion before NumberParser, DateParser and the symbol table
+    private static DietEntry legacyRecord(CSVRecord r) {
+        LocalDate date = CsvImporter.parseDateLegacy(r.get(0).trim());
+        return new DietEntry(date, r.get(1).trim(), r.get(2).trim(), r.get(3).trim(),
+                legacyNumber(r.get(4)), legacyNumber(r.get(5)), legacyNumber(r.get(6)), legacyNumber(r.get(7)),
+                legacyNumber(r.get(8)), legacyNumber(r.get(9)), r.get(10).trim());
+    }
+
+    private static double legacyNumber(String raw) {
+        double v = CsvImporter.parseDoubleLegacy(raw);
+        return Double.isNaN(v) ? 0 : v;
+    }
+
+    private static long measure(Work work) throws Exception {
+        long id = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(id);
+        Object result = work.run();
+        long allocated = THREADS.getThreadAllocatedBytes(id) - before;
+        if (result == null) throw new IllegalStateException("Nothing was imported.");
+        return allocated;
+    }
+
+    // Same shape as EntryStoreFootprint's rows, with unit suffixes as trackers export them
+    private static void write(File file, int rows) throws IOException {
+        String[] meals = {"Breakfast", "Lunch", "Dinner", "Snacks"};
+        Random random = new Random(7);
+        LocalDate start = LocalDate.of(2015, 1, 1);
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            out.write("Date,Meal,Item,Quantity,Calories,Carbs,Protein,Fat,Sodium,Fiber,Notes\n");
+            for (int i = 0; i < rows; i++) {
+                int food = random.nextInt(400);
+                out.write(start.plusDays(i / 20) + "," + meals[random.nextInt(meals.length)]
+                        + ",\"Food item number " + food + ", prepared\"," + (1 + random.nextInt(3)) + " x 1 serving ("
+                        + (50 + food % 150) + "g)," + (50 + random.nextInt(600)) + "," + random.nextInt(80) + "."
+                        + random.nextInt(10) + "g," + random.nextInt(40) + "g," + random.nextInt(30) + ".5g,"
+                        + random.nextInt(900) + "mg," + random.nextInt(12) + "g," + (random.nextInt(10) == 0 ? "homemade" : "")
+                        + "\n");
+            }
+        }
+    }
+
+    private interface Work {
+        Object run() throws Exception;
+    }
+}
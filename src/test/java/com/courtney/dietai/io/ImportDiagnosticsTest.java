@@ -0,0 +1,64 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+
+class ImportDiagnosticsTest {
+
+    @Test
+    void describesSkippedAndKeptRowsApart() throws Exception {
+        ImportDiagnostics d = new ImportDiagnostics();
+        CSVRecord r = record("a,b\n");
+        d.rowSkipped(r, new ImportDiagnostics.RowException(ImportDiagnostics.Category.UNPARSEABLE_DATE, "Unparseable date."));
+        d.rowSkipped(r, new ImportDiagnostics.RowException(ImportDiagnostics.Category.UNPARSEABLE_DATE, "Unparseable date."));
+        d.invalidNumber(r, "Calories", "abc");
+
+        assertEquals("2 unparseable dates skipped, 1 invalid number read as 0", d.describeProblems());
+    }
+
+    @Test
+    void locatesSamplesByRowChunkOffsetOrAppendedRow() throws Exception {
+        CSVRecord r = record("x\ny\n");
+
+        ImportDiagnostics plain = new ImportDiagnostics();
+        plain.misalignedRow(r);
+        ImportDiagnostics chunk = ImportDiagnostics.forChunk(4096);
+        chunk.misalignedRow(r);
+        ImportDiagnostics appended = ImportDiagnostics.forAppendedRows();
+        appended.misalignedRow(r);
+
+        ImportDiagnostics.Category c = ImportDiagnostics.Category.MISALIGNED_ROW;
+        assertEquals("row 2", plain.getSamples(c).get(0).getLocation());
+        assertEquals("byte 4096+2", chunk.getSamples(c).get(0).getLocation());
+        assertEquals("appended row 2", appended.getSamples(c).get(0).getLocation());
+    }
+
+    @Test
+    void mergeKeepsCountsAndPrefixesSamples() throws Exception {
+        ImportDiagnostics a = new ImportDiagnostics(1);
+        ImportDiagnostics b = new ImportDiagnostics();
+        b.invalidNumber(record("1\n"), "Fat", "x");
+        b.invalidNumber(record("1\n"), "Fat", "y");
+
+        a.merge(b, "feb.csv");
+
+        ImportDiagnostics.Category c = ImportDiagnostics.Category.INVALID_NUMBER;
+        assertEquals(2, a.getCount(c));
+        assertEquals(1, a.getSamples(c).size());
+        assertEquals("feb.csv row 1", a.getSamples(c).get(0).getLocation());
+    }
+
+    // The last record of the text
+    private static CSVRecord record(String text) throws Exception {
+        try (CSVParser parser = CSVFormat.DEFAULT.parse(new StringReader(text))) {
+            CSVRecord last = null;
+            for (CSVRecord r : parser) last = r;
+            return last;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class NumberParserTest {
+
+    @Test
+    void parsesPlainAndSuffixedNumbers() {
+        assertEquals(53.4, NumberParser.parse("53.4"));
+        assertEquals(0.0, NumberParser.parse("0mg"));
+        assertEquals(2.3, NumberParser.parse("2.3g"));
+        assertEquals(-12.0, NumberParser.parse("-12"));
+        assertEquals(1200.0, NumberParser.parse("1 200 kcal"));
+    }
+
+    @Test
+    void treatsCommasLikeTheLegacyParser() {
+        // A lone comma is a decimal separator, commas next to a dot are grouping
+        assertEquals(1.5, NumberParser.parse("1,5"));
+        assertEquals(1234.5, NumberParser.parse("1,234.5"));
+    }
+
+    @Test
+    void fallsBackOutsideTheFastPath() {
+        assertTrue(Double.isNaN(NumberParser.parse("n/a")));
+        assertTrue(Double.isNaN(NumberParser.parse("")));
+        assertTrue(Double.isNaN(NumberParser.parse("-")));
+        assertTrue(Double.isNaN(NumberParser.parse("1.2.3")));
+        assertTrue(Double.isNaN(NumberParser.parse("1,2,3")));
+        assertTrue(Double.isNaN(NumberParser.parse("5-3")));
+        assertTrue(Double.isNaN(NumberParser.parse("123456789012345678901")));
+    }
+
+    @Test
+    void matchesDoubleParseDoubleOnRandomDecimals() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long whole = random.nextInt(100_000);
+            int scale = random.nextInt(6);
+            StringBuilder s = new StringBuilder().append(whole);
+            if (scale > 0) {
+                s.append('.');
+                for (int k = 0; k < scale; k++) s.append((char) ('0' + random.nextInt(10)));
+            }
+            String text = s.toString();
+            assertEquals(Double.parseDouble(text), NumberParser.parse(text + "g"), 0.0, text);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.SymbolTable;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelCsvImporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void matchesSequentialImportAcrossChunks() throws Exception {
+        // Large enough for several 4 MB chunks, with quoted line breaks that must not be split
+        File file = writeLog(120_000);
+        List<DietEntry> expected = CsvImporter.importFile(file);
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<DietEntry> actual = new ArrayList<>();
+            List<Long> bytes = new ArrayList<>();
+            ImportProgress done = ParallelCsvImporter.importFile(file, pool, new SymbolTable(), 5000, (batch, p) -> {
+                actual.addAll(batch);
+                bytes.add(p.getBytesRead());
+            });
+
+            assertEquals(expected.size(), done.getRowsParsed());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                DietEntry a = expected.get(i), b = actual.get(i);
+                assertEquals(a.getDate(), b.getDate());
+                assertEquals(a.getItem(), b.getItem());
+                assertEquals(a.getNotes(), b.getNotes());
+                assertEquals(a.getCalories(), b.getCalories());
+            }
+            for (int i = 1; i < bytes.size(); i++) assertTrue(bytes.get(i) >= bytes.get(i - 1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void listenerFailureStopsTheImport() throws Exception {
+        File file = writeLog(120_000);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            int[] batches = {0};
+            IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                    ParallelCsvImporter.importFile(file, pool, new SymbolTable(), 1000, (batch, p) -> {
+                        if (++batches[0] == 3) throw new IllegalStateException("stop");
+                    }));
+            assertEquals("stop", e.getMessage());
+            assertEquals(3, batches[0]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private File writeLog(int rows) throws Exception {
+        Path path = dir.resolve("big.csv");
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            w.write("Date,Item,Quantity / Duration,Calories,Carbohydrates,Protein,Fat,Sodium,Fiber,Meal,Notes\n");
+            for (int i = 0; i < rows; i++) {
+                w.write(start.plusDays(i / 20).toString());
+                w.write(",\"Oats, rolled\",1 cup (81g),");
+                w.write(Integer.toString(300 + i % 50));
+                w.write(",54,10.7,5.3,5mg,8.1,Breakfast,");
+                w.write(i % 7 == 0 ? "\"line one\nline two for row " + i + "\"" : "plain notes padding padding");
+                w.write('\n');
+            }
+        }
+        return path.toFile();
+    }
+}
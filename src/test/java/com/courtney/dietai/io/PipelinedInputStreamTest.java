@@ -0,0 +1,79 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.concurrent.TaskScheduler;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PipelinedInputStreamTest {
+    private final TaskScheduler scheduler = new TaskScheduler();
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void deliversTheSourceBytesInOrder() throws Exception {
+        byte[] data = new byte[100_000];
+        new Random(3).nextBytes(data);
+        try (InputStream in = new PipelinedInputStream(new ByteArrayInputStream(data), 4096, 2, scheduler)) {
+            assertArrayEquals(data, in.readAllBytes());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void surfacesUncheckedSourceFailuresAfterTheEarlierChunks() throws Exception {
+        InputStream failing = new InputStream() {
+            int left = 10_000;
+
+            @Override
+            public int read() {
+                if (left-- == 0) throw new IllegalStateException("corrupt block");
+                return 'x';
+            }
+        };
+        try (InputStream in = new PipelinedInputStream(failing, 1024, 2, scheduler)) {
+            byte[] buf = new byte[1024];
+            long read = 0;
+            IOException e = null;
+            try {
+                for (int n; (n = in.read(buf)) > 0; ) read += n;
+            } catch (IOException ex) {
+                e = ex;
+            }
+            assertNotNull(e, "the failure must end the stream instead of hanging it");
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals(9 * 1024, read);
+        }
+    }
+
+    @Test
+    void closingEarlyClosesTheSource() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return 'x';
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        InputStream in = new PipelinedInputStream(endless, 1024, 2, scheduler);
+        assertEquals('x', in.read());
+        in.close();
+        for (int i = 0; i < 200 && !closed.get(); i++) Thread.sleep(10);
+        assertTrue(closed.get());
+        assertEquals(-1, in.read());
+    }
+}
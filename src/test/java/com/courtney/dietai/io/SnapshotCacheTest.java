@@ -0,0 +1,171 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.analysis.DailyRollup;
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.EntryStore;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotCacheTest {
+    private static final String CSV = "Date,Meal,Item,Quantity,Calories\n"
+            + "2025-06-01,Breakfast,Oats,50 g,190\n"
+            + "2025-06-01,Lunch,Rice,150 g,195\n"
+            + "2025-06-02,Dinner,Salmon,120 g,250\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsColumnsSymbolsAndRollup() throws Exception {
+        File source = write("log.csv", CSV);
+        SnapshotCache cache = new SnapshotCache(dir.resolve("cache"));
+        EntryStore store = store();
+        DailyRollup rollup = DailyRollup.of(store);
+
+        assertTrue(cache.save(source, source.length(), source.lastModified(), snapshotOf(store, rollup, 4)));
+        SnapshotCache.Snapshot loaded = cache.load(source);
+
+        assertNotNull(loaded);
+        assertEquals(4, loaded.getRowsSkipped());
+        assertArrayEquals(rollup.dayKeys(), loaded.getDayKeys());
+        for (int m = 0; m < rollup.dayTotals().length; m++) assertArrayEquals(rollup.dayTotals()[m], loaded.getDayTotals()[m]);
+        EntryStore restored = new EntryStore();
+        restored.load(loaded.getSymbols(), loaded.getColumns());
+        assertEquals(store.size(), restored.size());
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(store.get(i).getItem(), restored.get(i).getItem());
+            assertEquals(store.get(i).getQuantityOrDuration(), restored.get(i).getQuantityOrDuration());
+            assertEquals(store.get(i).getDate(), restored.get(i).getDate());
+            assertEquals(store.getCalories(i), restored.getCalories(i));
+        }
+    }
+
+    @Test
+    void touchedButUnchangedSourceIsConfirmedByChecksum() throws Exception {
+        File source = write("log.csv", CSV);
+        SnapshotCache cache = new SnapshotCache(dir.resolve("cache"));
+        EntryStore store = store();
+        cache.save(source, source.length(), source.lastModified(), snapshotOf(store, DailyRollup.of(store), 0));
+
+        assertTrue(source.setLastModified(source.lastModified() + 60_000));
+        assertNotNull(cache.load(source));
+
+        Files.writeString(source.toPath(), CSV.replace("190", "191"), StandardCharsets.UTF_8);
+        assertTrue(source.setLastModified(source.lastModified() + 120_000));
+        assertNull(cache.load(source));
+    }
+
+    @Test
+    void grownSourceLoadsOnlyUnderItsCheckpoint() throws Exception {
+        File source = write("log.csv", CSV);
+        SnapshotCache cache = new SnapshotCache(dir.resolve("cache"));
+        EntryStore store = store();
+        cache.save(source, source.length(), source.lastModified(), snapshotOf(store, DailyRollup.of(store), 0));
+        ImportCheckpoint checkpoint = ImportCheckpoint.capture(source, source.length());
+
+        Files.writeString(source.toPath(), "2025-06-03,Lunch,Soup,300 g,180\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertNull(cache.load(source));
+        assertTrue(checkpoint.matches(source));
+        assertEquals(3, cache.load(source, checkpoint).getColumns().size);
+    }
+
+    @Test
+    void truncatedSnapshotIsTreatedAsMissing() throws Exception {
+        File source = write("log.csv", CSV);
+        Path cacheDir = dir.resolve("cache");
+        SnapshotCache cache = new SnapshotCache(cacheDir);
+        EntryStore store = store();
+        cache.save(source, source.length(), source.lastModified(), snapshotOf(store, DailyRollup.of(store), 0));
+
+        Path file = snapshots(cacheDir)[0];
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertNull(cache.load(source));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondTheLimit() throws Exception {
+        Path cacheDir = dir.resolve("cache");
+        SnapshotCache cache = new SnapshotCache(cacheDir, 2, Duration.ofDays(30));
+        EntryStore store = store();
+        File a = write("a.csv", CSV), b = write("b.csv", CSV), c = write("c.csv", CSV);
+
+        save(cache, a, store);
+        save(cache, b, store);
+        age(cacheDir, Duration.ofHours(2));
+        // Loading a marks it used, so b is the least recently used when c arrives
+        assertNotNull(cache.load(a));
+        save(cache, c, store);
+
+        assertEquals(2, snapshots(cacheDir).length);
+        assertNotNull(cache.load(a));
+        assertNull(cache.load(b));
+        assertNotNull(cache.load(c));
+    }
+
+    @Test
+    void evictsSnapshotsPastTheAgeLimit() throws Exception {
+        Path cacheDir = dir.resolve("cache");
+        SnapshotCache cache = new SnapshotCache(cacheDir, 10, Duration.ofDays(30));
+        EntryStore store = store();
+        File a = write("a.csv", CSV), b = write("b.csv", CSV);
+
+        save(cache, a, store);
+        age(cacheDir, Duration.ofDays(31));
+        save(cache, b, store);
+
+        assertEquals(1, snapshots(cacheDir).length);
+        assertNull(cache.load(a));
+        assertNotNull(cache.load(b));
+    }
+
+    private static void save(SnapshotCache cache, File source, EntryStore store) throws Exception {
+        assertTrue(cache.save(source, source.length(), source.lastModified(), snapshotOf(store, DailyRollup.of(store), 0)));
+    }
+
+    private static void age(Path cacheDir, Duration by) throws Exception {
+        for (Path f : snapshots(cacheDir)) Files.setLastModifiedTime(f, FileTime.from(Instant.now().minus(by)));
+    }
+
+    private static Path[] snapshots(Path cacheDir) throws Exception {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            return files.filter(f -> f.toString().endsWith(".snapshot")).toArray(Path[]::new);
+        }
+    }
+
+    private static SnapshotCache.Snapshot snapshotOf(EntryStore store, DailyRollup rollup, long skipped) {
+        return new SnapshotCache.Snapshot(store.getSymbols(), store.columns(), skipped, rollup.dayKeys(), rollup.dayTotals());
+    }
+
+    private File write(String name, String content) throws Exception {
+        Path p = dir.resolve(name);
+        Files.writeString(p, content, StandardCharsets.UTF_8);
+        return p.toFile();
+    }
+
+    private static EntryStore store() {
+        EntryStore store = new EntryStore();
+        store.add(entry(LocalDate.of(2025, 6, 1), "Breakfast", "Oats", "50 g", 190));
+        store.add(entry(LocalDate.of(2025, 6, 1), "Lunch", "Rice", "150 g", 195));
+        store.add(entry(LocalDate.of(2025, 6, 2), "Dinner", "Salmon", "120 g", 250));
+        return store;
+    }
+
+    private static DietEntry entry(LocalDate date, String meal, String item, String qty, double calories) {
+        return new DietEntry(date, meal, item, qty, calories, 0, 0, 0, 0, 0, "");
+    }
+}
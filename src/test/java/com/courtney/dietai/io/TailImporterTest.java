@@ -0,0 +1,106 @@
+package com.courtney.dietai.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.SymbolTable;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TailImporterTest {
+    private static final String HEADER = "Date,Meal,Item,Quantity,Calories,Notes\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void importsAppendedRowsAndAdvancesTheCheckpoint() throws Exception {
+        File file = write(HEADER + "2025-06-01,Breakfast,Oats,50 g,190,\n");
+        ImportCheckpoint checkpoint = ImportCheckpoint.capture(file, file.length());
+        append(file, "2025-06-02,Lunch,Rice,150 g,195,\n2025-06-02,Dinner,Salmon,120 g,250,\n");
+
+        List<DietEntry> rows = new ArrayList<>();
+        TailImporter.Result result = TailImporter.importTail(file, checkpoint, new SymbolTable(), 10, (batch, p) -> rows.addAll(batch));
+
+        assertEquals(2, rows.size());
+        assertEquals("Rice", rows.get(0).getItem());
+        assertEquals(250, rows.get(1).getCalories());
+        assertEquals(file.length(), result.getCheckpoint().getOffset());
+        assertTrue(result.getCheckpoint().matches(file));
+    }
+
+    @Test
+    void leavesAnUnterminatedRowForTheNextCall() throws Exception {
+        File file = write(HEADER + "2025-06-01,Breakfast,Oats,50 g,190,\n");
+        ImportCheckpoint checkpoint = ImportCheckpoint.capture(file, file.length());
+        append(file, "2025-06-02,Lunch,Rice,150 g,195,\n2025-06-02,Din");
+
+        List<DietEntry> rows = new ArrayList<>();
+        TailImporter.Result first = TailImporter.importTail(file, checkpoint, new SymbolTable(), 10, (batch, p) -> rows.addAll(batch));
+        assertEquals(1, rows.size());
+
+        append(file, "ner,Salmon,120 g,250,\n");
+        TailImporter.Result second = TailImporter.importTail(file, first.getCheckpoint(), new SymbolTable(), 10, (batch, p) -> rows.addAll(batch));
+        assertEquals(2, rows.size());
+        assertEquals("Dinner", rows.get(1).getMeal());
+        assertEquals(file.length(), second.getCheckpoint().getOffset());
+    }
+
+    @Test
+    void doesNotCutInsideAQuotedMultiLineField() throws Exception {
+        File file = write(HEADER + "2025-06-01,Breakfast,Oats,50 g,190,\n");
+        ImportCheckpoint checkpoint = ImportCheckpoint.capture(file, file.length());
+        append(file, "2025-06-02,Lunch,Rice,150 g,195,\n2025-06-02,Dinner,Salmon,120 g,250,\"grilled\nwith lemon\n");
+
+        List<DietEntry> rows = new ArrayList<>();
+        TailImporter.Result first = TailImporter.importTail(file, checkpoint, new SymbolTable(), 10, (batch, p) -> rows.addAll(batch));
+        assertEquals(1, rows.size());
+        assertEquals(0, first.getProgress().getRowsSkipped());
+
+        append(file, "and dill\"\n");
+        TailImporter.importTail(file, first.getCheckpoint(), new SymbolTable(), 10, (batch, p) -> rows.addAll(batch));
+        assertEquals(2, rows.size());
+        assertEquals("grilled\nwith lemon\nand dill", rows.get(1).getNotes());
+    }
+
+    @Test
+    void handlesDuplicateHeaderNames() throws Exception {
+        File file = write("Date,Item,Calories,Calories\n2025-06-01,Oats,190,190\n");
+        ImportCheckpoint checkpoint = ImportCheckpoint.capture(file, file.length());
+        append(file, "2025-06-02,Rice,195,195\n");
+
+        List<DietEntry> rows = new ArrayList<>();
+        TailImporter.importTail(file, checkpoint, new SymbolTable(), 10, (batch, p) -> rows.addAll(batch));
+
+        assertEquals(1, rows.size());
+        assertEquals("Rice", rows.get(0).getItem());
+        assertEquals(195, rows.get(0).getCalories());
+    }
+
+    @Test
+    void rewrittenFileNeedsAFullImport() throws Exception {
+        File file = write(HEADER + "2025-06-01,Breakfast,Oats,50 g,190,\n");
+        ImportCheckpoint checkpoint = ImportCheckpoint.capture(file, file.length());
+        Files.writeString(file.toPath(), HEADER + "2025-06-01,Breakfast,Eggs,2 pcs,150,\n2025-06-02,Lunch,Rice,150 g,195,\n",
+                StandardCharsets.UTF_8);
+
+        assertNull(TailImporter.importTail(file, checkpoint, new SymbolTable(), 10, (batch, p) -> fail("no rows expected")));
+    }
+
+    private File write(String content) throws Exception {
+        Path p = dir.resolve("log.csv");
+        Files.writeString(p, content, StandardCharsets.UTF_8);
+        return p.toFile();
+    }
+
+    private static void append(File file, String content) throws Exception {
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
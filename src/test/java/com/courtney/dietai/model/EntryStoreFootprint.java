@@ -0,0 +1,104 @@
+package com.courtney.dietai.model;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Heap retained per row by a List<DietEntry> as the CSV parser builds it (fresh strings and dates
+// per row) versus the same rows in an EntryStore, both while appending and once trimmed, and what
+// dictionary encoding saves on the four text fields alone. Not a unit test; run it by hand on a quiet JVM:
+//   java -Xms1g -Xmx1g -cp target/classes:target/test-classes com.courtney.dietai.model.EntryStoreFootprint [rows]
+public class EntryStoreFootprint {
+    private static final int BATCH = 2000;
+    // A trimmed store's numeric columns: epoch day, six doubles and the four int symbol codes
+    private static final int COLUMN_BYTES_PER_ROW = 4 + 6 * 8 + 4 * 4;
+    private static final int CODE_BYTES_PER_ROW = 4 * 4;
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 286_000;
+
+        long base = usedAfterGc();
+        List<DietEntry> beans = synthesize(rows);
+        long beanBytes = usedAfterGc() - base;
+
+        // Appended in import-sized batches, so the columns carry the same growth slack as after a real import
+        EntryStore store = new EntryStore();
+        for (int from = 0; from < rows; from += BATCH) store.addAll(beans.subList(from, Math.min(rows, from + BATCH)));
+        beans = null;
+        long growingBytes = usedAfterGc() - base;
+        store.trimToSize();
+        long storeBytes = usedAfterGc() - base;
+
+        System.out.printf("rows: %d (%d symbols)%n", store.size(), store.getSymbols().size());
+        System.out.printf("beans: %.1f bytes/row%n", (double) beanBytes / rows);
+        System.out.printf("store while importing: %.1f bytes/row (%.2fx)%n", (double) growingBytes / rows, (double) beanBytes / growingBytes);
+        System.out.printf("store after import: %.1f bytes/row (%.2fx)%n", (double) storeBytes / rows, (double) beanBytes / storeBytes);
+
+        // Whatever the trimmed store holds beyond its columns is the dictionary
+        long dictionaryBytes = storeBytes - (long) rows * COLUMN_BYTES_PER_ROW;
+        long encodedBytes = dictionaryBytes + (long) rows * CODE_BYTES_PER_ROW;
+        store = null;
+        long textBytes = textFootprint(rows);
+        System.out.printf("text as per-row strings: %.1f bytes/row%n", (double) textBytes / rows);
+        System.out.printf("text as codes + dictionary: %.1f bytes/row (dictionary %.1f KB), saves %.1f bytes/row (%.2fx)%n",
+                (double) encodedBytes / rows, dictionaryBytes / 1024.0, (double) (textBytes - encodedBytes) / rows,
+                (double) textBytes / encodedBytes);
+    }
+
+    // Heap retained by just the meal, item, quantity and notes strings of each row, as the parser hands them out
+    private static long textFootprint(int rows) {
+        long base = usedAfterGc();
+        List<DietEntry> beans = synthesize(rows);
+        String[][] text = new String[rows][];
+        for (int i = 0; i < rows; i++) {
+            DietEntry e = beans.get(i);
+            text[i] = new String[] {e.getMeal(), e.getItem(), e.getQuantityOrDuration(), e.getNotes()};
+        }
+        beans = null;
+        long bytes = usedAfterGc() - base;
+        // The String[] per row is only a holder, not part of the text
+        long holders = (long) rows * (16 + 4 * 4) + 16 + (long) rows * 4;
+        Reference.reachabilityFence(text);
+        return bytes - holders;
+    }
+
+    // A log's worth of rows: ~20 entries a day drawn from a few hundred foods, as in real exports
+    static List<DietEntry> synthesize(int rows) {
+        String[] meals = {"Breakfast", "Lunch", "Dinner", "Snacks"};
+        Random random = new Random(7);
+        LocalDate start = LocalDate.of(2015, 1, 1);
+        List<DietEntry> out = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int food = random.nextInt(400);
+            // Copies, since the parser hands out a new String per cell and a new LocalDate per row
+            out.add(new DietEntry(LocalDate.ofEpochDay(start.toEpochDay() + i / 20),
+                    new String(meals[random.nextInt(meals.length)]),
+                    new String("Food item number " + food + ", prepared"),
+                    new String((1 + random.nextInt(3)) + " x 1 serving (" + (50 + food % 150) + "g)"),
+                    50 + random.nextInt(600), random.nextInt(80), random.nextInt(40), random.nextInt(30),
+                    random.nextInt(900), random.nextInt(12),
+                    new String(random.nextInt(10) == 0 ? "homemade" : "")));
+        }
+        return out;
+    }
+
+    private static long usedAfterGc() {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            used = Math.min(used, MEMORY.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+}
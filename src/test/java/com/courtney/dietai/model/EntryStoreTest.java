@@ -0,0 +1,145 @@
+package com.courtney.dietai.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class EntryStoreTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 8, 19);
+
+    @Test
+    void rowsRoundTripThroughTheColumns() {
+        EntryStore store = new EntryStore();
+        store.add(entry(0, "Oats", 300));
+        store.add(entry(1, "Oats", 310));
+
+        assertEquals(2, store.size());
+        assertEquals(DAY.plusDays(1), store.getDate(1));
+        assertEquals(310, store.getCalories(1));
+        assertEquals(store.getItemCode(0), store.getItemCode(1));
+        DietEntry back = store.get(0);
+        assertEquals("Oats", back.getItem());
+        assertEquals("Breakfast", back.getMeal());
+        assertEquals("", back.getNotes());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(2));
+    }
+
+    @Test
+    void appendsKeepTheVersionOtherChangesBumpIt() {
+        EntryStore store = new EntryStore();
+        int v0 = store.getVersion();
+        store.addAll(List.of(entry(0, "A", 1), entry(1, "B", 2)));
+        store.add(entry(2, "C", 3));
+        assertEquals(v0, store.getVersion());
+
+        store.insert(0, entry(3, "D", 4));
+        int v1 = store.getVersion();
+        assertTrue(v1 > v0);
+        assertEquals("D", store.getItem(0));
+        assertEquals("C", store.getItem(3));
+
+        store.removeRange(1, 3);
+        assertTrue(store.getVersion() > v1);
+        assertEquals(2, store.size());
+        assertEquals("C", store.getItem(1));
+    }
+
+    @Test
+    void listViewWritesThrough() {
+        EntryStore store = new EntryStore();
+        List<DietEntry> rows = store.rows();
+        rows.add(entry(0, "A", 1));
+        rows.add(entry(1, "B", 2));
+        rows.set(0, entry(0, "Z", 9));
+        rows.remove(1);
+
+        assertEquals(1, store.size());
+        assertEquals("Z", store.getItem(0));
+        assertEquals(9, store.getCalories(0));
+    }
+
+    @Test
+    void clearStartsAFreshDictionary() {
+        EntryStore store = new EntryStore();
+        store.add(entry(0, "A", 1));
+        SymbolTable before = store.getSymbols();
+        store.clear();
+
+        assertTrue(store.isEmpty());
+        assertNotSame(before, store.getSymbols());
+    }
+
+    @Test
+    void trimToSizeKeepsRowsAndAcceptsMoreAppends() {
+        EntryStore store = new EntryStore();
+        for (int i = 0; i < 1000; i++) store.add(entry(i, "Item " + (i % 7), i));
+        int version = store.getVersion();
+        store.trimToSize();
+
+        assertEquals(version, store.getVersion());
+        assertEquals(1000, store.size());
+        assertEquals(999, store.getCalories(999));
+        store.add(entry(1000, "Item 0", 1000));
+        assertEquals(1001, store.size());
+        assertEquals(DAY.plusDays(1000), store.getDate(1000));
+    }
+
+    @Test
+    void columnsLoadIntoAnotherStore() {
+        EntryStore store = new EntryStore();
+        store.add(entry(0, "A", 1));
+        store.add(entry(1, "B", 2));
+
+        EntryStore copy = new EntryStore();
+        copy.load(store.getSymbols(), store.columns());
+        assertEquals(2, copy.size());
+        assertEquals("B", copy.getItem(1));
+        assertEquals(2, copy.getCalories(1));
+    }
+
+    @Test
+    void snapshotsKeepTheirRowsWhileTheStoreChanges() {
+        EntryStore store = new EntryStore();
+        store.add(entry(0, "A", 1));
+        store.add(entry(1, "B", 2));
+        EntryStore snapshot = store.snapshot();
+
+        store.add(entry(2, "C", 3));
+        assertEquals(2, snapshot.size());
+        store.set(0, entry(0, "Z", 9));
+        store.remove(1);
+        assertEquals("A", snapshot.getItem(0));
+        assertEquals(2, snapshot.getCalories(1));
+        assertEquals("Z", store.getItem(0));
+
+        EntryStore again = store.snapshot();
+        store.clear();
+        store.add(entry(5, "Q", 7));
+        assertEquals(2, again.size());
+        assertEquals("Z", again.getItem(0));
+        assertEquals("C", again.getItem(1));
+    }
+
+    @Test
+    void snapshotsShareTheOriginAndAreReadOnly() {
+        EntryStore store = new EntryStore();
+        store.add(entry(0, "A", 1));
+        EntryStore snapshot = store.snapshot();
+
+        assertSame(store, store.getOrigin());
+        assertSame(store, snapshot.getOrigin());
+        assertSame(snapshot, snapshot.snapshot());
+        assertTrue(snapshot.isSnapshot());
+        assertFalse(store.isSnapshot());
+        assertEquals(store.getVersion(), snapshot.getVersion());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(entry(1, "B", 2)));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.rows().remove(0));
+        assertThrows(UnsupportedOperationException.class, snapshot::clear);
+    }
+
+    private static DietEntry entry(int dayOffset, String item, double calories) {
+        return new DietEntry(DAY.plusDays(dayOffset), "Breakfast", item, "1 cup", calories, 10, 5, 2, 100, 3, "");
+    }
+}
@@ -0,0 +1,112 @@
+package com.courtney.dietai.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+class RowViewTest {
+    // Sorts by row id modulo 7, so many rows tie and the row-id tiebreak matters
+    private static final IntBinaryOperator BY_MOD = (a, b) -> Integer.compare(a % 7, b % 7);
+
+    @Test
+    void showReportsOnlyChangedRunsWhileUnsorted() {
+        RowView view = RowView.subset();
+        Mirror mirror = new Mirror(view);
+        view.show(new int[]{1, 2, 3, 5, 8, 13});
+        mirror.reset();
+
+        view.show(new int[]{1, 3, 4, 5, 8, 13, 21});
+
+        assertEquals(List.of(1, 3, 4, 5, 8, 13, 21), mirror.rows);
+        assertEquals(1, mirror.removed);
+        assertEquals(2, mirror.added);
+    }
+
+    @Test
+    void showReportsOnlyChangedRunsWhileSorted() {
+        RowView view = RowView.subset();
+        Mirror mirror = new Mirror(view);
+        view.show(range(0, 100));
+        view.sortBy(BY_MOD);
+        mirror.reset();
+
+        int[] next = range(0, 101);
+        next = Arrays.stream(next).filter(r -> r != 40 && r != 41).toArray();
+        view.show(next);
+
+        assertEquals(toList(view), mirror.rows);
+        assertEquals(expectedSorted(next), mirror.rows);
+        assertEquals(2, mirror.removed);
+        assertEquals(1, mirror.added);
+    }
+
+    @Test
+    void showAfterAppendWhileSortedStillEndsInOrder() {
+        RowView view = RowView.subset();
+        Mirror mirror = new Mirror(view);
+        view.show(range(0, 20));
+        view.sortBy(BY_MOD);
+        view.append(new int[]{20, 21, 22});
+        mirror.reset();
+
+        int[] next = range(2, 23);
+        view.show(next);
+
+        assertEquals(toList(view), mirror.rows);
+        assertEquals(expectedSorted(next), mirror.rows);
+    }
+
+    private static List<Integer> expectedSorted(int[] rows) {
+        List<Integer> out = new ArrayList<>();
+        for (int r : rows) out.add(r);
+        out.sort((a, b) -> a % 7 != b % 7 ? Integer.compare(a % 7, b % 7) : Integer.compare(a, b));
+        return out;
+    }
+
+    private static List<Integer> toList(RowView view) {
+        List<Integer> out = new ArrayList<>();
+        for (int i = 0; i < view.size(); i++) out.add(view.row(i));
+        return out;
+    }
+
+    private static int[] range(int from, int to) {
+        int[] out = new int[to - from];
+        for (int i = 0; i < out.length; i++) out[i] = from + i;
+        return out;
+    }
+
+    // Replays change events onto a plain list, as a TableView would
+    private static final class Mirror {
+        final List<Integer> rows = new ArrayList<>();
+        int removed, added;
+
+        Mirror(RowView view) {
+            view.addListener((ListChangeListener<Integer>) c -> {
+                while (c.next()) {
+                    if (c.wasPermutated()) {
+                        List<Integer> copy = new ArrayList<>(rows);
+                        for (int i = c.getFrom(); i < c.getTo(); i++) copy.set(c.getPermutation(i), rows.get(i));
+                        rows.clear();
+                        rows.addAll(copy);
+                        continue;
+                    }
+                    for (int k = 0; k < c.getRemovedSize(); k++) {
+                        assertEquals(c.getRemoved().get(k), rows.remove(c.getFrom()));
+                        removed++;
+                    }
+                    rows.addAll(c.getFrom(), c.getAddedSubList());
+                    added += c.getAddedSize();
+                }
+            });
+        }
+
+        void reset() {
+            removed = added = 0;
+        }
+    }
+}
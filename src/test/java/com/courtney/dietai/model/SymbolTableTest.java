@@ -0,0 +1,76 @@
+package com.courtney.dietai.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class SymbolTableTest {
+
+    @Test
+    void equalStringsShareOneCodeAndInstance() {
+        SymbolTable symbols = new SymbolTable();
+        int oats = symbols.intern("Oats");
+        String copy = new String("Oats");
+
+        assertEquals(oats, symbols.intern(copy));
+        assertSame(symbols.get(oats), symbols.canonical(copy));
+        assertEquals(symbols.intern(""), symbols.intern(null));
+        assertEquals(-1, symbols.find("Rice"));
+        assertEquals(2, symbols.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> symbols.get(2));
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 1000; i++) assertEquals(i, symbols.intern("item " + i));
+        for (int i = 0; i < 1000; i++) assertEquals("item " + i, symbols.get(i));
+    }
+
+    // Threads intern overlapping values at once, as parallel import chunks do: every value must get
+    // exactly one dense code, and a code handed out on one thread must resolve on every other
+    @Test
+    void concurrentInterningHandsOutUniqueCodesVisibleToAllThreads() throws Exception {
+        int threads = 8, values = 5000;
+        SymbolTable symbols = new SymbolTable();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentHashMap<Integer, String> seen = new ConcurrentHashMap<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < values; i++) {
+                        // Each thread walks the values in a different order
+                        String v = new String("food " + (i * 7 + offset * 613) % values);
+                        String canonical = symbols.canonical(v);
+                        assertEquals(v, canonical);
+                        int code = symbols.find(v);
+                        String other = seen.putIfAbsent(code, canonical);
+                        if (other != null) assertSame(other, canonical);
+                        assertEquals(v, symbols.get(code));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(values, symbols.size());
+        assertEquals(values, seen.size());
+        for (int code = 0; code < values; code++) assertEquals(code, symbols.find(symbols.get(code)));
+    }
+}
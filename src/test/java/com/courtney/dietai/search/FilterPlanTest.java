@@ -0,0 +1,153 @@
+package com.courtney.dietai.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.EntryStore;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+class FilterPlanTest {
+    private static final LocalDate BASE = LocalDate.of(2025, 6, 1);
+    private static final String[] ITEMS = {"Greek Yogurt", "Oat Milk", "Chicken Breast", "Brown Rice", "Apple", "Dark Chocolate"};
+    private static final String[] MEALS = {"Breakfast", "Lunch", "Dinner", "Snacks"};
+
+    @Test
+    void parsesFieldsRangesAndPhrases() {
+        FilterQuery q = FilterQuery.parse("meal:dinner \"greek yogurt\" calories>600 fiber:5..10 date:2025-08");
+
+        assertEquals(2, q.getTerms().size());
+        assertEquals(FilterQuery.TextField.MEAL, q.getTerms().get(0).getField());
+        assertEquals("dinner", q.getTerms().get(0).getText());
+        assertEquals(FilterQuery.TextField.ANY, q.getTerms().get(1).getField());
+        assertEquals("greek yogurt", q.getTerms().get(1).getText());
+        assertEquals(3, q.getComparisons().size());
+        assertEquals(LocalDate.of(2025, 8, 1), q.getFrom());
+        assertEquals(LocalDate.of(2025, 8, 31), q.getTo());
+    }
+
+    @Test
+    void malformedQueriesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> FilterQuery.parse("calories>abc"));
+        assertThrows(IllegalArgumentException.class, () -> FilterQuery.parse("date:someday"));
+    }
+
+    @Test
+    void datePickersNarrowTheQueryRange() {
+        FilterPlan plan = FilterPlan.compile("date:2025-06..2025-07", BASE.plusDays(10), LocalDate.of(2025, 9, 1));
+
+        assertEquals(BASE.plusDays(10), plan.getFrom());
+        assertEquals(LocalDate.of(2025, 7, 31), plan.getTo());
+        assertTrue(plan.isDateOnly());
+        assertFalse(plan.isEmpty());
+        assertTrue(FilterPlan.all().isEmpty());
+    }
+
+    @Test
+    void matchesABruteForceScan() {
+        EntryStore store = randomStore(3000);
+        TextIndex text = new TextIndex();
+        DateIndex dates = new DateIndex();
+        text.update(store);
+        dates.update(store);
+
+        check(store, text, dates, "yogurt", null, null,
+                r -> contains(store.getItem(r), "yogurt") || contains(store.getMeal(r), "yogurt") || contains(store.getNotes(r), "yogurt"));
+        check(store, text, dates, "meal:dinner calories>=400", null, null,
+                r -> contains(store.getMeal(r), "dinner") && store.getCalories(r) >= 400);
+        check(store, text, dates, "item:milk protein<10", BASE.plusDays(20), BASE.plusDays(40),
+                r -> contains(store.getItem(r), "milk") && store.getProtein(r) < 10 && inRange(store, r, 20, 40));
+        check(store, text, dates, "sodium:100..300", BASE.plusDays(5), null,
+                r -> store.getSodiumMg(r) >= 100 && store.getSodiumMg(r) <= 300 && inRange(store, r, 5, Integer.MAX_VALUE));
+        check(store, text, dates, "", BASE.plusDays(50), BASE.plusDays(49), r -> false);
+    }
+
+    @Test
+    void aFarOffDateStillMatchesABruteForceScan() {
+        // A typo'd year stretches the day span far beyond the row count, so the index sorts instead of counting
+        EntryStore store = randomStore(500);
+        store.add(new DietEntry(LocalDate.of(25, 1, 1), "Lunch", "Apple", "1 serving", 90, 20, 0, 0, 0, 4, ""));
+        store.add(new DietEntry(BASE.plusDays(3), "Lunch", "Apple", "1 serving", 90, 20, 0, 0, 0, 4, ""));
+        TextIndex text = new TextIndex();
+        DateIndex dates = new DateIndex();
+        text.update(store);
+        dates.update(store);
+
+        assertFalse(dates.isOrdered());
+        assertEquals(1, dates.count(null, LocalDate.of(100, 1, 1)));
+        check(store, text, dates, "apple", BASE.plusDays(2), BASE.plusDays(4),
+                r -> contains(store.getItem(r), "apple") && inRange(store, r, 2, 4));
+        check(store, text, dates, "", null, BASE, r -> store.getEpochDay(r) <= BASE.toEpochDay());
+    }
+
+    @Test
+    void splitRangesAddUpToTheWholeResult() {
+        EntryStore store = randomStore(2000);
+        TextIndex text = new TextIndex();
+        DateIndex dates = new DateIndex();
+        text.update(store);
+        dates.update(store);
+        FilterPlan plan = FilterPlan.compile("rice fat<20", BASE.plusDays(3), null);
+
+        int[] whole = plan.execute(store, text, dates, 0, store.size());
+        int[] head = plan.execute(store, text, dates, 0, 700);
+        int[] tail = plan.execute(store, text, dates, 700, store.size());
+        int[] joined = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, joined, head.length, tail.length);
+        assertArrayEquals(whole, joined);
+    }
+
+    @Test
+    void interruptedExecutionStops() {
+        EntryStore store = randomStore(1000);
+        TextIndex text = new TextIndex();
+        DateIndex dates = new DateIndex();
+        text.update(store);
+        dates.update(store);
+        FilterPlan plan = FilterPlan.compile("calories>100", null, null);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> plan.execute(store, text, dates, 0, store.size()));
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    private static void check(EntryStore store, TextIndex text, DateIndex dates, String query,
+                              LocalDate from, LocalDate to, Predicate<Integer> expected) {
+        int[] naive = new int[store.size()];
+        int n = 0;
+        for (int row = 0; row < store.size(); row++) if (expected.test(row)) naive[n++] = row;
+        int[] actual = FilterPlan.compile(query, from, to).execute(store, text, dates, 0, store.size());
+        assertArrayEquals(Arrays.copyOf(naive, n), actual, query);
+    }
+
+    private static boolean inRange(EntryStore store, int row, int fromOffset, int toOffset) {
+        long d = store.getEpochDay(row) - BASE.toEpochDay();
+        return d >= fromOffset && d <= toOffset;
+    }
+
+    private static boolean contains(String text, String query) {
+        return text.toLowerCase(Locale.ROOT).contains(query);
+    }
+
+    // Mostly date-ordered, with some late entries so the date index is not the identity
+    private static EntryStore randomStore(int rows) {
+        Random random = new Random(5);
+        EntryStore store = new EntryStore();
+        for (int i = 0; i < rows; i++) {
+            int day = random.nextInt(10) == 0 ? random.nextInt(60) : i * 60 / rows;
+            store.add(new DietEntry(BASE.plusDays(day), MEALS[random.nextInt(MEALS.length)],
+                    ITEMS[random.nextInt(ITEMS.length)], "1 serving", random.nextInt(800), random.nextInt(90),
+                    random.nextInt(40), random.nextInt(35), random.nextInt(600), random.nextInt(12),
+                    random.nextInt(8) == 0 ? "with yogurt dip" : ""));
+        }
+        return store;
+    }
+}
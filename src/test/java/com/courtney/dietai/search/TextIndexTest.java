@@ -0,0 +1,101 @@
+package com.courtney.dietai.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.courtney.dietai.model.DietEntry;
+import com.courtney.dietai.model.EntryStore;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TextIndexTest {
+
+    @Test
+    void findsSubstringsInItemMealAndNotes() {
+        EntryStore store = new EntryStore();
+        store.add(entry("Greek Yogurt", "Breakfast", ""));
+        store.add(entry("Banana", "Snacks", "after yoga"));
+        store.add(entry("Coffee", "Breakfast", "black"));
+        TextIndex index = new TextIndex();
+        index.update(store);
+
+        assertArrayEquals(new int[] {0, 1}, index.search("yog", 0, 3));
+        assertArrayEquals(new int[] {0, 2}, index.search("breakfast", 0, 3));
+        assertArrayEquals(new int[] {1}, index.search("ana", 0, 3));
+        assertArrayEquals(new int[] {2}, index.search("lac", 0, 3));
+        assertArrayEquals(new int[0], index.search("tofu", 0, 3));
+    }
+
+    @Test
+    void restrictsToTheRowRange() {
+        EntryStore store = new EntryStore();
+        for (int i = 0; i < 10; i++) store.add(entry("Apple", "Snacks", ""));
+        TextIndex index = new TextIndex();
+        index.update(store);
+
+        assertArrayEquals(new int[] {3, 4, 5}, index.search("apple", 3, 6));
+        assertEquals(10, index.postingCount(index.matchingSymbols("apple")));
+    }
+
+    @Test
+    void appendsAreIndexedAndOtherChangesRebuild() {
+        EntryStore store = new EntryStore();
+        store.add(entry("Apple", "Snacks", ""));
+        TextIndex index = new TextIndex();
+        index.update(store);
+
+        store.add(entry("Pineapple", "Snacks", ""));
+        index.update(store);
+        assertArrayEquals(new int[] {0, 1}, index.search("apple", 0, 2));
+
+        store.remove(0);
+        index.update(store);
+        assertArrayEquals(new int[] {0}, index.search("apple", 0, 1));
+        assertArrayEquals(new int[] {0}, index.search("pine", 0, 1));
+    }
+
+    @Test
+    void onlyCoversTheRequestedRowCount() {
+        EntryStore store = new EntryStore();
+        store.add(entry("Apple", "Snacks", ""));
+        store.add(entry("Apple", "Snacks", ""));
+        TextIndex index = new TextIndex();
+        index.update(store, 1);
+
+        assertArrayEquals(new int[] {0}, index.search("apple", 0, 2));
+    }
+
+    @Test
+    void matchesANaiveScan() {
+        String[] words = {"oat", "milk", "almond", "bread", "rye", "egg", "omelette", "salmon", "rice", "bean"};
+        Random random = new Random(3);
+        EntryStore store = new EntryStore();
+        for (int i = 0; i < 2000; i++) {
+            store.add(entry(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    random.nextBoolean() ? "Lunch" : "Dinner", random.nextInt(5) == 0 ? "with Milk" : ""));
+        }
+        TextIndex index = new TextIndex();
+        index.update(store);
+
+        for (String q : new String[] {"mil", "al", "e", "read", "almond bread", "lunch", "nner", "th m", "zzz"}) {
+            int[] naive = new int[store.size()];
+            int n = 0;
+            for (int row = 0; row < store.size(); row++) {
+                if (contains(store.getItem(row), q) || contains(store.getMeal(row), q) || contains(store.getNotes(row), q)) {
+                    naive[n++] = row;
+                }
+            }
+            assertArrayEquals(Arrays.copyOf(naive, n), index.search(q, 0, store.size()), q);
+        }
+    }
+
+    private static boolean contains(String text, String query) {
+        return text.toLowerCase(Locale.ROOT).contains(query);
+    }
+
+    private static DietEntry entry(String item, String meal, String notes) {
+        return new DietEntry(LocalDate.of(2025, 1, 1), meal, item, "1", 100, 0, 0, 0, 0, 0, notes);
+    }
+}